@@ -1,9 +1,10 @@
 package com.radek.bookstore;
 
+import com.radek.bookstore.security.utility.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -18,9 +19,11 @@ public class BookstoreBackendApplication {
 		SpringApplication.run(BookstoreBackendApplication.class, args);
 	}
 
-	@Bean
-	public BCryptPasswordEncoder bCryptPasswordEncoder() {
-		return new BCryptPasswordEncoder();
+	@Bean(destroyMethod = "shutdown")
+	public BoundedPasswordEncoder passwordEncoder(@Value("${bookstore.security.password-hashing.strength:10}") int strength,
+												  @Value("${bookstore.security.password-hashing.threads:4}") int threads,
+												  @Value("${bookstore.security.password-hashing.queue-capacity:32}") int queueCapacity) {
+		return new BoundedPasswordEncoder(strength, threads, queueCapacity);
 	}
 
 	@Bean
@@ -30,7 +33,7 @@ public class BookstoreBackendApplication {
 		corsConfiguration.setAllowCredentials(true);
 		corsConfiguration.setAllowedOrigins(Collections.singletonList("https://bookstore-rornat.herokuapp.com"));
 		corsConfiguration.setAllowedHeaders(Arrays.asList("*"));
-		corsConfiguration.setExposedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Jwt-Token", "Authorization",
+		corsConfiguration.setExposedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Jwt-Token", "Refresh-Token", "Authorization",
 				"Access-Control-Allow-Origin", "Access-Control-Allow-Credentials"));
 		corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
 		urlBasedCorsConfigurationSource.registerCorsConfiguration("/**",corsConfiguration);
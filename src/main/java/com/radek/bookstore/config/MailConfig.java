@@ -0,0 +1,53 @@
+package com.radek.bookstore.config;
+
+import com.radek.bookstore.service.mail.SmtpTransportPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.mail.Authenticator;
+import javax.mail.PasswordAuthentication;
+import javax.mail.Session;
+import java.util.Properties;
+
+import static com.radek.bookstore.utils.constants.EmailConstants.*;
+
+@Configuration
+public class MailConfig {
+
+    @Bean(destroyMethod = "close")
+    public SmtpTransportPool smtpTransportPool(@Value("${bookstore.mail.smtp.host:" + GMAIL_SMTP_SERVER + "}") String host,
+                                               @Value("${bookstore.mail.smtp.port:" + DEFAULT_PORT + "}") int port,
+                                               @Value("${bookstore.mail.smtp.auth:true}") boolean auth,
+                                               @Value("${bookstore.mail.smtp.starttls:true}") boolean starttls,
+                                               @Value("${bookstore.mail.smtp.username:" + USERNAME + "}") String username,
+                                               @Value("${bookstore.mail.smtp.password:" + PASSWORD + "}") String password,
+                                               @Value("${bookstore.mail.smtp.connection-timeout-ms:10000}") int connectionTimeoutMs,
+                                               @Value("${bookstore.mail.smtp.timeout-ms:30000}") int timeoutMs,
+                                               @Value("${bookstore.mail.smtp.pool-size:2}") int poolSize,
+                                               @Value("${bookstore.mail.smtp.validate-after-idle-ms:30000}") long validateAfterIdleMs,
+                                               @Value("${bookstore.mail.smtp.max-idle-ms:240000}") long maxIdleMs,
+                                               @Value("${bookstore.mail.smtp.borrow-timeout-ms:10000}") long borrowTimeoutMs,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        Properties properties = new Properties();
+        properties.put(SMTP_HOST, host);
+        properties.put(SMTP_PORT, port);
+        properties.put(SMTP_AUTH, auth);
+        properties.put(SMTP_STARTTLS_ENABLE, starttls);
+        properties.put(SMTP_STARTTLS_REQUIRED, starttls);
+        properties.put(MAIL_SMTP_SSL_TRUST, host);
+        properties.put(SMTP_CONNECTION_TIMEOUT, connectionTimeoutMs);
+        properties.put(SMTP_TIMEOUT, timeoutMs);
+        properties.put(SMTP_WRITE_TIMEOUT, timeoutMs);
+        Session session = Session.getInstance(properties, new Authenticator() {
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(username, password);
+            }
+        });
+        return new SmtpTransportPool(session, poolSize, validateAfterIdleMs, maxIdleMs, borrowTimeoutMs,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
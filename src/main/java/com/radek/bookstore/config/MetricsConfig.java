@@ -0,0 +1,90 @@
+package com.radek.bookstore.config;
+
+import com.google.common.base.Suppliers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Operation timers for every service ("bookstore.service") and repository ("bookstore.repository") and a
+ * "handler" tag naming the controller method on "http.server.requests". Histograms, Hibernate statistics and
+ * connection pool metrics are configured under management.metrics and exposed on /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DefaultPointcutAdvisor(publicMethodsOf(type -> AnnotatedElementUtils.hasAnnotation(type, Service.class)),
+                new OperationMetricsInterceptor(lazy(meterRegistry), "bookstore.service"));
+    }
+
+    @Bean
+    public Advisor repositoryMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DefaultPointcutAdvisor(publicMethodsOf(Repository.class::isAssignableFrom),
+                new OperationMetricsInterceptor(lazy(meterRegistry), "bookstore.repository"));
+    }
+
+    @Bean
+    public WebMvcTagsContributor handlerTagsContributor() {
+        return new HandlerTagsContributor();
+    }
+
+    // the registry is looked up on the first call, advisors are created too early to depend on it directly
+    private static Supplier<MeterRegistry> lazy(ObjectProvider<MeterRegistry> meterRegistry) {
+        return Suppliers.memoize(() -> meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    private static Pointcut publicMethodsOf(ClassFilter classFilter) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(classFilter);
+        return pointcut;
+    }
+
+    static class HandlerTagsContributor implements WebMvcTagsContributor {
+
+        private final Map<Method, Tags> handlerTags = new ConcurrentHashMap<>();
+
+        @Override
+        public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+            if (!(handler instanceof HandlerMethod)) {
+                return Tags.of("handler", "none");
+            }
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerTags.computeIfAbsent(handlerMethod.getMethod(), method ->
+                    Tags.of("handler", handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+        }
+
+        @Override
+        public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+            return Tags.empty();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.radek.bookstore.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every call of an intercepted bean method under the given metric name, tagged with the component, the
+ * method and the outcome. Timers of successful calls are looked up once per component and method and then
+ * reused, so the common path records a duration without allocating; failed calls get a timer tagged with the
+ * exception, built on the spot.
+ */
+public class OperationMetricsInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final String metricName;
+    private final Map<Class<?>, String> componentNames = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<Method, Timer>> successTimers = new ConcurrentHashMap<>();
+
+    public OperationMetricsInterceptor(Supplier<MeterRegistry> meterRegistry, String metricName) {
+        this.meterRegistry = meterRegistry;
+        this.metricName = metricName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable exc) {
+            Class<?> targetClass = targetClass(invocation);
+            Timer.builder(metricName)
+                    .tag("component", componentName(targetClass))
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("outcome", "error")
+                    .tag("exception", exc.getClass().getSimpleName())
+                    .register(meterRegistry.get())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw exc;
+        }
+        successTimer(targetClass(invocation), invocation.getMethod()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Timer successTimer(Class<?> targetClass, Method method) {
+        Map<Method, Timer> timers = successTimers.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> Timer.builder(metricName)
+                    .tag("component", componentName(targetClass))
+                    .tag("method", method.getName())
+                    .tag("outcome", "success")
+                    .tag("exception", "none")
+                    .register(meterRegistry.get()));
+        }
+        return timer;
+    }
+
+    private static Class<?> targetClass(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        return target == null ? invocation.getMethod().getDeclaringClass() : target.getClass();
+    }
+
+    // Spring Data repositories are JDK proxies, so they are named after the repository interface they implement
+    private String componentName(Class<?> targetClass) {
+        return componentNames.computeIfAbsent(targetClass, key -> {
+            if (Proxy.isProxyClass(key)) {
+                for (Class<?> proxiedInterface : key.getInterfaces()) {
+                    if (Repository.class.isAssignableFrom(proxiedInterface) && proxiedInterface != Repository.class) {
+                        return proxiedInterface.getSimpleName();
+                    }
+                }
+            }
+            return ClassUtils.getUserClass(key).getSimpleName();
+        });
+    }
+}
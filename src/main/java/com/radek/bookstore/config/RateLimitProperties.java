@@ -0,0 +1,31 @@
+package com.radek.bookstore.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bookstore.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private long maxBuckets = 100_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String name;
+        private List<String> patterns = new ArrayList<>();
+        // empty means every method
+        private List<String> methods = new ArrayList<>();
+        private long capacity;
+        private double refillPerSecond;
+    }
+}
@@ -1,9 +1,10 @@
 package com.radek.bookstore.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring5.SpringTemplateEngine;
-import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
@@ -13,19 +14,26 @@ import java.nio.charset.StandardCharsets;
 public class ThymeleafTemplateConfig{
 
     @Bean
-    public SpringTemplateEngine springTemplateEngine() {
+    public SpringTemplateEngine springTemplateEngine(ClassLoaderTemplateResolver htmlTemplateResolver,
+                                                     @Value("${bookstore.mail.templates.cache-size:50}") int cacheSize) {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
-        templateEngine.addTemplateResolver(htmlTemplateResolver());
+        templateEngine.addTemplateResolver(htmlTemplateResolver);
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(cacheSize);
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
 
+    // parsed templates are kept until they are pushed out of the cache, or for cache-ttl-ms when it is set
     @Bean
-    public ClassLoaderTemplateResolver htmlTemplateResolver(){
+    public ClassLoaderTemplateResolver htmlTemplateResolver(@Value("${bookstore.mail.templates.cache-ttl-ms:#{null}}") Long cacheTtlMs){
         ClassLoaderTemplateResolver emailTemplateResolver = new ClassLoaderTemplateResolver();;
         emailTemplateResolver.setPrefix("/mail-templates/");
         emailTemplateResolver.setSuffix(".html");
         emailTemplateResolver.setTemplateMode(TemplateMode.HTML);
         emailTemplateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        emailTemplateResolver.setCacheable(true);
+        emailTemplateResolver.setCacheTTLMs(cacheTtlMs);
         return emailTemplateResolver;
     }
 }
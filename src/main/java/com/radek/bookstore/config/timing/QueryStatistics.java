@@ -0,0 +1,49 @@
+package com.radek.bookstore.config.timing;
+
+/**
+ * SQL statements, rows read and time spent executing statements on the current request thread. Statistics are
+ * only collected between {@link #start()} and {@link #stop()}; JDBC work outside a request is not recorded.
+ */
+public class QueryStatistics {
+
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long executionNanos;
+
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    void recordExecution(long nanos) {
+        statements++;
+        executionNanos += nanos;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+}
@@ -0,0 +1,124 @@
+package com.radek.bookstore.config.timing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Objects;
+
+/**
+ * Data source which records executed statements, rows read and execution time into the {@link QueryStatistics}
+ * of the current thread. Statements are only wrapped while statistics are being collected, so JDBC work of
+ * scheduled jobs and other background threads runs on the plain driver objects.
+ */
+public class QueryStatisticsDataSource extends DelegatingDataSource {
+
+    public QueryStatisticsDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryStatisticsDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    // proxies are equal only to themselves, so collections of statements and result sets keep working
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        } else if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exc) {
+            throw exc.getTargetException();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryStatisticsDataSource.invoke(proxy, connection, method, args);
+            if (result instanceof Statement && Objects.nonNull(QueryStatistics.current())) {
+                Class<?> statementType = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(QueryStatisticsDataSource.class.getClassLoader(),
+                        new Class<?>[]{statementType}, new StatementHandler((Statement) result));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private StatementHandler(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            QueryStatistics statistics = QueryStatistics.current();
+            if (Objects.isNull(statistics) || !method.getName().startsWith("execute")) {
+                return wrapResultSet(QueryStatisticsDataSource.invoke(proxy, statement, method, args), statistics);
+            }
+            long start = System.nanoTime();
+            try {
+                return wrapResultSet(QueryStatisticsDataSource.invoke(proxy, statement, method, args), statistics);
+            } finally {
+                statistics.recordExecution(System.nanoTime() - start);
+            }
+        }
+
+        private static Object wrapResultSet(Object result, QueryStatistics statistics) {
+            if (result instanceof ResultSet && Objects.nonNull(statistics)) {
+                return Proxy.newProxyInstance(QueryStatisticsDataSource.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class}, new ResultSetHandler((ResultSet) result, statistics));
+            }
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final QueryStatistics statistics;
+
+        private ResultSetHandler(ResultSet resultSet, QueryStatistics statistics) {
+            this.resultSet = resultSet;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryStatisticsDataSource.invoke(proxy, resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                statistics.recordRow();
+            }
+            return result;
+        }
+    }
+}
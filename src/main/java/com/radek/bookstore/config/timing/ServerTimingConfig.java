@@ -0,0 +1,25 @@
+package com.radek.bookstore.config.timing;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ServerTimingConfig {
+
+    // the pool stays reachable through DelegatingDataSource, so its metrics and health checks keep working
+    @Bean
+    public static BeanPostProcessor queryStatisticsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof QueryStatisticsDataSource)) {
+                    return new QueryStatisticsDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,237 @@
+package com.radek.bookstore.config.timing;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the SQL work of each request: a Server-Timing header with the statement count, rows read and time spent
+ * in the database next to the rest of the request, per endpoint summaries of the same numbers and a log line for
+ * requests slower than the threshold. The header is added as late as possible, right before the response is
+ * committed, so statements run while the body is being written are included as long as it fits the buffer.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final static Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+    private static final String SERVER_TIMING = "Server-Timing";
+    private static final String UNMATCHED_ENDPOINT = "UNKNOWN";
+
+    private final boolean enabled;
+    private final long slowRequestNanos;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, EndpointMeters>> endpointMeters = new ConcurrentHashMap<>();
+
+    public ServerTimingFilter(@Value("${bookstore.server-timing.enabled:true}") boolean enabled,
+                              @Value("${bookstore.server-timing.slow-request-ms:1000}") long slowRequestMs,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        QueryStatistics statistics = QueryStatistics.start();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, statistics, start);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            timedResponse.addServerTiming();
+            QueryStatistics.stop();
+            record(request, response, statistics, System.nanoTime() - start);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, QueryStatistics statistics, long durationNanos) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = Objects.isNull(pattern) ? UNMATCHED_ENDPOINT : pattern.toString();
+        endpointMeters.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(request.getMethod(), method -> new EndpointMeters(meterRegistry, method, endpoint))
+                .record(statistics);
+        if (durationNanos >= slowRequestNanos) {
+            log.warn("Slow request method={} endpoint={} uri={} status={} durationMs={} dbMs={} statements={} rows={}",
+                    request.getMethod(), endpoint, request.getRequestURI(), response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos), TimeUnit.NANOSECONDS.toMillis(statistics.getExecutionNanos()),
+                    statistics.getStatements(), statistics.getRows());
+        }
+    }
+
+    static String serverTiming(QueryStatistics statistics, long durationNanos) {
+        double dbMillis = statistics.getExecutionNanos() / 1_000_000.0;
+        double appMillis = Math.max(0, durationNanos - statistics.getExecutionNanos()) / 1_000_000.0;
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements, %d rows\", app;dur=%.1f",
+                dbMillis, statistics.getStatements(), statistics.getRows(), appMillis);
+    }
+
+    private static class EndpointMeters {
+
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final Timer databaseTime;
+
+        private EndpointMeters(MeterRegistry meterRegistry, String method, String endpoint) {
+            this.statements = DistributionSummary.builder("bookstore.request.sql.statements")
+                    .tag("method", method).tag("uri", endpoint).register(meterRegistry);
+            this.rows = DistributionSummary.builder("bookstore.request.sql.rows")
+                    .tag("method", method).tag("uri", endpoint).register(meterRegistry);
+            this.databaseTime = Timer.builder("bookstore.request.sql.time")
+                    .tag("method", method).tag("uri", endpoint).register(meterRegistry);
+        }
+
+        private void record(QueryStatistics statistics) {
+            statements.record(statistics.getStatements());
+            rows.record(statistics.getRows());
+            databaseTime.record(statistics.getExecutionNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Adds the Server-Timing header right before the response gets committed: when it is flushed, an error or
+     * redirect is sent, a writer is requested or the body written so far is about to overflow the buffer.
+     */
+    static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final QueryStatistics statistics;
+        private final long start;
+        private ServletOutputStream outputStream;
+        private boolean headerAdded;
+
+        ServerTimingResponse(HttpServletResponse response, QueryStatistics statistics, long start) {
+            super(response);
+            this.statistics = statistics;
+            this.start = start;
+        }
+
+        void addServerTiming() {
+            if (!headerAdded && !isCommitted()) {
+                addHeader(SERVER_TIMING, serverTiming(statistics, System.nanoTime() - start));
+            }
+            headerAdded = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (Objects.isNull(outputStream)) {
+                outputStream = new ServerTimingOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+
+    private static class ServerTimingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final ServerTimingResponse response;
+        private long written;
+
+        private ServerTimingOutputStream(ServletOutputStream delegate, ServerTimingResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            beforeWrite(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            beforeWrite(len);
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.addServerTiming();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.addServerTiming();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+        private void beforeWrite(int length) {
+            written += length;
+            if (written >= response.getBufferSize()) {
+                response.addServerTiming();
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.radek.bookstore.controller;
 
-import com.radek.bookstore.model.Comment;
 import com.radek.bookstore.model.dto.CommentDto;
 import com.radek.bookstore.model.response.CommentJson;
 import com.radek.bookstore.service.BookService;
@@ -14,7 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.Collection;
 import java.util.Objects;
 
 @CrossOrigin
@@ -61,7 +59,7 @@ public class CommentController {
             log.info(message);
             return ResponseHelper.createNotFoundResponse(message);
         }
-        Collection<Comment> comments = commentService.saveComment(commentDto, bookId, userId);
-        return ResponseHelper.createCreatedResponse(comments);
+        CommentJson comment = commentService.saveComment(commentDto, bookId, userId);
+        return ResponseHelper.createCreatedResponse(comment);
     }
 }
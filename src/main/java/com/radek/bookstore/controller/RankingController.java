@@ -0,0 +1,61 @@
+package com.radek.bookstore.controller;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.service.CategoryService;
+import com.radek.bookstore.service.RankingService;
+import com.radek.bookstore.service.TrendingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/books")
+public class RankingController {
+
+    private final static Logger log = LoggerFactory.getLogger(RankingController.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 24;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final RankingService rankingService;
+    private final TrendingService trendingService;
+    private final CategoryService categoryService;
+
+    public RankingController(RankingService rankingService, TrendingService trendingService, CategoryService categoryService) {
+        this.rankingService = rankingService;
+        this.trendingService = trendingService;
+        this.categoryService = categoryService;
+    }
+
+    @GetMapping(path = "/top-rated", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getTopRatedBooks(@RequestParam(name = "categoryId", required = false) String categoryId,
+                                              @RequestParam(name = "cursor", required = false) String cursor,
+                                              @RequestParam(name = "size", required = false) Integer size) {
+        if(Objects.nonNull(categoryId) && !categoryService.existByCategoryId(categoryId)) {
+            String message = String.format("Cannot find category with id: %s", categoryId);
+            log.info(message);
+            return ResponseHelper.createNotFoundResponse(message);
+        }
+        if(Objects.isNull(size) || size <= 0) {
+            size = DEFAULT_PAGE_SIZE;
+        }
+        CursorPage<Book> topRatedBooks = rankingService.findTopRated(categoryId, cursor, Math.min(size, MAX_PAGE_SIZE));
+        return ResponseHelper.createOkResponse(topRatedBooks);
+    }
+
+    @GetMapping(path = "/trending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getTrendingBooks(@RequestParam(name = "size", required = false) Integer size) {
+        if(Objects.isNull(size) || size <= 0) {
+            size = DEFAULT_PAGE_SIZE;
+        }
+        List<Book> trendingBooks = trendingService.getTrendingBooks(size);
+        return ResponseHelper.createOkResponse(trendingBooks);
+    }
+}
@@ -0,0 +1,66 @@
+package com.radek.bookstore.controller;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.service.BookService;
+import com.radek.bookstore.service.CoPurchaseService;
+import com.radek.bookstore.service.RecommendationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/books")
+public class RecommendationController {
+
+    private final static Logger log = LoggerFactory.getLogger(RecommendationController.class);
+
+    private static final int DEFAULT_RECOMMENDATIONS_SIZE = 10;
+
+    private final RecommendationService recommendationService;
+    private final CoPurchaseService coPurchaseService;
+    private final BookService bookService;
+
+    public RecommendationController(RecommendationService recommendationService,
+                                    CoPurchaseService coPurchaseService,
+                                    BookService bookService) {
+        this.recommendationService = recommendationService;
+        this.coPurchaseService = coPurchaseService;
+        this.bookService = bookService;
+    }
+
+    @GetMapping(path = "/{id}/similar", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getSimilarBooks(@PathVariable("id") String bookId,
+                                             @RequestParam(name = "size", required = false) Integer size) {
+        if(!bookService.existsByBookId(bookId)) {
+            String message = String.format("Cannot find book with id: %s", bookId);
+            log.info(message);
+            return ResponseHelper.createNotFoundResponse(message);
+        }
+        if(Objects.isNull(size) || size <= 0) {
+            size = DEFAULT_RECOMMENDATIONS_SIZE;
+        }
+        List<Book> similarBooks = recommendationService.findSimilarBooks(bookId, size);
+        return ResponseHelper.createOkResponse(similarBooks);
+    }
+
+    @GetMapping(path = "/{id}/bought-together", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getBooksBoughtTogether(@PathVariable("id") String bookId,
+                                                    @RequestParam(name = "size", required = false) Integer size) {
+        if(!bookService.existsByBookId(bookId)) {
+            String message = String.format("Cannot find book with id: %s", bookId);
+            log.info(message);
+            return ResponseHelper.createNotFoundResponse(message);
+        }
+        if(Objects.isNull(size) || size <= 0) {
+            size = DEFAULT_RECOMMENDATIONS_SIZE;
+        }
+        List<Book> booksBoughtTogether = coPurchaseService.findBoughtTogether(bookId, size);
+        return ResponseHelper.createOkResponse(booksBoughtTogether);
+    }
+}
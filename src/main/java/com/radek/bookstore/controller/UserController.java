@@ -3,14 +3,25 @@ package com.radek.bookstore.controller;
 import com.radek.bookstore.model.User;
 import com.radek.bookstore.model.UserPrincipal;
 import com.radek.bookstore.model.dto.LoginDto;
+import com.radek.bookstore.model.dto.RefreshTokenDto;
 import com.radek.bookstore.model.dto.ResetPasswordDto;
 import com.radek.bookstore.model.dto.UserDto;
 import com.radek.bookstore.model.exception.EmailExistsException;
+import com.radek.bookstore.model.exception.InvalidRefreshTokenException;
+import com.radek.bookstore.model.exception.TooManyLoginAttemptsException;
 import com.radek.bookstore.model.exception.UserNotFoundException;
 import com.radek.bookstore.model.exception.UsernameExistsException;
+import com.radek.bookstore.model.response.CursorPage;
 import com.radek.bookstore.model.response.HttpResponse;
+import com.radek.bookstore.model.response.IdentityAvailability;
+import com.radek.bookstore.model.response.TokenPair;
+import com.radek.bookstore.model.response.UserJson;
 import com.radek.bookstore.security.utility.JwtTokenProvider;
 import com.radek.bookstore.service.CurrentUserService;
+import com.radek.bookstore.service.LoginAttemptService;
+import com.radek.bookstore.service.RefreshTokenService;
+import com.radek.bookstore.service.UserAvailabilityService;
+import com.radek.bookstore.service.UserSearchService;
 import com.radek.bookstore.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
@@ -20,15 +31,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.web.bind.annotation.*;
 
-import javax.mail.MessagingException;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import java.util.Objects;
 
 import static com.radek.bookstore.controller.ResponseHelper.*;
-import static com.radek.bookstore.utils.constants.SecurityConstants.JWT_TOKEN_HEADER;
+import static com.radek.bookstore.utils.constants.SecurityConstants.*;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static java.util.Objects.isNull;
 import static org.springframework.http.HttpStatus.OK;
 
@@ -38,18 +51,33 @@ import static org.springframework.http.HttpStatus.OK;
 public class UserController {
 
     public static final String EMAIL_WITH_NEW_PASSWORD_SENT = "An email with a new password sent to: ";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many failed sign in attempts from your address. Please try again later.";
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 24;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
 
     private final UserService userService;
+    private final UserSearchService userSearchService;
+    private final UserAvailabilityService userAvailabilityService;
     private final CurrentUserService currentUserService;
+    private final LoginAttemptService loginAttemptService;
+    private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
 
     public UserController(UserService userService,
+                          UserSearchService userSearchService,
+                          UserAvailabilityService userAvailabilityService,
                           CurrentUserService currentUserService,
+                          LoginAttemptService loginAttemptService,
+                          RefreshTokenService refreshTokenService,
                           AuthenticationManager authenticationManager,
                           JwtTokenProvider jwtTokenProvider) {
         this.userService = userService;
+        this.userSearchService = userSearchService;
+        this.userAvailabilityService = userAvailabilityService;
         this.currentUserService = currentUserService;
+        this.loginAttemptService = loginAttemptService;
+        this.refreshTokenService = refreshTokenService;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
     }
@@ -61,22 +89,62 @@ public class UserController {
         return createCreatedResponse(registeredUser);
     }
 
+    @GetMapping(path = "/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> checkAvailability(@RequestParam(name = "username", required = false) String username,
+                                               @RequestParam(name = "email", required = false) String email) {
+        IdentityAvailability availability = userAvailabilityService.checkAvailability(username, email);
+        return createOkResponse(availability);
+    }
+
     @PostMapping("/signin")
-    public ResponseEntity<User> loginUser(@Valid @RequestBody LoginDto login) throws UserNotFoundException {
-        authenticateUser(login);
+    public ResponseEntity<User> loginUser(@Valid @RequestBody LoginDto login, HttpServletRequest request) throws UserNotFoundException {
+        if (loginAttemptService.exceededMaxClientAttempts(request.getRemoteAddr())) {
+            throw new TooManyLoginAttemptsException(TOO_MANY_LOGIN_ATTEMPTS);
+        }
+        authenticateUser(login, request);
         User loginUser = userService.findUserByUsernameOrEmail(login.getUsername());
         UserPrincipal userPrincipal = new UserPrincipal(loginUser);
         HttpHeaders jwtHeader = createJwtHeader(userPrincipal);
+        jwtHeader.add(REFRESH_TOKEN_HEADER, refreshTokenService.createRefreshToken(loginUser));
         return new ResponseEntity<>(loginUser, jwtHeader, OK);
     }
 
+    @PostMapping("/token/refresh")
+    public ResponseEntity<HttpResponse> refreshToken(@Valid @RequestBody RefreshTokenDto refreshTokenDto) throws InvalidRefreshTokenException {
+        TokenPair tokens = refreshTokenService.refresh(refreshTokenDto.getRefreshToken());
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(JWT_TOKEN_HEADER, tokens.getAccessToken());
+        headers.add(REFRESH_TOKEN_HEADER, tokens.getRefreshToken());
+        HttpResponse httpResponse = new HttpResponse(OK.value(), OK, OK.getReasonPhrase().toUpperCase(), "Access token refreshed");
+        return new ResponseEntity<>(httpResponse, headers, OK);
+    }
+
+    @PostMapping("/signout")
+    public ResponseEntity<HttpResponse> signOut(@RequestHeader(AUTHORIZATION) String authorizationHeader,
+                                                @RequestBody(required = false) RefreshTokenDto refreshTokenDto) {
+        String accessToken = authorizationHeader.startsWith(TOKEN_PREFIX) ? authorizationHeader.substring(TOKEN_PREFIX.length()) : authorizationHeader;
+        refreshTokenService.signOut(accessToken, isNull(refreshTokenDto) ? null : refreshTokenDto.getRefreshToken());
+        return response(OK, "Signed out successfully");
+    }
+
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('user:read')")
     public ResponseEntity<?> findUsers(@RequestParam(value = "page", required = false) Integer page,
                                        @RequestParam(value = "size", required = false) Integer size) {
         page = isNull(page) ? 0 : page;
         size = isNull(size) ? 25 : size;
-        Page<User> users = userService.findAllUsers(page, size);
+        Page<UserJson> users = userService.findAllUsers(page, size);
+        return createOkResponse(users);
+    }
+
+    // users left without a login or email key by the backfill, whose credentials have to be changed by an admin
+    @GetMapping(path = "/identity-conflicts", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('user:read')")
+    public ResponseEntity<?> findUsersWithoutIdentityKeys(@RequestParam(value = "page", required = false) Integer page,
+                                                          @RequestParam(value = "size", required = false) Integer size) {
+        page = isNull(page) ? 0 : page;
+        size = isNull(size) ? 25 : size;
+        Page<UserJson> users = userService.findUsersWithoutIdentityKeys(page, size);
         return createOkResponse(users);
     }
 
@@ -116,20 +184,22 @@ public class UserController {
 
     @GetMapping(path = "/username/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('user:read')")
-    public ResponseEntity<?> findUser(@PathVariable("username") String username) throws UserNotFoundException {
-        User user = userService.findUserByUsernameOrEmail(username);
+    public ResponseEntity<?> findUser(@PathVariable("username") String username,
+                                      @RequestParam(name = "includeAddress", required = false, defaultValue = "false") boolean includeAddress) throws UserNotFoundException {
+        UserJson user = userService.findUserJsonByUsernameOrEmail(username, includeAddress);
         return createOkResponse(user);
     }
 
     @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('user:read')")
-    public ResponseEntity<?> findUserById(@PathVariable("id") String id) throws UserNotFoundException {
-        User user = userService.findUserById(id);
+    public ResponseEntity<?> findUserById(@PathVariable("id") String id,
+                                          @RequestParam(name = "includeAddress", required = false, defaultValue = "false") boolean includeAddress) throws UserNotFoundException {
+        UserJson user = userService.findUserJsonById(id, includeAddress);
         return createOkResponse(user);
     }
 
     @PostMapping(path = "/resetPassword", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> resetPassword(@RequestBody @Valid ResetPasswordDto resetPasswordDto) throws UserNotFoundException, MessagingException {
+    public ResponseEntity<?> resetPassword(@RequestBody @Valid ResetPasswordDto resetPasswordDto) throws UserNotFoundException {
         userService.resetPassword(resetPasswordDto.getEmail(), resetPasswordDto.getPassword());
         return response(OK,EMAIL_WITH_NEW_PASSWORD_SENT+resetPasswordDto.getEmail());
     }
@@ -148,21 +218,21 @@ public class UserController {
     }
 
     @GetMapping(path = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('user:read')")
     public ResponseEntity<?> searchUserByKeyword(@RequestParam(value = "keyword", required = false) String keyword,
-                                                 @RequestParam(name = "page", required = false) Integer page,
+                                                 @RequestParam(name = "cursor", required = false) String cursor,
                                                  @RequestParam(name = "size", required = false) Integer size) {
-        if(Objects.isNull(page)) {
-            page=0;
+        if(Objects.isNull(size) || size <= 0) {
+            size = DEFAULT_SEARCH_PAGE_SIZE;
         }
-        if(Objects.isNull(size)) {
-            size=24;
-        }
-        Page<User> userByKeyword = userService.findUserByKeyword(keyword, page, size);
-        return createOkResponse(userByKeyword);
+        CursorPage<UserJson> users = userSearchService.searchUsers(keyword, cursor, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        return createOkResponse(users);
     }
 
-    private void authenticateUser(LoginDto login) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(login.getUsername(), login.getPassword()));
+    private void authenticateUser(LoginDto login, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(login.getUsername(), login.getPassword());
+        authentication.setDetails(new WebAuthenticationDetails(request));
+        authenticationManager.authenticate(authentication);
     }
 
     private HttpHeaders createJwtHeader(UserPrincipal userPrincipal) {
@@ -86,6 +86,26 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return createHttpResponse(BAD_REQUEST, exc.getMessage());
     }
 
+    @ExceptionHandler(value = InvalidCursorException.class)
+    public ResponseEntity<HttpResponse> invalidCursor(InvalidCursorException exc){
+        return createHttpResponse(BAD_REQUEST, exc.getMessage());
+    }
+
+    @ExceptionHandler(value = InvalidRefreshTokenException.class)
+    public ResponseEntity<HttpResponse> invalidRefreshToken(InvalidRefreshTokenException exc){
+        return createHttpResponse(UNAUTHORIZED, exc.getMessage());
+    }
+
+    @ExceptionHandler(value = PasswordHashingUnavailableException.class)
+    public ResponseEntity<HttpResponse> passwordHashingUnavailable(PasswordHashingUnavailableException exc){
+        return createHttpResponse(SERVICE_UNAVAILABLE, exc.getMessage());
+    }
+
+    @ExceptionHandler(value = TooManyLoginAttemptsException.class)
+    public ResponseEntity<HttpResponse> tooManyLoginAttempts(TooManyLoginAttemptsException exc){
+        return createHttpResponse(TOO_MANY_REQUESTS, exc.getMessage());
+    }
+
     @Override
     protected ResponseEntity<Object> handleHttpRequestMethodNotSupported(HttpRequestMethodNotSupportedException exc, HttpHeaders headers, HttpStatus status, WebRequest request) {
         headers.setContentType(MediaType.APPLICATION_JSON);
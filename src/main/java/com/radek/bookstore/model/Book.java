@@ -21,6 +21,7 @@ import java.util.Set;
 @Getter
 @Setter
 @NoArgsConstructor
+@Table(indexes = @Index(name = "idx_book_rating_score", columnList = "rating_score, id"))
 public class Book {
 
     @Id
@@ -50,6 +51,20 @@ public class Book {
     private Boolean active;
     private Integer unitsInStock;
 
+    // maintained only by BookRepository bulk updates, so merging an edited book does not reset it
+    @Column(name = "comments_count", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private Integer commentsCount = 0;
+
+    // rating aggregates are maintained the same way, from rating deltas applied by RankingService
+    @Column(name = "ratings_count", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private Integer ratingsCount = 0;
+
+    @Column(name = "ratings_sum", nullable = false, updatable = false, columnDefinition = "integer default 0")
+    private Integer ratingsSum = 0;
+
+    @Column(name = "rating_score", nullable = false, updatable = false, columnDefinition = "double precision default 0")
+    private Double ratingScore = 0.0;
+
     @CreationTimestamp
     private LocalDateTime createdDate;
 
@@ -0,0 +1,33 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "book_activity", indexes = @Index(name = "idx_book_activity_trending_score", columnList = "trending_score"))
+public class BookActivity {
+
+    @Id
+    @Column(name = "book_id")
+    private String bookId;
+
+    private Long viewsCount = 0L;
+    private Long purchasesCount = 0L;
+
+    // natural logarithm of the decayed activity, see DecayedScore
+    @Column(name = "trending_score", nullable = false)
+    private Double trendingScore;
+
+    private LocalDateTime lastActivityDate;
+
+    public BookActivity(String bookId) {
+        this.bookId = bookId;
+    }
+}
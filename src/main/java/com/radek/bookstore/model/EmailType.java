@@ -0,0 +1,7 @@
+package com.radek.bookstore.model;
+
+public enum EmailType {
+    ACTIVATION,
+    NEW_USER,
+    RESET_PASSWORD
+}
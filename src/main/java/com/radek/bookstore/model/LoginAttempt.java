@@ -0,0 +1,33 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "login_attempt", indexes = @Index(name = "idx_login_attempt_key_date", columnList = "attempt_key, attempted_at"))
+public class LoginAttempt {
+
+    @Id
+    @GenericGenerator(name = "login_attempt_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
+    @GeneratedValue(generator = "login_attempt_id")
+    private String id;
+
+    @Column(name = "attempt_key", nullable = false)
+    private String attemptKey;
+
+    @Column(name = "attempted_at", nullable = false)
+    private LocalDateTime attemptedAt;
+
+    public LoginAttempt(String attemptKey, LocalDateTime attemptedAt) {
+        this.attemptKey = attemptKey;
+        this.attemptedAt = attemptedAt;
+    }
+}
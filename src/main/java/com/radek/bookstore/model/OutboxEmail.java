@@ -0,0 +1,78 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Mail waiting to be sent, saved in the transaction that caused it. A mail carrying a secret, the temporary
+ * password of a new user, is stored already rendered in body and nothing else; the row is deleted once the
+ * mail is sent and the body cleared once sending is given up.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at")
+})
+public class OutboxEmail {
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        FAILED
+    }
+
+    @Id
+    @GenericGenerator(name = "email_outbox_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
+    @GeneratedValue(generator = "email_outbox_id")
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String firstName;
+
+    private String activationLink;
+
+    // rendered html of a mail carrying a secret, null for mails rendered when they are sent
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // a claim that has run out belongs to a worker that died while sending
+    private LocalDateTime claimedUntil;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdDate;
+
+    public OutboxEmail(EmailType type, String recipient, String firstName, String activationLink, String body) {
+        this.type = type;
+        this.recipient = recipient;
+        this.firstName = firstName;
+        this.activationLink = activationLink;
+        this.body = body;
+        this.status = Status.PENDING;
+        this.createdDate = LocalDateTime.now();
+        this.nextAttemptAt = createdDate;
+    }
+}
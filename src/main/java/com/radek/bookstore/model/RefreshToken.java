@@ -0,0 +1,46 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_user", columnList = "user_id")
+})
+public class RefreshToken {
+
+    @Id
+    @GenericGenerator(name = "refresh_token_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
+    @GeneratedValue(generator = "refresh_token_id")
+    private String id;
+
+    // SHA-256 of the token, the token itself is only ever known to the client
+    @Column(name = "token_hash", nullable = false)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    private boolean revoked;
+
+    private LocalDateTime createdDate;
+
+    public RefreshToken(String tokenHash, String userId, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.createdDate = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,44 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Either a single access token (by its id) or every access token of a subject issued up to revokedAt.
+ * Kept until the last access token it can match has expired.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "revoked_token", indexes = @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @GenericGenerator(name = "revoked_token_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
+    @GeneratedValue(generator = "revoked_token_id")
+    private String id;
+
+    @Column(name = "token_id")
+    private String tokenId;
+
+    private String subject;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken(String tokenId, String subject, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
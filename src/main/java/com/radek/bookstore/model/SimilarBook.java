@@ -0,0 +1,39 @@
+package com.radek.bookstore.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "similar_book", indexes = @Index(name = "idx_similar_book_book_rank", columnList = "book_id, similarity_rank"))
+public class SimilarBook {
+
+    @Id
+    @GenericGenerator(name = "similar_book_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
+    @GeneratedValue(generator = "similar_book_id")
+    private String id;
+
+    @Column(name = "book_id", nullable = false)
+    private String bookId;
+
+    @Column(name = "similar_book_id", nullable = false)
+    private String similarBookId;
+
+    @Column(name = "similarity_rank", nullable = false)
+    private Integer similarityRank;
+
+    private Double score;
+
+    public SimilarBook(String bookId, String similarBookId, Integer similarityRank, Double score) {
+        this.bookId = bookId;
+        this.similarBookId = similarBookId;
+        this.similarityRank = similarityRank;
+        this.score = score;
+    }
+}
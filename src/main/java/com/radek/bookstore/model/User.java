@@ -1,5 +1,6 @@
 package com.radek.bookstore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.radek.bookstore.model.dto.UserDto;
 import com.radek.bookstore.utils.CustomRegexPatterns;
 import lombok.Getter;
@@ -18,6 +19,7 @@ import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 
@@ -27,9 +29,16 @@ import static com.radek.bookstore.utils.CustomRegexPatterns.EMAIL_REGEX;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name="app_users", uniqueConstraints = {@UniqueConstraint(columnNames = "email")})
+// the constraint on the raw email stays until every row has an email key, see UserService.findUsersWithoutIdentityKeys
+@Table(name="app_users", uniqueConstraints = {
+        @UniqueConstraint(columnNames = "email"),
+        @UniqueConstraint(name = User.LOGIN_KEY_CONSTRAINT, columnNames = "login_key"),
+        @UniqueConstraint(name = User.EMAIL_KEY_CONSTRAINT, columnNames = "email_key")})
 public class User implements Serializable {
 
+    public static final String LOGIN_KEY_CONSTRAINT = "uk_app_users_login_key";
+    public static final String EMAIL_KEY_CONSTRAINT = "uk_app_users_email_key";
+
     @Id
     @GenericGenerator(name = "user_id", strategy = "com.radek.bookstore.model.generator.CustomStringGenerator")
     @GeneratedValue(generator = "user_id")
@@ -53,6 +62,15 @@ public class User implements Serializable {
     @Pattern(regexp = EMAIL_REGEX, message = "Given email is not valid")
     private String email;
 
+    // normalized login (username, or email when there is none) and email, kept unique by the constraints above
+    @JsonIgnore
+    @Column(name = "login_key")
+    private String loginKey;
+
+    @JsonIgnore
+    @Column(name = "email_key")
+    private String emailKey;
+
     @NotBlank
     private String password;
 
@@ -64,6 +82,8 @@ public class User implements Serializable {
     @UpdateTimestamp
     private LocalDateTime lastUpdateDate;
 
+    // written only by LastLoginRecorder, so saving a user loaded before a login does not reset it
+    @Column(name = "last_login_date", updatable = false)
     private LocalDateTime lastLoginDate;
 
     @NotBlank
@@ -94,6 +114,22 @@ public class User implements Serializable {
         this.password=userDto.getPassword();
     }
 
+    public static String identityKey(String credential) {
+        return Objects.isNull(credential) ? null : credential.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String loginKey(String username, String email) {
+        boolean hasUsername = Objects.nonNull(username) && !username.trim().isEmpty();
+        return identityKey(hasUsername ? username : email);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateIdentityKeys() {
+        this.loginKey = loginKey(username, email);
+        this.emailKey = identityKey(email);
+    }
+
     public void addComment(Comment comment) {
         if(Objects.isNull(comments)) {
             comments=new HashSet<>();
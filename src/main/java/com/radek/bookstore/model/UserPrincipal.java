@@ -17,6 +17,10 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    public String getId() {
+        return this.user.getId();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return stream(this.user.getAuthorities()).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
@@ -0,0 +1,12 @@
+package com.radek.bookstore.model.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+public class RefreshTokenDto {
+
+    @NotBlank
+    private String refreshToken;
+}
@@ -0,0 +1,12 @@
+package com.radek.bookstore.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    private final String bookId;
+    private final boolean deleted;
+}
@@ -0,0 +1,14 @@
+package com.radek.bookstore.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+
+    private final String orderTrackingNumber;
+    private final Map<String, Integer> quantitiesByBookId;
+}
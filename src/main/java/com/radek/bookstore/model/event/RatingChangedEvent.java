@@ -0,0 +1,15 @@
+package com.radek.bookstore.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// previousVote is null for a new rating, vote is null for a removed one
+@Getter
+@AllArgsConstructor
+public class RatingChangedEvent {
+
+    private final String bookId;
+    private final String userId;
+    private final Integer previousVote;
+    private final Integer vote;
+}
@@ -0,0 +1,11 @@
+package com.radek.bookstore.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final String id;
+}
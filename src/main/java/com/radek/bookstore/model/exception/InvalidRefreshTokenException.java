@@ -0,0 +1,8 @@
+package com.radek.bookstore.model.exception;
+
+public class InvalidRefreshTokenException extends Exception {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
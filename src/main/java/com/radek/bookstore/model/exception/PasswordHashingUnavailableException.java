@@ -0,0 +1,8 @@
+package com.radek.bookstore.model.exception;
+
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
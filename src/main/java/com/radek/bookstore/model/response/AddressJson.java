@@ -0,0 +1,16 @@
+package com.radek.bookstore.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddressJson {
+    private String id;
+    private String city;
+    private String street;
+    private String locationNumber;
+    private String zipCode;
+}
@@ -26,6 +26,7 @@ public class BookJson {
     private BigDecimal promoPrice;
     private boolean active;
     private Integer unitsInStock;
+    private Integer commentsCount;
     private LocalDateTime createdDate;
     private LocalDateTime lastUpdateDate;
     private Set<Category> categories;
@@ -0,0 +1,13 @@
+package com.radek.bookstore.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdentityAvailability {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+}
@@ -0,0 +1,59 @@
+package com.radek.bookstore.model.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * User as shown in the admin console, selected column by column in JPQL so that neither the password hash
+ * nor the lazy associations of the entity are loaded or serialized.
+ */
+@Data
+@NoArgsConstructor
+public class UserJson {
+    private String id;
+    private String userId;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String profileImageUrl;
+    private String role;
+    private boolean active;
+    private boolean notLocked;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastUpdateDate;
+    private LocalDateTime lastLoginDate;
+    private AddressJson address;
+
+    public UserJson(String id, String userId, String firstName, String lastName, String username, String email,
+                    String profileImageUrl, String role, boolean active, boolean notLocked, LocalDateTime createdDate,
+                    LocalDateTime lastUpdateDate, LocalDateTime lastLoginDate) {
+        this.id = id;
+        this.userId = userId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.username = username;
+        this.email = email;
+        this.profileImageUrl = profileImageUrl;
+        this.role = role;
+        this.active = active;
+        this.notLocked = notLocked;
+        this.createdDate = createdDate;
+        this.lastUpdateDate = lastUpdateDate;
+        this.lastLoginDate = lastLoginDate;
+    }
+
+    public UserJson(String id, String userId, String firstName, String lastName, String username, String email,
+                    String profileImageUrl, String role, boolean active, boolean notLocked, LocalDateTime createdDate,
+                    LocalDateTime lastUpdateDate, LocalDateTime lastLoginDate, String addressId, String city,
+                    String street, String locationNumber, String zipCode) {
+        this(id, userId, firstName, lastName, username, email, profileImageUrl, role, active, notLocked, createdDate,
+                lastUpdateDate, lastLoginDate);
+        if (Objects.nonNull(addressId)) {
+            this.address = new AddressJson(addressId, city, street, locationNumber, zipCode);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.radek.bookstore.repository;
+
+import com.radek.bookstore.model.BookActivity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import javax.transaction.Transactional;
+import java.util.List;
+
+public interface BookActivityRepository extends JpaRepository<BookActivity, String> {
+
+    @Transactional
+    List<BookActivity> findAllByOrderByTrendingScoreDesc(Pageable pageable);
+}
@@ -1,14 +1,19 @@
 package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.Book;
+import com.radek.bookstore.service.ranking.RatingTotals;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookRepository extends JpaRepository<Book, String> {
     List<Book> findByTitle(String title);
@@ -27,4 +32,66 @@ public interface BookRepository extends JpaRepository<Book, String> {
 
     @Query(value = "SELECT b FROM Book b WHERE b.active=TRUE")
     Page<Book> findActiveBooks(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Book b SET b.commentsCount = b.commentsCount + 1 WHERE b.id = :bookId")
+    void incrementCommentsCount(@Param("bookId") String bookId);
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE book SET comments_count = (SELECT COUNT(*) FROM comment c WHERE c.book_id = book.id)")
+    int recalculateCommentsCounts();
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE book SET comments_count = (SELECT COUNT(*) FROM comment c WHERE c.book_id = book.id) " +
+                                       "WHERE book.id IN (:bookIds)")
+    int recalculateCommentsCounts(@Param("bookIds") Collection<String> bookIds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Book b SET b.ratingsCount = b.ratingsCount + :countDelta, b.ratingsSum = b.ratingsSum + :sumDelta " +
+                   "WHERE b.id = :bookId")
+    void applyRatingDelta(@Param("bookId") String bookId, @Param("countDelta") int countDelta, @Param("sumDelta") int sumDelta);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Book b SET b.ratingScore = :ratingScore WHERE b.id = :bookId")
+    void updateRatingScore(@Param("bookId") String bookId, @Param("ratingScore") double ratingScore);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.service.ranking.RatingTotals(b.id, b.ratingsCount, b.ratingsSum, b.ratingScore) " +
+                   "FROM Book b WHERE b.id = :bookId")
+    Optional<RatingTotals> findRatingTotals(@Param("bookId") String bookId);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.service.ranking.RatingTotals(b.id, b.ratingsCount, b.ratingsSum, b.ratingScore) " +
+                   "FROM Book b")
+    List<RatingTotals> findAllRatingTotals();
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE book SET ratings_count = (SELECT COUNT(*) FROM rating r WHERE r.book_id = book.id), " +
+                                       "ratings_sum = (SELECT COALESCE(SUM(r.vote), 0) FROM rating r WHERE r.book_id = book.id)")
+    int recalculateRatingTotals();
+
+    @Query(value = "SELECT b FROM Book b WHERE b.active=TRUE AND b.ratingsCount > 0 " +
+                   "ORDER BY b.ratingScore DESC, b.id DESC")
+    List<Book> findTopRated(Pageable pageable);
+
+    @Query(value = "SELECT b FROM Book b WHERE b.active=TRUE AND b.ratingsCount > 0 " +
+                   "AND (b.ratingScore < :ratingScore OR (b.ratingScore = :ratingScore AND b.id < :bookId)) " +
+                   "ORDER BY b.ratingScore DESC, b.id DESC")
+    List<Book> findTopRatedAfter(@Param("ratingScore") double ratingScore, @Param("bookId") String bookId, Pageable pageable);
+
+    @Query(value = "SELECT b FROM Book b JOIN b.categories c WHERE c.id = :categoryId AND b.active=TRUE AND b.ratingsCount > 0 " +
+                   "ORDER BY b.ratingScore DESC, b.id DESC")
+    List<Book> findTopRatedInCategory(@Param("categoryId") String categoryId, Pageable pageable);
+
+    @Query(value = "SELECT b FROM Book b JOIN b.categories c WHERE c.id = :categoryId AND b.active=TRUE AND b.ratingsCount > 0 " +
+                   "AND (b.ratingScore < :ratingScore OR (b.ratingScore = :ratingScore AND b.id < :bookId)) " +
+                   "ORDER BY b.ratingScore DESC, b.id DESC")
+    List<Book> findTopRatedInCategoryAfter(@Param("categoryId") String categoryId, @Param("ratingScore") double ratingScore,
+                                           @Param("bookId") String bookId, Pageable pageable);
 }
@@ -2,6 +2,9 @@ package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.Comment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import javax.transaction.Transactional;
 import java.util.List;
@@ -10,4 +13,12 @@ public interface CommentRepository extends JpaRepository<Comment, String> {
 
     @Transactional
     List<Comment> findByBookId(String bookId);
+
+    @Query(value = "SELECT DISTINCT c.book.id FROM Comment c WHERE c.user.id = :userId")
+    List<String> findCommentedBookIdsByUserId(@Param("userId") String userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM Comment c WHERE c.user.id = :userId")
+    int deleteByUserId(@Param("userId") String userId);
 }
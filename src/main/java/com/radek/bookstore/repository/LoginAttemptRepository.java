@@ -0,0 +1,26 @@
+package com.radek.bookstore.repository;
+
+import com.radek.bookstore.model.LoginAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, String> {
+
+    @Transactional
+    int countByAttemptKeyAndAttemptedAtAfter(String attemptKey, LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LoginAttempt a WHERE a.attemptKey = :attemptKey")
+    void deleteByAttemptKey(@Param("attemptKey") String attemptKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LoginAttempt a WHERE a.attemptedAt < :before")
+    int deleteByAttemptedAtBefore(@Param("before") LocalDateTime before);
+}
@@ -1,14 +1,20 @@
 package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.OrderItem;
+import com.radek.bookstore.service.recommendation.PurchasedBook;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, String> {
 
     @Query(nativeQuery = true, value = "SELECT * FROM order_item WHERE order_id=:orderId")
     List<OrderItem> findByOrderId(@Param("orderId") String orderId);
+
+    @Query("SELECT new com.radek.bookstore.service.recommendation.PurchasedBook(i.order.id, i.bookId) " +
+            "FROM OrderItem i WHERE i.order.id IN :orderIds")
+    List<PurchasedBook> findPurchasedBooks(@Param("orderIds") Collection<String> orderIds);
 }
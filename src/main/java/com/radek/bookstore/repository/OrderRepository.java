@@ -1,11 +1,19 @@
 package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, String> {
     List<Order> findByCustomer_Email(@Param("email") String email);
+
+    @Query("SELECT o.id FROM Order o WHERE o.creationDate < :placedBefore AND o.id > :lastOrderId ORDER BY o.id")
+    List<String> findOrderIdsPlacedBefore(@Param("placedBefore") LocalDateTime placedBefore,
+                                          @Param("lastOrderId") String lastOrderId,
+                                          Pageable pageable);
 }
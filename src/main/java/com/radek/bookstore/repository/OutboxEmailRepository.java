@@ -0,0 +1,30 @@
+package com.radek.bookstore.repository;
+
+import com.radek.bookstore.model.OutboxEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, String> {
+
+    @Transactional
+    @Query("SELECT m.id FROM OutboxEmail m WHERE (m.status = 'PENDING' AND m.nextAttemptAt <= :now) " +
+           "OR (m.status = 'SENDING' AND m.claimedUntil < :now) ORDER BY m.nextAttemptAt")
+    List<String> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // only one worker, of this or another instance, gets a due mail
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail m SET m.status = 'SENDING', m.claimedUntil = :claimedUntil WHERE m.id = :id " +
+           "AND ((m.status = 'PENDING' AND m.nextAttemptAt <= :now) OR (m.status = 'SENDING' AND m.claimedUntil < :now))")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Transactional
+    long countByStatus(OutboxEmail.Status status);
+}
@@ -1,6 +1,7 @@
 package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.Rating;
+import com.radek.bookstore.service.recommendation.RatingVote;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,6 +16,9 @@ public interface RatingRepository extends JpaRepository<Rating, String> {
     @Transactional
     List<Rating> findByBookId(String bookId);
 
+    @Transactional
+    List<Rating> findByUserId(String userId);
+
     @Transactional
     @Query(nativeQuery = true, value = "SELECT * FROM rating r WHERE r.book_id=:bookId AND r.user_id=:userId")
     Optional<Rating> findByBookIdAndUserId(@Param("bookId") String bookId, @Param("userId") String userId);
@@ -23,4 +27,9 @@ public interface RatingRepository extends JpaRepository<Rating, String> {
     @Transactional
     @Query(nativeQuery = true, value = "DELETE FROM rating r WHERE r.book_id=:bookId")
     void deleteByBookId(@Param("bookId") String bookId);
+
+    @Transactional
+    @Query("SELECT new com.radek.bookstore.service.recommendation.RatingVote(r.user.id, r.book.id, r.vote) " +
+            "FROM Rating r WHERE r.vote > 0")
+    List<RatingVote> findAllVotes();
 }
@@ -0,0 +1,26 @@
+package com.radek.bookstore.repository;
+
+import com.radek.bookstore.model.SimilarBook;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+public interface SimilarBookRepository extends JpaRepository<SimilarBook, String> {
+
+    @Transactional
+    List<SimilarBook> findByBookIdOrderBySimilarityRankAsc(String bookId);
+
+    @Transactional
+    @Query("SELECT DISTINCT s.bookId FROM SimilarBook s WHERE s.similarBookId IN :similarBookIds")
+    List<String> findBookIdsBySimilarBookIdIn(@Param("similarBookIds") Collection<String> similarBookIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SimilarBook s WHERE s.bookId IN :bookIds")
+    void deleteByBookIdIn(@Param("bookIds") Collection<String> bookIds);
+}
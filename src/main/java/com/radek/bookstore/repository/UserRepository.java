@@ -1,22 +1,81 @@
 package com.radek.bookstore.repository;
 
 import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.response.UserJson;
+import com.radek.bookstore.service.search.UserSearchDocument;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
 
-    @Query(value = "SELECT u FROM User u WHERE u.username=:username OR u.email=:username")
-    Optional<User> findByUsernameOrEmail(@Param("username") String username);
+    @Query(value = "SELECT u FROM User u WHERE u.loginKey=:key OR u.emailKey=:key")
+    Optional<User> findByIdentityKey(@Param("key") String key);
 
-    @Query(value = "SELECT u FROM User u WHERE u.username=:username OR u.email=:username")
-    User findUserByCredentials(@Param("username") String username);
+    @Query(value = "SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE u.loginKey=:key OR u.emailKey=:key")
+    boolean existsByIdentityKey(@Param("key") String key);
+
+    @Query(value = "SELECT u.id FROM User u WHERE u.loginKey=:key OR u.emailKey=:key")
+    Optional<String> findIdByIdentityKey(@Param("key") String key);
+
+    // users the backfill left without a key still sign in with their exact username or email
+    @Query(value = "SELECT u.id FROM User u WHERE (u.loginKey IS NULL OR u.emailKey IS NULL) " +
+                   "AND (u.username=:credentials OR u.email=:credentials)")
+    List<String> findIdsWithoutIdentityKeyByCredentials(@Param("credentials") String credentials);
+
+    default Optional<String> findIdWithoutIdentityKeyByCredentials(String credentials) {
+        List<String> ids = findIdsWithoutIdentityKeyByCredentials(credentials);
+        return ids.size() == 1 ? Optional.of(ids.get(0)) : Optional.empty();
+    }
+
+    default Optional<String> findIdByCredentials(String credentials) {
+        return findIdByIdentityKey(User.identityKey(credentials))
+                .or(() -> findIdWithoutIdentityKeyByCredentials(credentials));
+    }
+
+    default Optional<User> findByUsernameOrEmail(String username) {
+        return findByIdentityKey(User.identityKey(username))
+                .or(() -> findIdWithoutIdentityKeyByCredentials(username).flatMap(this::findById));
+    }
+
+    default User findUserByCredentials(String username) {
+        return findByUsernameOrEmail(username).orElse(null);
+    }
+
+    // every user whose login or email clashes with either of the given keys, in one round-trip
+    @Query(value = "SELECT u FROM User u WHERE u.loginKey IN (:loginKey, :emailKey) OR u.emailKey IN (:loginKey, :emailKey)")
+    List<User> findIdentityConflicts(@Param("loginKey") String loginKey, @Param("emailKey") String emailKey);
+
+    // rows sharing a key differing only by case are left without it and reported
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE app_users SET login_key = LOWER(TRIM(COALESCE(NULLIF(TRIM(username), ''), email))) " +
+            "WHERE login_key IS NULL AND NOT EXISTS (SELECT 1 FROM app_users o WHERE o.id <> app_users.id " +
+            "AND LOWER(TRIM(COALESCE(NULLIF(TRIM(o.username), ''), o.email))) = LOWER(TRIM(COALESCE(NULLIF(TRIM(app_users.username), ''), app_users.email))))")
+    int backfillLoginKeys();
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE app_users SET email_key = LOWER(TRIM(email)) " +
+            "WHERE email_key IS NULL AND NOT EXISTS (SELECT 1 FROM app_users o WHERE o.id <> app_users.id " +
+            "AND LOWER(TRIM(o.email)) = LOWER(TRIM(app_users.email)))")
+    int backfillEmailKeys();
+
+    long countByLoginKeyIsNullOrEmailKeyIsNull();
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate) FROM User u WHERE u.loginKey IS NULL OR u.emailKey IS NULL",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.loginKey IS NULL OR u.emailKey IS NULL")
+    Page<UserJson> findUserJsonsWithoutIdentityKeys(Pageable pageable);
 
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
@@ -27,9 +86,66 @@ public interface UserRepository extends JpaRepository<User, String> {
     User findUserById(String id);
 
     @Transactional
-    @Query(nativeQuery = true, value = "SELECT * FROM app_users u " +
-            "WHERE u.first_name LIKE CONCAT ('%',:keyword,'%') OR u.last_name LIKE CONCAT ('%',:keyword,'%') " +
-            "OR u.email LIKE CONCAT ('%',:keyword,'%') OR u.username LIKE CONCAT ('%',:keyword,'%') " +
-            "order by u.created_date DESC")
-    Page<User> findUserByKeyword(String keyword, Pageable pageable);
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate) FROM User u",
+           countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserJson> findUserJsons(Pageable pageable);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate) " +
+                   "FROM User u WHERE u.id IN :ids")
+    List<UserJson> findUserJsonsByIds(@Param("ids") Collection<String> ids);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate) " +
+                   "FROM User u WHERE u.id = :id")
+    Optional<UserJson> findUserJsonById(@Param("id") String id);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate, " +
+                   "a.id, a.city, a.street, a.locationNumber, a.zipCode) " +
+                   "FROM User u LEFT JOIN u.address a WHERE u.id = :id")
+    Optional<UserJson> findUserJsonWithAddressById(@Param("id") String id);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate) " +
+                   "FROM User u WHERE u.loginKey = :key OR u.emailKey = :key")
+    Optional<UserJson> findUserJsonByIdentityKey(@Param("key") String key);
+
+    default Optional<UserJson> findUserJsonByCredentials(String username) {
+        return findUserJsonByIdentityKey(User.identityKey(username))
+                .or(() -> findIdWithoutIdentityKeyByCredentials(username).flatMap(this::findUserJsonById));
+    }
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.model.response.UserJson(u.id, u.userId, u.firstName, u.lastName, u.username, u.email, u.profileImageUrl, u.role, u.isActive, u.isNotLocked, " +
+                   "u.createdDate, u.lastUpdateDate, u.lastLoginDate, " +
+                   "a.id, a.city, a.street, a.locationNumber, a.zipCode) " +
+                   "FROM User u LEFT JOIN u.address a WHERE u.loginKey = :key OR u.emailKey = :key")
+    Optional<UserJson> findUserJsonWithAddressByIdentityKey(@Param("key") String key);
+
+    default Optional<UserJson> findUserJsonWithAddressByCredentials(String username) {
+        return findUserJsonWithAddressByIdentityKey(User.identityKey(username))
+                .or(() -> findIdWithoutIdentityKeyByCredentials(username).flatMap(this::findUserJsonWithAddressById));
+    }
+
+    // the name shown next to the user's comments, without loading the user
+    @Transactional
+    @Query(value = "SELECT CASE WHEN TRIM(COALESCE(u.username, '')) = '' THEN CONCAT(u.firstName, ' ', u.lastName) ELSE u.username END " +
+                   "FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameToDisplayById(@Param("id") String id);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.service.search.UserSearchDocument(u.id, u.firstName, u.lastName, u.email, u.username) " +
+                   "FROM User u WHERE u.id = :id")
+    Optional<UserSearchDocument> findSearchDocument(@Param("id") String id);
+
+    @Transactional
+    @Query(value = "SELECT new com.radek.bookstore.service.search.UserSearchDocument(u.id, u.firstName, u.lastName, u.email, u.username) " +
+                   "FROM User u WHERE u.id > :lastId ORDER BY u.id")
+    List<UserSearchDocument> findSearchDocumentsAfter(@Param("lastId") String lastId, Pageable pageable);
 }
@@ -1,14 +1,21 @@
 package com.radek.bookstore.security;
 
+import com.radek.bookstore.config.RateLimitProperties;
 import com.radek.bookstore.security.filter.JwtAccessDeniedHandler;
 import com.radek.bookstore.security.filter.JwtAuthenticationEntryPoint;
 import com.radek.bookstore.security.filter.JwtAuthorizationFilter;
+import com.radek.bookstore.security.filter.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -17,9 +24,11 @@ import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+import static com.radek.bookstore.utils.constants.AuthorityConstants.METRICS_READ;
 import static com.radek.bookstore.utils.constants.SecurityConstants.*;
 import static org.springframework.http.HttpMethod.*;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
@@ -27,21 +36,25 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
+    private final RateLimitFilter rateLimitFilter;
     private final JwtAuthorizationFilter jwtAuthorizationFilter;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final UserDetailsService userDetailsService;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
     private final boolean securityEnabled;
 
-    public SecurityConfiguration(JwtAuthorizationFilter jwtAuthorizationFilter,
+    public SecurityConfiguration(RateLimitFilter rateLimitFilter,
+                                 JwtAuthorizationFilter jwtAuthorizationFilter,
                                  JwtAccessDeniedHandler jwtAccessDeniedHandler,
                                  JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
                                  @Qualifier("userDetailsService") UserDetailsService userDetailsService,
-                                 BCryptPasswordEncoder passwordEncoder,
+                                 PasswordEncoder passwordEncoder,
                                  @Value("${bookstore.security.enabled}") boolean securityEnabled) {
+        this.rateLimitFilter = rateLimitFilter;
         this.jwtAuthorizationFilter = jwtAuthorizationFilter;
         this.jwtAccessDeniedHandler = jwtAccessDeniedHandler;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
@@ -71,7 +84,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                     .accessDeniedHandler(jwtAccessDeniedHandler)
                     .authenticationEntryPoint(jwtAuthenticationEntryPoint)
                     .and()
-                    .addFilterBefore(jwtAuthorizationFilter, UsernamePasswordAuthenticationFilter.class);
+                    .addFilterBefore(jwtAuthorizationFilter, UsernamePasswordAuthenticationFilter.class)
+                    .addFilterBefore(rateLimitFilter, JwtAuthorizationFilter.class);
 
     }
 
@@ -80,4 +94,46 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     public AuthenticationManager authenticationManagerBean() throws Exception {
         return super.authenticationManagerBean();
     }
+
+    /**
+     * Actuator endpoints on whichever port they are served. Health and info are public; the rest, metrics among
+     * them, need the metrics:read authority, given by an access token or by HTTP basic credentials so that a
+     * scraper does not have to refresh tokens.
+     */
+    @Configuration
+    @Order(1)
+    static class ActuatorSecurityConfiguration extends WebSecurityConfigurerAdapter {
+
+        private final JwtAuthorizationFilter jwtAuthorizationFilter;
+        private final UserDetailsService userDetailsService;
+        private final PasswordEncoder passwordEncoder;
+
+        ActuatorSecurityConfiguration(JwtAuthorizationFilter jwtAuthorizationFilter,
+                                      @Qualifier("userDetailsService") UserDetailsService userDetailsService,
+                                      PasswordEncoder passwordEncoder) {
+            this.jwtAuthorizationFilter = jwtAuthorizationFilter;
+            this.userDetailsService = userDetailsService;
+            this.passwordEncoder = passwordEncoder;
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
+        }
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http.requestMatcher(EndpointRequest.toAnyEndpoint())
+                    .csrf().disable()
+                    .sessionManagement().sessionCreationPolicy(STATELESS)
+                    .and()
+                    .authorizeRequests()
+                    .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class)).permitAll()
+                    .anyRequest().hasAuthority(METRICS_READ)
+                    .and()
+                    .httpBasic()
+                    .and()
+                    .addFilterBefore(jwtAuthorizationFilter, BasicAuthenticationFilter.class);
+        }
+    }
 }
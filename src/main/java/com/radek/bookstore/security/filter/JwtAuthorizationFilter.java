@@ -1,12 +1,12 @@
 package com.radek.bookstore.security.filter;
 
 import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.VerifiedToken;
 import com.radek.bookstore.utils.constants.SecurityConstants;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -16,7 +16,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
+import java.util.Optional;
 
 import static com.radek.bookstore.utils.constants.SecurityConstants.*;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
@@ -42,10 +42,10 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
                 return;
             }
             String token = authorizationHeader.substring(TOKEN_PREFIX.length());
-            String username = jwtTokenProvider.getSubject(token);
-            if(jwtTokenProvider.isTokenValid(username, token) && SecurityContextHolder.getContext().getAuthentication()==null) {
-                List<GrantedAuthority> authorities =  jwtTokenProvider.getAuthorities(token);
-                Authentication authentication = jwtTokenProvider.getAuthentication(username, authorities, request);
+            Optional<VerifiedToken> verifiedToken = jwtTokenProvider.verifyToken(token);
+            if(verifiedToken.isPresent() && SecurityContextHolder.getContext().getAuthentication()==null) {
+                VerifiedToken tokenDetails = verifiedToken.get();
+                Authentication authentication = jwtTokenProvider.getAuthentication(tokenDetails.getSubject(), tokenDetails.getAuthorities(), request);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } else {
                 SecurityContextHolder.clearContext();
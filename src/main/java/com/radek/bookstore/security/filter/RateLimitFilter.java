@@ -0,0 +1,157 @@
+package com.radek.bookstore.security.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.radek.bookstore.config.RateLimitProperties;
+import com.radek.bookstore.model.response.HttpResponse;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenBucket;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.radek.bookstore.utils.constants.SecurityConstants.*;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Limits requests per route with a token bucket for each client, the signed in user when the request carries
+ * a valid token and the remote address otherwise. Buckets idle for longer than the configured timeout are
+ * dropped and their number is capped, so a scraper rotating addresses cannot grow the map without bound.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final List<RateLimitedRoute> routes;
+    private final Cache<String, TokenBucket> buckets;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           JwtTokenProvider jwtTokenProvider,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.jwtTokenProvider = jwtTokenProvider;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new RateLimitedRoute(route, registry))
+                .collect(Collectors.toList());
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        registry.gauge("bookstore.rate_limit.buckets", buckets, Cache::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || request.getMethod().equalsIgnoreCase(OPTIONS_HTTP_METHOD);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RateLimitedRoute route = findRoute(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        TokenBucket bucket = bucket(route, route.name + ":" + clientKey(request));
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos > 0) {
+            route.rejected.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitedRoute findRoute(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (RateLimitedRoute route : routes) {
+            boolean methodMatches = route.methods.isEmpty() || route.methods.contains(request.getMethod().toUpperCase());
+            if (methodMatches && route.patterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private TokenBucket bucket(RateLimitedRoute route, String key) {
+        try {
+            return buckets.get(key, () -> new TokenBucket(route.capacity, route.refillPerSecond, System.nanoTime()));
+        } catch (ExecutionException exc) {
+            throw new IllegalStateException(exc.getCause());
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader(AUTHORIZATION);
+        if (authorizationHeader != null && authorizationHeader.startsWith(TOKEN_PREFIX)) {
+            String subject = jwtTokenProvider.verifyToken(authorizationHeader.substring(TOKEN_PREFIX.length()))
+                    .filter(token -> !token.isExpired(Instant.now()))
+                    .map(VerifiedToken::getSubject)
+                    .orElse(null);
+            if (subject != null) {
+                return "user:" + subject;
+            }
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        HttpResponse httpResponse = new HttpResponse(TOO_MANY_REQUESTS.value(), TOO_MANY_REQUESTS,
+                TOO_MANY_REQUESTS.getReasonPhrase(), TOO_MANY_REQUESTS_MESSAGE);
+        response.setContentType(APPLICATION_JSON_VALUE);
+        response.setStatus(TOO_MANY_REQUESTS.value());
+        response.setHeader(RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        OutputStream outputStream = response.getOutputStream();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(outputStream, httpResponse);
+        outputStream.flush();
+    }
+
+    private static final class RateLimitedRoute {
+        private final String name;
+        private final List<String> patterns;
+        private final List<String> methods;
+        private final long capacity;
+        private final double refillPerSecond;
+        private final Counter rejected;
+
+        private RateLimitedRoute(RateLimitProperties.Route route, MeterRegistry registry) {
+            this.name = route.getName();
+            this.patterns = route.getPatterns();
+            this.methods = route.getMethods().stream().map(String::toUpperCase).collect(Collectors.toList());
+            this.capacity = route.getCapacity();
+            this.refillPerSecond = route.getRefillPerSecond();
+            this.rejected = Counter.builder("bookstore.rate_limit.rejected")
+                    .description("Requests rejected by the rate limit")
+                    .tag("route", name)
+                    .register(registry);
+        }
+    }
+}
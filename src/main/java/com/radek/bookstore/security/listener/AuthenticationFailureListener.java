@@ -3,6 +3,7 @@ package com.radek.bookstore.security.listener;
 import com.radek.bookstore.service.LoginAttemptService;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,9 +18,9 @@ public class AuthenticationFailureListener {
     @EventListener
     public void onAuthenticationFailure(AuthenticationFailureBadCredentialsEvent event) {
         Object principal = event.getAuthentication().getPrincipal();
-        if(principal instanceof String) {
-            String username = (String) event.getAuthentication().getPrincipal();
-            loginAttemptService.addUserToLoginAttemptCache(username);
-        }
+        Object details = event.getAuthentication().getDetails();
+        String clientAddress = details instanceof WebAuthenticationDetails ? ((WebAuthenticationDetails) details).getRemoteAddress() : null;
+        String username = principal instanceof String ? (String) principal : null;
+        loginAttemptService.addFailedAttempt(username, clientAddress);
     }
 }
@@ -1,6 +1,6 @@
 package com.radek.bookstore.security.listener;
 
-import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
 import com.radek.bookstore.service.LoginAttemptService;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
@@ -18,8 +18,8 @@ public class AuthenticationSuccessListener {
     @EventListener
     public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
         Object principal = event.getAuthentication().getPrincipal();
-        if(principal instanceof User) {
-            loginAttemptService.evictUserFromLoginAttemptCache(((User) principal).getUsername());
+        if(principal instanceof UserPrincipal) {
+            loginAttemptService.evictUserFromLoginAttemptCache(((UserPrincipal) principal).getId());
         }
     }
 }
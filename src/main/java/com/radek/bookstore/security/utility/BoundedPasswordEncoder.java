@@ -0,0 +1,83 @@
+package com.radek.bookstore.security.utility;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.radek.bookstore.model.exception.PasswordHashingUnavailableException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder which hashes and verifies passwords on its own bounded pool, so a burst of sign in or sign up
+ * requests waits for (or is rejected by) that pool instead of keeping every request thread busy hashing.
+ * Hashes made with a cost other than the configured one are reported for upgrade, which makes the
+ * authentication provider rehash them on the next successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$.*");
+    private static final String HASHING_UNAVAILABLE = "Too many sign in requests at the moment. Please try again in a while.";
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity) {
+        this(strength, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("password-hashing-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    BoundedPasswordEncoder(int strength, ThreadPoolExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException exc) {
+            throw new PasswordHashingUnavailableException(HASHING_UNAVAILABLE);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException exc) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException(HASHING_UNAVAILABLE);
+        } catch (ExecutionException exc) {
+            if (exc.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exc.getCause();
+            }
+            throw new IllegalStateException(exc.getCause());
+        }
+    }
+}
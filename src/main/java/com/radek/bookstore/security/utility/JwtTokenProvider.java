@@ -4,9 +4,14 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.radek.bookstore.model.UserPrincipal;
-import com.radek.bookstore.model.exception.BookStoreServiceException;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -16,36 +21,87 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
 import static com.radek.bookstore.utils.constants.SecurityConstants.*;
 import static java.util.Arrays.stream;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${bookstore.app.jwtSecret}")
-    private String secret;
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Cache<String, VerifiedToken> verifiedTokenCache;
+    private final long accessTokenTtlMs;
+    private final TokenRevocationList tokenRevocationList;
+
+    public JwtTokenProvider(@Value("${bookstore.app.jwtSecret}") String secret,
+                            @Value("${bookstore.security.token-cache-size:10000}") long tokenCacheSize,
+                            @Value("${bookstore.app.jwtExpirationMs}") long accessTokenTtlMs,
+                            TokenRevocationList tokenRevocationList) {
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.tokenRevocationList = tokenRevocationList;
+        this.algorithm = HMAC512(secret);
+        this.verifier = JWT.require(algorithm).withIssuer(RADEK_COM).build();
+        this.verifiedTokenCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(15, MINUTES).maximumSize(tokenCacheSize)
+                .build();
+    }
 
     public String generateJwtToken(UserPrincipal userPrincipal) {
         String[] claims = getClaimsFromUser(userPrincipal);
+        Date issuedAt = new Date();
+        // iat has whole seconds only, too coarse to tell a token issued right after a revocation from one before it
         return JWT.create().withIssuer(RADEK_COM)
                         .withAudience(RADEK_COM_ADMINISTRATION)
-                        .withIssuedAt(new Date())
+                        .withJWTId(UUID.randomUUID().toString())
+                        .withIssuedAt(issuedAt)
+                        .withClaim(ISSUED_AT_MILLIS, issuedAt.getTime())
                         .withSubject(userPrincipal.getUsername())
                         .withArrayClaim(AUTHORITIES, claims)
-                        .withExpiresAt(Timestamp.valueOf(LocalDateTime.now().plusSeconds(EXPIRATION_TIME)))
-                        .sign(Algorithm.HMAC512(secret.getBytes()));
+                        .withExpiresAt(new Date(System.currentTimeMillis() + accessTokenTtlMs))
+                        .sign(algorithm);
     }
 
-    public List<GrantedAuthority> getAuthorities(String token) {
-        String[] claims = getClaimsFromToken(token);
-        return stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+    /**
+     * Verifies the signature and expiry of the token at most once: tokens seen before are served from a
+     * cache keyed by their SHA-256 digest until they expire. Revocation is checked on every call.
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        Instant now = Instant.now();
+        String digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        VerifiedToken cachedToken = verifiedTokenCache.getIfPresent(digest);
+        if (Objects.nonNull(cachedToken)) {
+            return cachedToken.isExpired(now) || tokenRevocationList.isRevoked(cachedToken) ? Optional.empty() : Optional.of(cachedToken);
+        }
+        try {
+            DecodedJWT decodedJWT = verifier.verify(token);
+            if (StringUtils.isEmpty(decodedJWT.getSubject()) || Objects.isNull(decodedJWT.getExpiresAt())
+                    || Objects.isNull(decodedJWT.getIssuedAt())) {
+                return Optional.empty();
+            }
+            VerifiedToken verifiedToken = new VerifiedToken(decodedJWT.getSubject(), getAuthoritiesFromToken(decodedJWT),
+                    decodedJWT.getId(), getIssuedAt(decodedJWT), decodedJWT.getExpiresAt().toInstant());
+            verifiedTokenCache.put(digest, verifiedToken);
+            if (tokenRevocationList.isRevoked(verifiedToken)) {
+                return Optional.empty();
+            }
+            return Optional.of(verifiedToken);
+        } catch (JWTVerificationException exc) {
+            log.debug("{}: {}", TOKEN_CANNOT_BE_VERIFIED, exc.getMessage());
+            return Optional.empty();
+        }
     }
 
     public Authentication getAuthentication(String username, List<GrantedAuthority> authorities, HttpServletRequest request) {
@@ -55,35 +111,22 @@ public class JwtTokenProvider {
         return usernamePasswordAuthenticationToken;
     }
 
-    public boolean isTokenValid(String username, String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return StringUtils.isNotEmpty(username) && !isTokenExpired(verifier, token);
+    // a token without the millisecond claim counts as issued at the start of its second, so a revocation within
+    // that second still covers it
+    private Instant getIssuedAt(DecodedJWT decodedJWT) {
+        Long issuedAtMillis = decodedJWT.getClaim(ISSUED_AT_MILLIS).asLong();
+        Instant issuedAt = decodedJWT.getIssuedAt().toInstant();
+        return Objects.nonNull(issuedAtMillis) && issuedAtMillis / 1000 == issuedAt.getEpochSecond()
+                ? Instant.ofEpochMilli(issuedAtMillis)
+                : issuedAt;
     }
 
-    public String getSubject(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getSubject();
-    }
-
-    private boolean isTokenExpired(JWTVerifier verifier, String token) {
-        Date expiresAt = verifier.verify(token).getExpiresAt();
-        return expiresAt.before(new Date());
-    }
-
-    private String[] getClaimsFromToken(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getClaim(AUTHORITIES).asArray(String.class);
-    }
-
-    private JWTVerifier getJWTVerifier() {
-        JWTVerifier verifier;
-        try {
-            Algorithm algorithm = HMAC512(secret);
-            verifier = JWT.require(algorithm).withIssuer(RADEK_COM).build();
-        } catch (JWTVerificationException exception) {
-            throw new BookStoreServiceException(TOKEN_CANNOT_BE_VERIFIED);
+    private List<GrantedAuthority> getAuthoritiesFromToken(DecodedJWT decodedJWT) {
+        String[] claims = decodedJWT.getClaim(AUTHORITIES).asArray(String.class);
+        if (Objects.isNull(claims)) {
+            return List.of();
         }
-        return verifier;
+        return stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toUnmodifiableList());
     }
 
     private String[] getClaimsFromUser(UserPrincipal userPrincipal) {
@@ -0,0 +1,164 @@
+package com.radek.bookstore.security.utility;
+
+import com.radek.bookstore.model.RevokedToken;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Revoked access tokens, checked on every authenticated request. Lookups go through Bloom filters first and
+ * only reach the exact sets for the rare positive, so the common case costs a few hashed bit reads and no
+ * allocation. The revoked_token table is the source of truth: it is reloaded on a schedule, which also picks
+ * up revocations made on other nodes and drops expired entries.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long accessTokenTtlMs;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${bookstore.app.jwtExpirationMs}") long accessTokenTtlMs,
+                               @Value("${bookstore.security.revocation.expected-entries:100000}") int expectedEntries,
+                               @Value("${bookstore.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = new Snapshot(expectedEntries, falsePositiveRate);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Snapshot current = snapshot;
+        String tokenId = token.getTokenId();
+        if (Objects.nonNull(tokenId) && current.tokenIdFilter.mightContain(tokenId) && current.tokenIds.contains(tokenId)) {
+            return true;
+        }
+        if (current.subjectFilter.mightContain(token.getSubject())) {
+            Instant revokedAt = current.subjects.get(token.getSubject());
+            // issuedAt has millisecond precision, only tokens issued before the claim carrying it have whole seconds
+            return Objects.nonNull(revokedAt) && !token.getIssuedAt().isAfter(revokedAt);
+        }
+        return false;
+    }
+
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        save(new RevokedToken(tokenId, null, LocalDateTime.now(), toLocalDateTime(expiresAt)));
+        afterCommit(() -> addTokenId(tokenId));
+    }
+
+    /**
+     * Revokes every access token of the subject issued until now.
+     */
+    public void revokeSubject(String subject) {
+        Instant now = Instant.now();
+        save(new RevokedToken(null, subject, toLocalDateTime(now), toLocalDateTime(now.plusMillis(accessTokenTtlMs))));
+        afterCommit(() -> addSubject(subject, now));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${bookstore.security.revocation.refresh-interval-ms:60000}")
+    public synchronized void rebuild() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            revokedTokenRepository.deleteExpired(now);
+            List<RevokedToken> revokedTokens = revokedTokenRepository.findByExpiresAtAfter(now);
+            Snapshot rebuilt = new Snapshot(Math.max(expectedEntries, revokedTokens.size() * 2), falsePositiveRate);
+            for (RevokedToken revokedToken : revokedTokens) {
+                if (Objects.nonNull(revokedToken.getTokenId())) {
+                    rebuilt.addTokenId(revokedToken.getTokenId());
+                }
+                if (Objects.nonNull(revokedToken.getSubject())) {
+                    rebuilt.addSubject(revokedToken.getSubject(), revokedToken.getRevokedAt().atZone(ZoneId.systemDefault()).toInstant());
+                }
+            }
+            snapshot = rebuilt;
+            log.debug("Rebuilt token revocation list with {} entries", revokedTokens.size());
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during rebuilding token revocation list", exc);
+        }
+    }
+
+    private synchronized void addTokenId(String tokenId) {
+        snapshot.addTokenId(tokenId);
+    }
+
+    private synchronized void addSubject(String subject, Instant revokedAt) {
+        snapshot.addSubject(subject, revokedAt);
+    }
+
+    // a revocation rolled back together with its transaction must not revoke anything in memory either
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void save(RevokedToken revokedToken) {
+        try {
+            revokedTokenRepository.save(revokedToken);
+        } catch (NonTransientDataAccessException exc) {
+            String message = "An error occurred during revoking access token";
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static final class Snapshot {
+        private final RevocationBloomFilter tokenIdFilter;
+        private final RevocationBloomFilter subjectFilter;
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+        private final ConcurrentMap<String, Instant> subjects = new ConcurrentHashMap<>();
+
+        private Snapshot(int expectedEntries, double falsePositiveRate) {
+            this.tokenIdFilter = new RevocationBloomFilter(expectedEntries, falsePositiveRate);
+            this.subjectFilter = new RevocationBloomFilter(expectedEntries, falsePositiveRate);
+        }
+
+        // exact sets first, so a reader that passes the filter always finds the entry
+        private void addTokenId(String tokenId) {
+            tokenIds.add(tokenId);
+            tokenIdFilter.put(tokenId);
+        }
+
+        private void addSubject(String subject, Instant revokedAt) {
+            subjects.merge(subject, revokedAt, (previous, next) -> next.isAfter(previous) ? next : previous);
+            subjectFilter.put(subject);
+        }
+    }
+}
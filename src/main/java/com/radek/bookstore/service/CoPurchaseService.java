@@ -0,0 +1,12 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CoPurchaseService {
+    List<Book> findBoughtTogether(String bookId, Integer limit);
+    void recordOrder(Collection<String> bookIds);
+    void backfill();
+}
@@ -1,35 +1,111 @@
 package com.radek.bookstore.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.radek.bookstore.model.User;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Objects;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
 
 @Service
 public class CurrentUserService {
 
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserService.class.getName() + ".currentUser";
+
     private final UserRepository userRepository;
+    private final Cache<String, User> currentUserCache;
 
-    public CurrentUserService(UserRepository userRepository) {
+    public CurrentUserService(UserRepository userRepository,
+                              @Value("${bookstore.security.current-user-cache-ttl-seconds:30}") long cacheTtlSeconds) {
         this.userRepository = userRepository;
+        this.currentUserCache = CacheBuilder.newBuilder()
+                                    .expireAfterWrite(cacheTtlSeconds, SECONDS).maximumSize(1000)
+                                    .build();
     }
 
     public User getCurrentUser() {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String username;
+        if (principal instanceof UserDetails) {
+            username = ((UserDetails)principal).getUsername();
+        } else {
+            username = principal.toString();
+        }
 
-        try {
-            String username;
-            if (principal instanceof UserDetails) {
-                username = ((UserDetails)principal).getUsername();
-            } else {
-                username = principal.toString();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (Objects.nonNull(requestAttributes)) {
+            Object memoizedUser = requestAttributes.getAttribute(CURRENT_USER_ATTRIBUTE, SCOPE_REQUEST);
+            if (memoizedUser instanceof User && isSameUser((User) memoizedUser, username)) {
+                return (User) memoizedUser;
+            }
+        }
+
+        User currentUser = currentUserCache.getIfPresent(username);
+        if (Objects.isNull(currentUser)) {
+            currentUser = findUser(username);
+            if (Objects.isNull(currentUser)) {
+                return null;
             }
+            currentUserCache.put(username, currentUser);
+        }
+        if (Objects.nonNull(requestAttributes)) {
+            requestAttributes.setAttribute(CURRENT_USER_ATTRIBUTE, currentUser, SCOPE_REQUEST);
+        }
+        return currentUser;
+    }
+
+    /**
+     * Drops the cached user, to be called with the credentials the user had before a change.
+     * Inside a transaction the cache is cleared only after commit, so a concurrent request cannot
+     * cache the row as it was before the change commits.
+     */
+    public void evictUser(String... credentials) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (Objects.nonNull(requestAttributes)) {
+            requestAttributes.removeAttribute(CURRENT_USER_ATTRIBUTE, SCOPE_REQUEST);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(credentials);
+                }
+            });
+        } else {
+            invalidate(credentials);
+        }
+    }
+
+    private void invalidate(String... credentials) {
+        for (String credential : credentials) {
+            if (Objects.nonNull(credential)) {
+                currentUserCache.invalidate(credential);
+            }
+        }
+    }
+
+    private User findUser(String username) {
+        try {
             return userRepository.findUserByCredentials(username);
         } catch (NonTransientDataAccessException exc) {
             throw new BookStoreServiceException("Error occurred by attempt to get current user");
         }
     }
+
+    private boolean isSameUser(User user, String username) {
+        return username.equals(user.getUsername()) || username.equals(user.getEmail());
+    }
 }
@@ -0,0 +1,193 @@
+package com.radek.bookstore.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.radek.bookstore.model.EmailType;
+import com.radek.bookstore.model.OutboxEmail;
+import com.radek.bookstore.model.event.EmailQueuedEvent;
+import com.radek.bookstore.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue for account mails. A mail is saved in the transaction of the change that causes it, so it is
+ * sent if and only if that change commits, and the request never waits for SMTP. After commit the mail is
+ * handed to a small worker pool; a poller picks up whatever the pool could not take, mails of crashed
+ * workers and mails due for a retry, which back off exponentially until max-attempts is reached.
+ */
+@Service
+public class EmailOutbox {
+
+    private final static Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long retryBaseDelaySeconds;
+    private final long claimTimeoutSeconds;
+    private final int pollBatchSize;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong pendingEmails = new AtomicLong();
+
+    public EmailOutbox(OutboxEmailRepository outboxEmailRepository,
+                       EmailService emailService,
+                       ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${bookstore.mail.outbox.workers:2}") int workers,
+                       @Value("${bookstore.mail.outbox.queue-capacity:500}") int queueCapacity,
+                       @Value("${bookstore.mail.outbox.max-attempts:8}") int maxAttempts,
+                       @Value("${bookstore.mail.outbox.retry-base-delay-seconds:30}") long retryBaseDelaySeconds,
+                       @Value("${bookstore.mail.outbox.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+                       @Value("${bookstore.mail.outbox.poll-batch-size:100}") int pollBatchSize) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelaySeconds = retryBaseDelaySeconds;
+        this.claimTimeoutSeconds = claimTimeoutSeconds;
+        this.pollBatchSize = pollBatchSize;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("email-outbox-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry.gauge("bookstore.mail.outbox.pending", pendingEmails);
+    }
+
+    /**
+     * Saves the mail in the current transaction; it is sent once that transaction commits. A temporary password
+     * is not stored on its own: the mail carrying it is rendered here and only the html is kept until it is sent.
+     */
+    public void enqueue(EmailType type, String recipient, String firstName, String activationLink, String temporaryPassword) {
+        String body = type == EmailType.NEW_USER ? emailService.renderAddedNewUserMessage(firstName, activationLink, temporaryPassword) : null;
+        OutboxEmail email = outboxEmailRepository.save(new OutboxEmail(type, recipient, firstName, activationLink, body));
+        eventPublisher.publishEvent(new EmailQueuedEvent(email.getId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        submit(event.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.mail.outbox.poll-interval-ms:15000}")
+    public void pollDueEmails() {
+        try {
+            List<String> dueIds = outboxEmailRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, pollBatchSize));
+            dueIds.forEach(this::submit);
+            pendingEmails.set(outboxEmailRepository.countByStatus(OutboxEmail.Status.PENDING)
+                    + outboxEmailRepository.countByStatus(OutboxEmail.Status.SENDING));
+        } catch (DataAccessException exc) {
+            log.error("An error occurred during polling email outbox", exc);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // mails claimed by interrupted workers are picked up again once their claim runs out
+        executor.shutdownNow();
+    }
+
+    private void submit(String id) {
+        try {
+            executor.execute(() -> dispatch(id));
+        } catch (RejectedExecutionException exc) {
+            log.debug("Email outbox pool is full, email with id: {} is left for the poller", id);
+        }
+    }
+
+    void dispatch(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<OutboxEmail> claimedEmail;
+        try {
+            if (outboxEmailRepository.claim(id, now, now.plusSeconds(claimTimeoutSeconds)) == 0) {
+                return;
+            }
+            claimedEmail = outboxEmailRepository.findById(id);
+        } catch (DataAccessException exc) {
+            log.error(String.format("An error occurred during claiming email with id: %s", id), exc);
+            return;
+        }
+        claimedEmail.ifPresent(this::send);
+    }
+
+    private void send(OutboxEmail email) {
+        try {
+            deliver(email);
+        } catch (MessagingException | RuntimeException exc) {
+            recordFailure(email, exc);
+            return;
+        }
+        meterRegistry.counter("bookstore.mail.outbox.sent", "type", email.getType().name()).increment();
+        try {
+            outboxEmailRepository.delete(email);
+        } catch (DataAccessException exc) {
+            // the mail is out, a second copy after the claim runs out is the lesser evil
+            log.error(String.format("An error occurred during removing sent email with id: %s", email.getId()), exc);
+        }
+    }
+
+    private void deliver(OutboxEmail email) throws MessagingException {
+        switch (email.getType()) {
+            case ACTIVATION:
+                emailService.sendActivationAccountMessage(email.getFirstName(), email.getActivationLink(), email.getRecipient());
+                break;
+            case NEW_USER:
+                if (Objects.isNull(email.getBody())) {
+                    throw new IllegalStateException("New user email has no rendered body");
+                }
+                emailService.sendAddedNewUserMessage(email.getBody(), email.getRecipient());
+                break;
+            case RESET_PASSWORD:
+                emailService.resetPasswordMessage(email.getFirstName(), email.getActivationLink(), email.getRecipient());
+                break;
+        }
+    }
+
+    private void recordFailure(OutboxEmail email, Exception exc) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setClaimedUntil(null);
+        email.setLastError(abbreviate(exc.toString()));
+        if (attempts >= maxAttempts) {
+            email.setStatus(OutboxEmail.Status.FAILED);
+            email.setBody(null);
+            meterRegistry.counter("bookstore.mail.outbox.failed", "type", email.getType().name()).increment();
+            log.error(String.format("Giving up sending %s email with id: %s after %d attempts", email.getType(), email.getId(), attempts), exc);
+        } else {
+            email.setStatus(OutboxEmail.Status.PENDING);
+            email.setNextAttemptAt(LocalDateTime.now().plusSeconds(retryBaseDelaySeconds << Math.min(attempts - 1, 16)));
+            meterRegistry.counter("bookstore.mail.outbox.retried", "type", email.getType().name()).increment();
+            log.warn("Sending {} email with id: {} failed, attempt {} of {}: {}", email.getType(), email.getId(), attempts, maxAttempts, exc.toString());
+        }
+        try {
+            outboxEmailRepository.save(email);
+        } catch (DataAccessException saveExc) {
+            log.error(String.format("An error occurred during rescheduling email with id: %s", email.getId()), saveExc);
+        }
+    }
+
+    private static String abbreviate(String error) {
+        return error.length() <= 1000 ? error : error.substring(0, 1000);
+    }
+}
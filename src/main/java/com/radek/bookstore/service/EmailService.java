@@ -1,10 +1,11 @@
 package com.radek.bookstore.service;
 
 import com.radek.bookstore.model.Order;
+import com.radek.bookstore.service.mail.AdminDigest;
+import com.radek.bookstore.service.mail.MailTemplateRenderer;
+import com.radek.bookstore.service.mail.SmtpTransportPool;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
 
 import javax.mail.*;
 import javax.mail.internet.InternetAddress;
@@ -15,32 +16,44 @@ import java.text.DecimalFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
 
 import static com.radek.bookstore.utils.constants.EmailConstants.*;
 
 @Service
 public class EmailService {
 
-    private final SpringTemplateEngine templateEngine;
+    private final MailTemplateRenderer templateRenderer;
+    private final SmtpTransportPool transportPool;
+    private final AdminDigest adminDigest;
 
-    public EmailService(SpringTemplateEngine templateEngine) {
-        this.templateEngine = templateEngine;
+    public EmailService(MailTemplateRenderer templateRenderer, SmtpTransportPool transportPool, AdminDigest adminDigest) {
+        this.templateRenderer = templateRenderer;
+        this.transportPool = transportPool;
+        this.adminDigest = adminDigest;
     }
 
     public void sendActivationAccountMessage(String firstName, String activationLink, String email) throws MessagingException {
         Message message = createEmail(firstName, activationLink, email);
-        Transport.send(message, message.getAllRecipients());
+        send(message, EMAIL_SUBJECT, email);
     }
 
-    public void sendAddedNewUserMessage(String firstName, String activationLink, String password, String email) throws MessagingException {
-        Message message = addNewUserMessage(firstName, activationLink, password, email);
-        Transport.send(message, message.getAllRecipients());
+    public String renderAddedNewUserMessage(String firstName, String activationLink, String password) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("firstName", firstName);
+        properties.put("activationLink", activationLink);
+        properties.put("password", password);
+        return templateRenderer.render(MailTemplateRenderer.NEW_USER, properties);
+    }
+
+    public void sendAddedNewUserMessage(String html, String email) throws MessagingException {
+        MimeMessage message = populateMessage(email, ADD_NEW_USER_SUBJECT);
+        message.setText(html, StandardCharsets.UTF_8.name(), "html");
+        send(message, ADD_NEW_USER_SUBJECT, email);
     }
 
     public void resetPasswordMessage(String firstName, String activationLink, String email) throws MessagingException {
         Message message = resetPasswordEmail(firstName, activationLink, email);
-        Transport.send(message, message.getAllRecipients());
+        send(message, RESET_PASSWORD_SUBJECT, email);
     }
 
     public void orderSummaryMessage(String email, Order order, String firstName) throws MessagingException {
@@ -56,19 +69,19 @@ public class EmailService {
         properties.put("items", order.getOrderItems());
         properties.put("firstName", firstName);
 
-        String html = getHtmlContent("order-summary", properties);
+        String html = templateRenderer.render(MailTemplateRenderer.ORDER_SUMMARY, properties);
 
         helper.setTo(email);
         helper.setFrom(new InternetAddress(FROM_EMAIL));
         helper.setSubject(ORDER_SUMMARY_MESSAGE);
         helper.setText(html, true);
-        Transport.send(message, message.getAllRecipients());
+        send(message, ORDER_SUMMARY_MESSAGE, email);
     }
 
-    private String getHtmlContent(String templateName, Map<String, Object> properties) {
-        Context context = new Context();
-        context.setVariables(properties);
-        return templateEngine.process(templateName, context);
+    // the admin learns about the mail from the next digest instead of a copy of it
+    private void send(Message message, String subject, String email) throws MessagingException {
+        transportPool.send(message);
+        adminDigest.record(subject, email);
     }
 
     private String setPriceFormat(BigDecimal price) {
@@ -80,60 +93,31 @@ public class EmailService {
     }
 
     private Message createEmail(String firstName, String activationLink, String email) throws MessagingException {
-        MimeMessage message = populateMessage(email, EMAIL_SUBJECT);
-        message.setText("Witaj "+firstName+", " +
-                "\n\nWłaśnie dokonałaś/-eś rejestracji w serwisie Bookstore Dev" +
-                "\n\nJeśli trafiłaś/-eś tu przez przypadek - informuję, że to nie jest prawdziwa księgarnia online, ale aplikacja treningowa, którą napisałem aby rozwijać swoje umiejętności programistyczne." +
-                "\n\nAby aktywować utworzone konto - kliknij na link aktywacyjny: "+activationLink+"" +
-                "\n\nBookstore Dev - The Support Team");
-        message.saveChanges();
-        return message;
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("firstName", firstName);
+        properties.put("activationLink", activationLink);
+        return createHtmlMessage(email, EMAIL_SUBJECT, MailTemplateRenderer.ACCOUNT_ACTIVATION, properties);
     }
 
     private Message resetPasswordEmail(String firstName, String activationLink, String email) throws MessagingException {
-        MimeMessage message = populateMessage(email, RESET_PASSWORD_SUBJECT);
-        message.setText("Witaj "+firstName+", " +
-                "\n\nTwoje hasło zostało zmienione." +
-                "\n\nAby re-aktywować konto - kliknij w link aktywacyjny: "+activationLink+"" +
-                "\n\nBookstore Dev - The Support Team");
-        message.saveChanges();
-        return message;
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("firstName", firstName);
+        properties.put("activationLink", activationLink);
+        return createHtmlMessage(email, RESET_PASSWORD_SUBJECT, MailTemplateRenderer.RESET_PASSWORD, properties);
     }
 
-    private Message addNewUserMessage(String firstName, String activationLink, String password, String email) throws MessagingException {
-        MimeMessage message = populateMessage(email, ADD_NEW_USER_SUBJECT);
-        message.setText("Witaj "+firstName+", " +
-                "\n\nWłaśnie założyliśmy Ci konto w serwisie Bookstore Dev" +
-                "\n\nAby aktywować utworzone konto - kliknij na link aktywacyjny: "+activationLink+"" +
-                "\n\nZaloguj się do serwisu przy użyciu hasła: "+password+"" +
-                "\n\nHasło możesz zmienić poprzez opcję resetu hasła." +
-                "\n\nBookstore Dev - The Support Team");
-        message.saveChanges();
+    private Message createHtmlMessage(String email, String subject, String templateName, Map<String, Object> properties) throws MessagingException {
+        MimeMessage message = populateMessage(email, subject);
+        message.setText(templateRenderer.render(templateName, properties), StandardCharsets.UTF_8.name(), "html");
         return message;
     }
 
     private MimeMessage populateMessage(String email, String subject) throws MessagingException {
-        MimeMessage message = new MimeMessage(getEmailSession());
+        MimeMessage message = new MimeMessage(transportPool.getSession());
         message.setFrom(new InternetAddress(FROM_EMAIL));
         message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email, false));
-        message.setRecipients(Message.RecipientType.CC, InternetAddress.parse(CC_EMAIL, false));
         message.setSubject(subject);
         message.setSentDate(new Date());
         return message;
     }
-
-    private Session getEmailSession() {
-        Properties properties = System.getProperties();
-        properties.put(SMTP_HOST, GMAIL_SMTP_SERVER);
-        properties.put(SMTP_AUTH, true);
-        properties.put(SMTP_PORT, DEFAULT_PORT);
-        properties.put(SMTP_STARTTLS_ENABLE, true);
-        properties.put(SMTP_STARTTLS_REQUIRED, true);
-        properties.put(MAIL_SMTP_SSL_TRUST, GMAIL_SMTP_SERVER);
-        return Session.getInstance(properties, new Authenticator() {
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(USERNAME, PASSWORD);
-            }
-        });
-    }
 }
@@ -0,0 +1,87 @@
+package com.radek.bookstore.service;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Write-behind buffer for users' last login dates. Logins only touch an in-memory map, which coalesces
+ * repeated logins of a user to the latest one; a background flush writes them in batched UPDATEs that
+ * never move a stored date backwards.
+ */
+@Service
+public class LastLoginRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    private static final String UPDATE_LAST_LOGIN_DATE =
+            "UPDATE app_users SET last_login_date = ? WHERE id = ? AND (last_login_date IS NULL OR last_login_date < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final ConcurrentMap<String, LocalDateTime> pendingLogins = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate,
+                             @Value("${bookstore.security.last-login-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void recordLogin(String userId, LocalDateTime loginDate) {
+        pendingLogins.merge(userId, loginDate, LastLoginRecorder::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.security.last-login-flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pendingLogins.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, LocalDateTime>> logins = new ArrayList<>(pendingLogins.size());
+        for (String userId : pendingLogins.keySet()) {
+            LocalDateTime loginDate = pendingLogins.remove(userId);
+            if (loginDate != null) {
+                logins.add(Map.entry(userId, loginDate));
+            }
+        }
+        for (List<Map.Entry<String, LocalDateTime>> batch : Lists.partition(logins, batchSize)) {
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_DATE, toBatchArguments(batch));
+            } catch (DataAccessException exc) {
+                batch.forEach(login -> recordLogin(login.getKey(), login.getValue()));
+                log.error("An error occurred during saving last login dates of {} users", batch.size(), exc);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private List<Object[]> toBatchArguments(List<Map.Entry<String, LocalDateTime>> batch) {
+        List<Object[]> arguments = new ArrayList<>(batch.size());
+        for (Map.Entry<String, LocalDateTime> login : batch) {
+            Timestamp loginDate = Timestamp.valueOf(login.getValue());
+            arguments.add(new Object[]{loginDate, login.getKey(), loginDate});
+        }
+        return arguments;
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
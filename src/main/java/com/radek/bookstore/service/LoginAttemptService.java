@@ -1,57 +1,60 @@
 package com.radek.bookstore.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.throttling.LoginAttemptStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ExecutionException;
-
-import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.Objects.isNull;
 
 @Service
 public class LoginAttemptService {
 
-    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
-
     public static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 5;
-    public static final int ATTEMPT_INCREMENT = 1;
-    private final LoadingCache<String, Integer> loginAttemptCache;
-
-    public LoginAttemptService() {
-        super();
-        this.loginAttemptCache = CacheBuilder.newBuilder()
-                                    .expireAfterWrite(15, MINUTES).maximumSize(100)
-                                    .build(new CacheLoader<String, Integer>() {
-                                        @Override
-                                        public Integer load(String key) throws Exception {
-                                            return 0;
-                                        }
-        });
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String UNKNOWN_LOGIN_KEY_PREFIX = "login:";
+    private static final String CLIENT_KEY_PREFIX = "client:";
+
+    private final LoginAttemptStore loginAttemptStore;
+    private final UserRepository userRepository;
+    private final int maximumClientAttempts;
+
+    public LoginAttemptService(LoginAttemptStore loginAttemptStore,
+                               UserRepository userRepository,
+                               @Value("${bookstore.security.login-attempts.max-client-attempts:50}") int maximumClientAttempts) {
+        this.loginAttemptStore = loginAttemptStore;
+        this.userRepository = userRepository;
+        this.maximumClientAttempts = maximumClientAttempts;
     }
 
-    public void evictUserFromLoginAttemptCache(String username) {
-        loginAttemptCache.invalidate(username);
+    public void evictUserFromLoginAttemptCache(String userId) {
+        if (!isNull(userId)) {
+            loginAttemptStore.clearAttempts(USER_KEY_PREFIX + userId);
+        }
     }
 
-    public void addUserToLoginAttemptCache(String username) {
-        int attempts = 0;
-        try {
-            attempts=ATTEMPT_INCREMENT+loginAttemptCache.get(username);
-            loginAttemptCache.put(username, attempts);
-        } catch (ExecutionException exc) {
-            logger.info("Execution exception by attempt to add user to login attempt cache after incorrect login attempt");
+    // the typed login is resolved to the account, so its username and email in any case share one counter
+    public void addFailedAttempt(String login, String clientAddress) {
+        if (!isNull(login)) {
+            loginAttemptStore.recordAttempt(loginKey(login));
+        }
+        if (!isNull(clientAddress)) {
+            loginAttemptStore.recordAttempt(CLIENT_KEY_PREFIX + clientAddress);
         }
     }
 
-    public boolean exceededMaxAttempts(String username)  {
-        try {
-            return loginAttemptCache.get(username)>MAXIMUM_NUMBER_OF_ATTEMPTS;
-        } catch (ExecutionException exc) {
-            logger.info("Execution exception by attempt to check whether user exceeded number of allowed login attempts");
-        }
-        return false;
+    public boolean exceededMaxAttempts(String userId) {
+        return !isNull(userId) && loginAttemptStore.countAttempts(USER_KEY_PREFIX + userId) > MAXIMUM_NUMBER_OF_ATTEMPTS;
+    }
+
+    public boolean exceededMaxClientAttempts(String clientAddress) {
+        return !isNull(clientAddress) && loginAttemptStore.countAttempts(CLIENT_KEY_PREFIX + clientAddress) > maximumClientAttempts;
+    }
+
+    private String loginKey(String login) {
+        return userRepository.findIdByCredentials(login)
+                .map(userId -> USER_KEY_PREFIX + userId)
+                .orElse(UNKNOWN_LOGIN_KEY_PREFIX + User.identityKey(login));
     }
 }
@@ -0,0 +1,9 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.response.CursorPage;
+
+public interface RankingService {
+    CursorPage<Book> findTopRated(String categoryId, String cursor, Integer size);
+    void recalculateRatingScores();
+}
@@ -11,4 +11,5 @@ public interface RatingService {
     List<Rating> getBookRatings(String bookId);
     Optional<Rating> getBookRating(String bookId, String userId);
     Optional<Collection<Rating>> saveRating(RatingDto ratingDto, String bookId, String userId);
+    void deleteRatingsByUserId(String userId);
 }
@@ -0,0 +1,11 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.Book;
+
+import java.util.List;
+
+public interface RecommendationService {
+    List<Book> findSimilarBooks(String bookId, Integer limit);
+    void rebuildSimilarities();
+    void refreshChangedSimilarities();
+}
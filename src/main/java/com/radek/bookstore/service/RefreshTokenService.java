@@ -0,0 +1,158 @@
+package com.radek.bookstore.service;
+
+import com.google.common.hash.Hashing;
+import com.radek.bookstore.model.RefreshToken;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.exception.InvalidRefreshTokenException;
+import com.radek.bookstore.model.response.TokenPair;
+import com.radek.bookstore.repository.RefreshTokenRepository;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Issues and rotates refresh tokens. A refresh token can be used once: refreshing revokes it and hands out a
+ * new one, and presenting an already used token revokes every session of its user, since it means the token
+ * was copied.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    public static final String INVALID_REFRESH_TOKEN = "Refresh token is invalid or expired. Please sign in again";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final long refreshTokenTtlDays;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               JwtTokenProvider jwtTokenProvider,
+                               TokenRevocationList tokenRevocationList,
+                               @Value("${bookstore.security.refresh-token-ttl-days:14}") long refreshTokenTtlDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenTtlDays = refreshTokenTtlDays;
+    }
+
+    public String createRefreshToken(User user) {
+        byte[] randomBytes = new byte[32];
+        secureRandom.nextBytes(randomBytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        try {
+            refreshTokenRepository.save(new RefreshToken(hash(refreshToken), user.getId(), LocalDateTime.now().plusDays(refreshTokenTtlDays)));
+            return refreshToken;
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during creating refresh token for user with id: %s", user.getId());
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    /**
+     * Claims the token with a single conditional update before reading it, so of concurrent refreshes with the same
+     * token exactly one rotates it; the others are treated as reuse. Revoking the old token and storing the new one
+     * commit together, while the reuse revocation is kept when InvalidRefreshTokenException is thrown.
+     */
+    @Transactional
+    public TokenPair refresh(String refreshToken) throws InvalidRefreshTokenException {
+        try {
+            String tokenHash = hash(refreshToken);
+            boolean claimed = refreshTokenRepository.revokeByTokenHash(tokenHash) == 1;
+            RefreshToken storedToken = refreshTokenRepository.findByTokenHash(tokenHash)
+                    .orElseThrow(() -> new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN));
+            if (!claimed) {
+                log.warn("Revoked refresh token of user with id: {} was used again, revoking all of the user's tokens", storedToken.getUserId());
+                userRepository.findById(storedToken.getUserId()).ifPresent(user -> revokeUserTokens(user.getId(), user.getUsername()));
+                throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+            }
+            if (storedToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+                throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+            }
+            Optional<User> user = userRepository.findById(storedToken.getUserId());
+            if (user.isEmpty() || !user.get().isActive() || !user.get().isNotLocked()) {
+                throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+            }
+            return new TokenPair(jwtTokenProvider.generateJwtToken(new UserPrincipal(user.get())), createRefreshToken(user.get()));
+        } catch (NonTransientDataAccessException exc) {
+            String message = "An error occurred during refreshing access token";
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    /**
+     * Revokes the access token of the request and, if given, the refresh token of the same session.
+     */
+    public void signOut(String accessToken, String refreshToken) {
+        Optional<VerifiedToken> verifiedToken = jwtTokenProvider.verifyToken(accessToken);
+        if (verifiedToken.isEmpty()) {
+            return;
+        }
+        if (Objects.nonNull(verifiedToken.get().getTokenId())) {
+            tokenRevocationList.revokeToken(verifiedToken.get().getTokenId(), verifiedToken.get().getExpiresAt());
+        }
+        if (Objects.nonNull(refreshToken)) {
+            try {
+                refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                        .ifPresent(storedToken -> refreshTokenRepository.revokeById(storedToken.getId()));
+            } catch (NonTransientDataAccessException exc) {
+                String message = "An error occurred during revoking refresh token";
+                log.error(message, exc);
+                throw new BookStoreServiceException(message, exc);
+            }
+        }
+    }
+
+    /**
+     * Signs the user out everywhere: revokes the refresh tokens and every access token issued to the subject.
+     */
+    public void revokeUserTokens(String userId, String subject) {
+        try {
+            refreshTokenRepository.revokeAllByUserId(userId);
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during revoking tokens of user with id: %s", userId);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+        if (Objects.nonNull(subject)) {
+            tokenRevocationList.revokeSubject(subject);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.security.refresh-token-purge-interval-ms:3600000}")
+    public void purgeExpiredTokens() {
+        try {
+            int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+            log.debug("Purged {} expired refresh tokens", purged);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during purging expired refresh tokens", exc);
+        }
+    }
+
+    private static String hash(String refreshToken) {
+        return Hashing.sha256().hashString(refreshToken, StandardCharsets.UTF_8).toString();
+    }
+}
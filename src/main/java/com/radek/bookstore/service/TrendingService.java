@@ -0,0 +1,12 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.Book;
+
+import java.util.List;
+
+public interface TrendingService {
+    void recordView(String bookId);
+    void recordPurchase(String bookId, int quantity);
+    List<Book> getTrendingBooks(Integer limit);
+    void flushActivity();
+}
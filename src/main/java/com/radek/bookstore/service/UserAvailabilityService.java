@@ -0,0 +1,132 @@
+package com.radek.bookstore.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.event.UserChangedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.response.IdentityAvailability;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.search.UserSearchDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Answers whether a username or email is still free for the signup form. A Bloom filter of every login and
+ * email key says "available" without touching the database; only a possible collision is confirmed with one
+ * indexed query. Until the first rebuild after startup has finished every check goes to the database. Keys are
+ * never removed, so a freed username is confirmed by the query until the next rebuild, and writes of other
+ * instances show up with the next rebuild. The signup itself still checks authoritatively.
+ */
+@Service
+public class UserAvailabilityService {
+
+    private final static Logger log = LoggerFactory.getLogger(UserAvailabilityService.class);
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final int rebuildBatchSize;
+
+    private volatile BloomFilter<CharSequence> identityKeys;
+    private volatile BloomFilter<CharSequence> rebuiltIdentityKeys;
+
+    public UserAvailabilityService(UserRepository userRepository,
+                                   @Value("${bookstore.users.availability.expected-users:500000}") long expectedUsers,
+                                   @Value("${bookstore.users.availability.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${bookstore.users.search.rebuild-batch-size:1000}") int rebuildBatchSize) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public IdentityAvailability checkAvailability(String username, String email) {
+        return new IdentityAvailability(isAvailable(username), isAvailable(email));
+    }
+
+    private Boolean isAvailable(String credential) {
+        String key = User.identityKey(credential);
+        if (Objects.isNull(key) || key.isEmpty()) {
+            return null;
+        }
+        BloomFilter<CharSequence> filter = identityKeys;
+        if (Objects.nonNull(filter) && !filter.mightContain(key)) {
+            return true;
+        }
+        try {
+            return !userRepository.existsByIdentityKey(key);
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during checking availability of: %s", credential);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        try {
+            userRepository.findSearchDocument(event.getId()).ifPresent(this::put);
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during recording identity keys of user with id: %s", event.getId()), exc);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${bookstore.users.availability.rebuild-interval-ms:600000}",
+               fixedDelayString = "${bookstore.users.availability.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            long expectedInsertions = 2 * Math.max(expectedUsers, userRepository.count());
+            // keys committed while the rebuild runs are put into both filters, so the swap loses none of them
+            BloomFilter<CharSequence> rebuiltFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveRate);
+            rebuiltIdentityKeys = rebuiltFilter;
+            String lastId = "";
+            List<UserSearchDocument> documents;
+            do {
+                documents = userRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+                documents.forEach(document -> putKeys(rebuiltFilter, document));
+                if (!documents.isEmpty()) {
+                    lastId = documents.get(documents.size() - 1).getId();
+                }
+            } while (documents.size() == rebuildBatchSize);
+            identityKeys = rebuiltFilter;
+            log.info("Rebuilt identity availability filter in {} ms", System.currentTimeMillis() - start);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during rebuilding identity availability filter", exc);
+        } finally {
+            rebuiltIdentityKeys = null;
+        }
+    }
+
+    // the filter being rebuilt is read first: once it is gone, the current filter is already the rebuilt one
+    private void put(UserSearchDocument document) {
+        BloomFilter<CharSequence> rebuiltFilter = rebuiltIdentityKeys;
+        if (Objects.nonNull(rebuiltFilter)) {
+            putKeys(rebuiltFilter, document);
+        }
+        BloomFilter<CharSequence> filter = identityKeys;
+        if (Objects.nonNull(filter)) {
+            putKeys(filter, document);
+        }
+    }
+
+    private static void putKeys(BloomFilter<CharSequence> filter, UserSearchDocument document) {
+        filter.put(User.loginKey(document.getUsername(), document.getEmail()));
+        filter.put(User.identityKey(document.getEmail()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.event.UserChangedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.exception.InvalidCursorException;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.model.response.UserJson;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.search.TrigramIndex;
+import com.radek.bookstore.service.search.UserSearchDocument;
+import com.radek.bookstore.utils.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked user search for the admin console backed by an in-memory trigram index over first name, last name,
+ * email and username. Writes of this instance are applied after commit, and the whole index is rebuilt
+ * periodically to pick up writes of other instances.
+ */
+@Service
+public class UserSearchService {
+
+    private final static Logger log = LoggerFactory.getLogger(UserSearchService.class);
+
+    private final UserRepository userRepository;
+    private final double minSimilarity;
+    private final int rebuildBatchSize;
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private volatile TrigramIndex index;
+    private volatile boolean rebuilding;
+
+    public UserSearchService(UserRepository userRepository,
+                             @Value("${bookstore.users.search.min-similarity:0.5}") double minSimilarity,
+                             @Value("${bookstore.users.search.rebuild-batch-size:1000}") int rebuildBatchSize) {
+        this.userRepository = userRepository;
+        this.minSimilarity = minSimilarity;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.index = new TrigramIndex(minSimilarity);
+    }
+
+    public CursorPage<UserJson> searchUsers(String keyword, String cursor, Integer size) {
+        if (Objects.isNull(keyword) || keyword.trim().isEmpty()) {
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        double afterScore = 0;
+        String afterId = null;
+        if (Objects.nonNull(cursor)) {
+            String[] keys = KeysetCursor.decode(cursor, 2);
+            afterScore = parseScore(keys[0], cursor);
+            afterId = keys[1];
+        }
+        List<TrigramIndex.Match> matches = index.search(keyword, afterScore, afterId, size + 1);
+        if (matches.isEmpty()) {
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        List<TrigramIndex.Match> pageMatches = matches.size() > size ? matches.subList(0, size) : matches;
+        try {
+            List<String> ids = pageMatches.stream().map(TrigramIndex.Match::getId).collect(Collectors.toList());
+            Map<String, UserJson> usersById = userRepository.findUserJsonsByIds(ids).stream()
+                    .collect(Collectors.toMap(UserJson::getId, Function.identity()));
+            List<UserJson> users = ids.stream()
+                    .map(usersById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (matches.size() <= size) {
+                return new CursorPage<>(users, null);
+            }
+            TrigramIndex.Match last = pageMatches.get(size - 1);
+            return new CursorPage<>(users, KeysetCursor.encode(last.getScore(), last.getId()));
+        } catch (NonTransientDataAccessException exc) {
+            String message = "An error occurred during attempt to find user by keyword.";
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    private double parseScore(String value, String cursor) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exc) {
+            throw new InvalidCursorException(String.format("Invalid page cursor: %s", cursor));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (rebuilding) {
+            // the rebuild may have read the row before this commit, so it is refreshed again once it is done
+            changedDuringRebuild.add(event.getId());
+        }
+        refresh(event.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${bookstore.users.search.rebuild-interval-ms:600000}",
+               fixedDelayString = "${bookstore.users.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            TrigramIndex rebuiltIndex = new TrigramIndex(minSimilarity);
+            String lastId = "";
+            List<UserSearchDocument> documents;
+            do {
+                documents = userRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+                documents.forEach(document -> put(rebuiltIndex, document));
+                if (!documents.isEmpty()) {
+                    lastId = documents.get(documents.size() - 1).getId();
+                }
+            } while (documents.size() == rebuildBatchSize);
+            index = rebuiltIndex;
+            log.info("Rebuilt user search index with {} users in {} ms", rebuiltIndex.size(), System.currentTimeMillis() - start);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during rebuilding user search index", exc);
+        } finally {
+            rebuilding = false;
+        }
+        Iterator<String> changedIds = changedDuringRebuild.iterator();
+        while (changedIds.hasNext()) {
+            String id = changedIds.next();
+            changedIds.remove();
+            refresh(id);
+        }
+    }
+
+    private void refresh(String id) {
+        try {
+            Optional<UserSearchDocument> document = userRepository.findSearchDocument(id);
+            if (document.isPresent()) {
+                put(index, document.get());
+            } else {
+                index.remove(id);
+            }
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during indexing user with id: %s", id), exc);
+        }
+    }
+
+    private static void put(TrigramIndex index, UserSearchDocument document) {
+        index.put(document.getId(), document.getFirstName(), document.getLastName(), document.getEmail(), document.getUsername());
+    }
+}
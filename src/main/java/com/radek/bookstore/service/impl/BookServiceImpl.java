@@ -4,6 +4,7 @@ import com.radek.bookstore.model.Author;
 import com.radek.bookstore.model.Book;
 import com.radek.bookstore.model.dto.AuthorDto;
 import com.radek.bookstore.model.dto.BookDto;
+import com.radek.bookstore.model.event.BookChangedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.model.response.BookJson;
 import com.radek.bookstore.model.mapper.BookJsonMapper;
@@ -11,7 +12,9 @@ import com.radek.bookstore.repository.AuthorRepository;
 import com.radek.bookstore.repository.BookRepository;
 import com.radek.bookstore.repository.RatingRepository;
 import com.radek.bookstore.service.BookService;
+import com.radek.bookstore.service.TrendingService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -31,14 +34,20 @@ public class BookServiceImpl implements BookService {
     private final AuthorRepository authorRepository;
     private final RatingRepository ratingRepository;
     private final BookJsonMapper bookJsonMapper;
+    private final TrendingService trendingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookServiceImpl(BookRepository bookRepository,
                            AuthorRepository authorRepository,
-                           RatingRepository ratingRepository, BookJsonMapper bookJsonMapper) {
+                           RatingRepository ratingRepository, BookJsonMapper bookJsonMapper,
+                           TrendingService trendingService,
+                           ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.ratingRepository = ratingRepository;
         this.bookJsonMapper = bookJsonMapper;
+        this.trendingService = trendingService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -62,6 +71,7 @@ public class BookServiceImpl implements BookService {
                 return Optional.empty();
             }
             Book book = bookOptional.get();
+            trendingService.recordView(id);
             BookJson bookJson = bookJsonMapper.map(book, BookJson.class);
             bookJson.setDescription(extractDescriptionParagraphs(book.getDescription()));
             return Optional.of(bookJson);
@@ -90,11 +100,15 @@ public class BookServiceImpl implements BookService {
             roundPrices(bookDto);
             Book book = new Book(bookDto);
             bookDto.getCategories().forEach(book::addCategory);
-            if(bookId!=null  && bookRepository.existsById(bookId)) {
+            boolean existingBook = bookId!=null  && bookRepository.existsById(bookId);
+            if(existingBook) {
                 book.setId(bookId);
             }
             author.addBook(book);
             Author savedAuthor = authorRepository.save(author);
+            if(existingBook) {
+                eventPublisher.publishEvent(new BookChangedEvent(bookId, false));
+            }
             return savedAuthor.getBooks();
         } catch (NonTransientDataAccessException exc) {
             String message = "An error occurred during saving book to database.";
@@ -148,7 +162,9 @@ public class BookServiceImpl implements BookService {
         try {
             Book book = bookRepository.findById(bookId).get();
             book.setActive(activationStatus);
-            return bookRepository.save(book);
+            Book savedBook = bookRepository.save(book);
+            eventPublisher.publishEvent(new BookChangedEvent(bookId, false));
+            return savedBook;
         } catch (NonTransientDataAccessException exc) {
             String message = "An error occurred during attempt to change book status.";
             log.error(message, exc);
@@ -162,6 +178,7 @@ public class BookServiceImpl implements BookService {
         try {
             ratingRepository.deleteByBookId(bookId);
             bookRepository.deleteById(bookId);
+            eventPublisher.publishEvent(new BookChangedEvent(bookId, true));
         } catch (NonTransientDataAccessException exc) {
             String message = "An error occurred during attempt to delete book.";
             log.error(message, exc);
@@ -201,7 +218,7 @@ public class BookServiceImpl implements BookService {
         }
     }
 
-    private List<String> extractDescriptionParagraphs(String description) {
+    public static List<String> extractDescriptionParagraphs(String description) {
         List<String> descriptionParagraphs = new ArrayList<>();
         String[] paragraphs = Objects.nonNull(description) ? description.split("\n") : new String[0];
         for (String paragraph: paragraphs) {
@@ -2,6 +2,7 @@ package com.radek.bookstore.service.impl;
 
 import com.radek.bookstore.model.*;
 import com.radek.bookstore.model.dto.Purchase;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.model.response.PurchaseJson;
 import com.radek.bookstore.repository.*;
@@ -12,6 +13,7 @@ import com.radek.bookstore.utils.UniqueId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.support.PagedListHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -21,8 +23,10 @@ import org.springframework.stereotype.Service;
 import javax.mail.MessagingException;
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
@@ -38,6 +42,7 @@ public class CheckoutServiceImpl implements CheckoutService {
     private final AddressRepository addressRepository;
     private final CurrentUserService currentUserService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CheckoutServiceImpl(CustomerRepository customerRepository,
                                BookRepository bookRepository,
@@ -45,7 +50,8 @@ public class CheckoutServiceImpl implements CheckoutService {
                                OrderItemRepository orderItemRepository,
                                AddressRepository addressRepository,
                                CurrentUserService currentUserService,
-                               EmailService emailService) {
+                               EmailService emailService,
+                               ApplicationEventPublisher eventPublisher) {
         this.customerRepository = customerRepository;
         this.bookRepository = bookRepository;
         this.orderRepository = orderRepository;
@@ -53,6 +59,7 @@ public class CheckoutServiceImpl implements CheckoutService {
         this.addressRepository = addressRepository;
         this.currentUserService = currentUserService;
         this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -77,6 +84,7 @@ public class CheckoutServiceImpl implements CheckoutService {
             Customer customer = purchase.getCustomer();
             customer.addOrder(order);
             customerRepository.save(customer);
+            eventPublisher.publishEvent(new OrderPlacedEvent(orderTrackingNumber, extractQuantitiesByBookId(orderItems)));
             sendOrderConfirmationToCustomer(customer, order);
             return new PurchaseJson(orderTrackingNumber);
         } catch (NonTransientDataAccessException exc) {
@@ -155,6 +163,11 @@ public class CheckoutServiceImpl implements CheckoutService {
         }
     }
 
+    private Map<String, Integer> extractQuantitiesByBookId(Set<OrderItem> orderItems) {
+        return orderItems.stream()
+                .collect(Collectors.toMap(OrderItem::getBookId, OrderItem::getQuantity, Integer::sum));
+    }
+
     private Address extractAddress(Address address) {
         Optional<Address> optionalAddress = addressRepository.findByStreetAndCityAndLocationNumberAndZipCodeIgnoreCase(
                 address.getStreet(), address.getCity(), address.getLocationNumber(), address.getZipCode());
@@ -0,0 +1,137 @@
+package com.radek.bookstore.service.impl;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.repository.OrderItemRepository;
+import com.radek.bookstore.repository.OrderRepository;
+import com.radek.bookstore.service.CoPurchaseService;
+import com.radek.bookstore.service.recommendation.PurchasedBook;
+import com.radek.bookstore.service.recommendation.SpaceSavingCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CoPurchaseServiceImpl implements CoPurchaseService {
+
+    private final static Logger log = LoggerFactory.getLogger(CoPurchaseServiceImpl.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final BookRepository bookRepository;
+    private final int counterCapacity;
+    private final int backfillChunkSize;
+    private final int backfillParallelism;
+    private final ConcurrentMap<String, SpaceSavingCounter> counters = new ConcurrentHashMap<>();
+
+    // orders placed from now on are recorded by onOrderPlaced, older ones by the backfill
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    public CoPurchaseServiceImpl(OrderRepository orderRepository,
+                                 OrderItemRepository orderItemRepository,
+                                 BookRepository bookRepository,
+                                 @Value("${bookstore.co-purchases.counter-capacity:50}") int counterCapacity,
+                                 @Value("${bookstore.co-purchases.backfill-chunk-size:500}") int backfillChunkSize,
+                                 @Value("${bookstore.co-purchases.backfill-parallelism:4}") int backfillParallelism) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.bookRepository = bookRepository;
+        this.counterCapacity = counterCapacity;
+        this.backfillChunkSize = backfillChunkSize;
+        this.backfillParallelism = backfillParallelism;
+    }
+
+    @Override
+    public List<Book> findBoughtTogether(String bookId, Integer limit) {
+        SpaceSavingCounter counter = counters.get(bookId);
+        if (Objects.isNull(counter)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<String> bookIds = counter.top(counterCapacity);
+            Map<String, Book> booksById = bookRepository.findAllById(bookIds).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            return bookIds.stream()
+                    .map(booksById::get)
+                    .filter(book -> Objects.nonNull(book) && Boolean.TRUE.equals(book.getActive()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during retrieving books bought together with book with id: %s", bookId);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        recordOrder(event.getQuantitiesByBookId().keySet());
+    }
+
+    @Override
+    public void recordOrder(Collection<String> bookIds) {
+        List<String> distinctBookIds = bookIds.stream().distinct().collect(Collectors.toList());
+        for (String bookId : distinctBookIds) {
+            SpaceSavingCounter counter = counters.computeIfAbsent(bookId, id -> new SpaceSavingCounter(counterCapacity));
+            for (String otherBookId : distinctBookIds) {
+                if (!otherBookId.equals(bookId)) {
+                    counter.add(otherBookId);
+                }
+            }
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(backfillParallelism);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            String lastOrderId = "";
+            List<String> orderIds;
+            do {
+                orderIds = orderRepository.findOrderIdsPlacedBefore(startedAt, lastOrderId, PageRequest.of(0, backfillChunkSize));
+                if (!orderIds.isEmpty()) {
+                    List<String> chunk = orderIds;
+                    chunks.add(executor.submit(() -> backfillChunk(chunk)));
+                    lastOrderId = orderIds.get(orderIds.size() - 1);
+                }
+            } while (orderIds.size() == backfillChunkSize);
+
+            int orders = 0;
+            for (Future<Integer> chunk : chunks) {
+                orders += chunk.get();
+            }
+            log.info("Backfilled co-purchases from {} orders in {} ms", orders, System.currentTimeMillis() - start);
+        } catch (NonTransientDataAccessException | ExecutionException exc) {
+            log.error("An error occurred during backfilling co-purchases", exc);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int backfillChunk(List<String> orderIds) {
+        Map<String, List<String>> bookIdsByOrderId = orderItemRepository.findPurchasedBooks(orderIds).stream()
+                .collect(Collectors.groupingBy(PurchasedBook::getOrderId,
+                        Collectors.mapping(PurchasedBook::getBookId, Collectors.toList())));
+        bookIdsByOrderId.values().forEach(this::recordOrder);
+        return bookIdsByOrderId.size();
+    }
+}
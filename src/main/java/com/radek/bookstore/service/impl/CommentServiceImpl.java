@@ -1,6 +1,5 @@
 package com.radek.bookstore.service.impl;
 
-import com.radek.bookstore.model.Book;
 import com.radek.bookstore.model.Comment;
 import com.radek.bookstore.model.User;
 import com.radek.bookstore.model.dto.CommentDto;
@@ -13,7 +12,10 @@ import com.radek.bookstore.repository.UserRepository;
 import com.radek.bookstore.service.CommentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.support.PagedListHolder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -21,7 +23,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -37,12 +38,15 @@ public class CommentServiceImpl implements CommentService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final CommentJsonMapper commentJsonMapper;
+    private final boolean recountOnStartup;
 
-    public CommentServiceImpl(CommentRepository commentRepository, BookRepository bookRepository, UserRepository userRepository, CommentJsonMapper commentJsonMapper) {
+    public CommentServiceImpl(CommentRepository commentRepository, BookRepository bookRepository, UserRepository userRepository, CommentJsonMapper commentJsonMapper,
+                              @Value("${bookstore.comments.recount-on-startup:false}") boolean recountOnStartup) {
         this.commentRepository = commentRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.commentJsonMapper = commentJsonMapper;
+        this.recountOnStartup = recountOnStartup;
     }
 
 
@@ -72,16 +76,17 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    public Collection<Comment> saveComment(CommentDto commentDto, String bookId, String userId) {
+    public CommentJson saveComment(CommentDto commentDto, String bookId, String userId) {
         try {
-            Book book = bookRepository.findById(bookId).get();
-            User user = userRepository.findById(userId).get();
             Comment comment = new Comment(commentDto);
-            comment.setUser(user);
-            book.addComment(comment);
-            Book savedBook = bookRepository.save(book);
+            comment.setBook(bookRepository.getOne(bookId));
+            comment.setUser(userRepository.getOne(userId));
+            Comment savedComment = commentRepository.save(comment);
+            bookRepository.incrementCommentsCount(bookId);
             log.info("Succesfully added new comment for book with id: {} by user with id: {}", bookId, userId);
-            return savedBook.getComments();
+            CommentJson commentJson = commentJsonMapper.map(savedComment, CommentJson.class);
+            commentJson.setUsernameToDisplay(userRepository.findUsernameToDisplayById(userId).orElse(null));
+            return commentJson;
         } catch (NonTransientDataAccessException exc) {
             String message = "An error occurred during attempt to save comment to database";
             log.error(message, exc);
@@ -89,26 +94,58 @@ public class CommentServiceImpl implements CommentService {
         }
     }
 
+    // bulk delete instead of the User.comments cascade, so the affected books can be recounted in the same transaction
+    @Override
+    @Transactional
+    public void deleteCommentsByUserId(String userId) {
+        try {
+            List<String> bookIds = commentRepository.findCommentedBookIdsByUserId(userId);
+            if (bookIds.isEmpty()) {
+                return;
+            }
+            int deletedComments = commentRepository.deleteByUserId(userId);
+            bookRepository.recalculateCommentsCounts(bookIds);
+            log.info("Deleted {} comments of user with id: {} from {} books", deletedComments, userId, bookIds.size());
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during attempt to delete comments of user with id: %s", userId);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recalculateCommentsCountsOnStartup() {
+        if (recountOnStartup) {
+            recalculateCommentsCounts();
+        }
+    }
+
+    @Override
+    public void recalculateCommentsCounts() {
+        try {
+            int updatedBooks = bookRepository.recalculateCommentsCounts();
+            log.info("Recalculated comments counts of {} books", updatedBooks);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during recalculating books comments counts", exc);
+        }
+    }
+
     private List<CommentJson> mapCommentsToCommentsJson(List<Comment> comments) {
         return comments
                 .stream()
-                .map(comment -> commentJsonMapper.map(comment, CommentJson.class))
-                .map(commentJson -> determineUsernamesToDisplay(comments, commentJson))
+                .map(this::mapCommentToCommentJson)
                 .collect(Collectors.toList());
     }
 
-    private CommentJson determineUsernamesToDisplay(List<Comment> comments, CommentJson commentJson) {
-        Comment commentToProcess =  findCommentById(commentJson.getId(), comments);
-        String usernameToDisplay = isNotBlank(commentToProcess.getUser().getUsername())
-                ? commentToProcess.getUser().getUsername()
-                : commentToProcess.getUser().getFirstName()+" "+commentToProcess.getUser().getLastName();
-        commentJson.setUsernameToDisplay(usernameToDisplay);
+    private CommentJson mapCommentToCommentJson(Comment comment) {
+        CommentJson commentJson = commentJsonMapper.map(comment, CommentJson.class);
+        commentJson.setUsernameToDisplay(determineUsernameToDisplay(comment.getUser()));
         return commentJson;
     }
 
-    private Comment findCommentById(String commentId, List<Comment> comments) {
-        return comments.stream().filter(comment -> comment.getId().equals(commentId)).findFirst().get();
+    private String determineUsernameToDisplay(User user) {
+        return isNotBlank(user.getUsername())
+                ? user.getUsername()
+                : user.getFirstName()+" "+user.getLastName();
     }
-
-
 }
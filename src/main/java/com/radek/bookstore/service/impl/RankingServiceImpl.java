@@ -0,0 +1,104 @@
+package com.radek.bookstore.service.impl;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.event.RatingChangedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.exception.InvalidCursorException;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.service.RankingService;
+import com.radek.bookstore.service.ranking.RatingTotals;
+import com.radek.bookstore.service.ranking.WilsonScore;
+import com.radek.bookstore.utils.KeysetCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class RankingServiceImpl implements RankingService {
+
+    private final static Logger log = LoggerFactory.getLogger(RankingServiceImpl.class);
+
+    private final BookRepository bookRepository;
+
+    public RankingServiceImpl(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public CursorPage<Book> findTopRated(String categoryId, String cursor, Integer size) {
+        Pageable pageable = PageRequest.of(0, size + 1);
+        try {
+            List<Book> books;
+            if (Objects.isNull(cursor)) {
+                books = Objects.isNull(categoryId)
+                        ? bookRepository.findTopRated(pageable)
+                        : bookRepository.findTopRatedInCategory(categoryId, pageable);
+            } else {
+                String[] keys = KeysetCursor.decode(cursor, 2);
+                double ratingScore = parseRatingScore(keys[0], cursor);
+                books = Objects.isNull(categoryId)
+                        ? bookRepository.findTopRatedAfter(ratingScore, keys[1], pageable)
+                        : bookRepository.findTopRatedInCategoryAfter(categoryId, ratingScore, keys[1], pageable);
+            }
+            if (books.size() <= size) {
+                return new CursorPage<>(books, null);
+            }
+            List<Book> content = books.subList(0, size);
+            Book last = content.get(size - 1);
+            return new CursorPage<>(content, KeysetCursor.encode(last.getRatingScore(), last.getId()));
+        } catch (NonTransientDataAccessException exc) {
+            String message = "An error occurred during retrieving top rated books";
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    private double parseRatingScore(String value, String cursor) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exc) {
+            throw new InvalidCursorException(String.format("Invalid page cursor: %s", cursor));
+        }
+    }
+
+    // runs inside the rating transaction, so the aggregates never disagree with the rating table
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRatingChanged(RatingChangedEvent event) {
+        int countDelta = (Objects.isNull(event.getVote()) ? 0 : 1) - (Objects.isNull(event.getPreviousVote()) ? 0 : 1);
+        int sumDelta = Objects.requireNonNullElse(event.getVote(), 0) - Objects.requireNonNullElse(event.getPreviousVote(), 0);
+        bookRepository.applyRatingDelta(event.getBookId(), countDelta, sumDelta);
+        bookRepository.findRatingTotals(event.getBookId())
+                .ifPresent(totals -> bookRepository.updateRatingScore(totals.getBookId(),
+                        WilsonScore.lowerBound(totals.getRatingsCount(), totals.getRatingsSum())));
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void recalculateRatingScores() {
+        try {
+            bookRepository.recalculateRatingTotals();
+            int updated = 0;
+            for (RatingTotals totals : bookRepository.findAllRatingTotals()) {
+                double ratingScore = WilsonScore.lowerBound(totals.getRatingsCount(), totals.getRatingsSum());
+                if (!Objects.equals(totals.getRatingScore(), ratingScore)) {
+                    bookRepository.updateRatingScore(totals.getBookId(), ratingScore);
+                    updated++;
+                }
+            }
+            log.info("Recalculated rating scores, {} books updated", updated);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during recalculating rating scores", exc);
+        }
+    }
+}
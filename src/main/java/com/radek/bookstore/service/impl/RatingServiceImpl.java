@@ -4,6 +4,7 @@ import com.radek.bookstore.model.Book;
 import com.radek.bookstore.model.Rating;
 import com.radek.bookstore.model.User;
 import com.radek.bookstore.model.dto.RatingDto;
+import com.radek.bookstore.model.event.RatingChangedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.repository.BookRepository;
 import com.radek.bookstore.repository.RatingRepository;
@@ -11,6 +12,7 @@ import com.radek.bookstore.repository.UserRepository;
 import com.radek.bookstore.service.RatingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.stereotype.Service;
 
@@ -25,11 +27,16 @@ public class RatingServiceImpl implements RatingService {
     private final RatingRepository ratingRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RatingServiceImpl(RatingRepository ratingRepository, BookRepository bookRepository, UserRepository userRepository) {
+    public RatingServiceImpl(RatingRepository ratingRepository,
+                             BookRepository bookRepository,
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.ratingRepository = ratingRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -76,6 +83,26 @@ public class RatingServiceImpl implements RatingService {
         }
     }
 
+    // removes the ratings ahead of the User.ratings cascade, so rating totals and similarities follow the deletion
+    @Override
+    @Transactional
+    public void deleteRatingsByUserId(String userId) {
+        try {
+            List<Rating> ratings = ratingRepository.findByUserId(userId);
+            if (ratings.isEmpty()) {
+                return;
+            }
+            ratingRepository.deleteAll(ratings);
+            ratings.forEach(rating -> eventPublisher.publishEvent(
+                    new RatingChangedEvent(rating.getBook().getId(), userId, rating.getVote(), null)));
+            log.info("Deleted {} ratings of user with id: {}", ratings.size(), userId);
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during deleting ratings of user with id: %s", userId);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
     private Optional<Collection<Rating>> saveNewRating(RatingDto ratingDto, String bookId, String userId) {
         Book book = bookRepository.findById(bookId).get();
         User user = userRepository.findById(userId).get();
@@ -83,13 +110,16 @@ public class RatingServiceImpl implements RatingService {
         rating.setUser(user);
         book.addRating(rating);
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new RatingChangedEvent(bookId, userId, null, rating.getVote()));
         log.info("Succesfully added new rating: {} for book with id: {} by user with id: {}", rating.getVote(), bookId, userId);
         return Optional.of(savedBook.getRatings());
     }
 
     private Optional<Collection<Rating>> saveUpdatedRating(Rating currentRating, RatingDto updatedRating, String bookId, String userId) {
+        Integer previousVote = currentRating.getVote();
         currentRating.setVote(updatedRating.getVote());
         Rating newRating = ratingRepository.save(currentRating);
+        eventPublisher.publishEvent(new RatingChangedEvent(bookId, userId, previousVote, newRating.getVote()));
         log.info("Succesfully changed newRating to: {} for book with id: {} by user with id: {}", currentRating.getVote(), bookId, userId);
         return Optional.of(Collections.singleton(newRating));
     }
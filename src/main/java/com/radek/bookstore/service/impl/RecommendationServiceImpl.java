@@ -0,0 +1,211 @@
+package com.radek.bookstore.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.SimilarBook;
+import com.radek.bookstore.model.event.BookChangedEvent;
+import com.radek.bookstore.model.event.RatingChangedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.repository.RatingRepository;
+import com.radek.bookstore.repository.SimilarBookRepository;
+import com.radek.bookstore.service.RecommendationService;
+import com.radek.bookstore.service.recommendation.ItemSimilarityTask;
+import com.radek.bookstore.service.recommendation.RatingMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private final static Logger log = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+
+    private static final int DELETE_CHUNK_SIZE = 500;
+
+    private final RatingRepository ratingRepository;
+    private final SimilarBookRepository similarBookRepository;
+    private final BookRepository bookRepository;
+    private final TransactionOperations transactionOperations;
+    private final int neighbourCount;
+    private final ForkJoinPool forkJoinPool;
+    private final Cache<String, List<Book>> similarBooksCache;
+    private final Set<String> changedBookIds = ConcurrentHashMap.newKeySet();
+
+    public RecommendationServiceImpl(RatingRepository ratingRepository,
+                                     SimilarBookRepository similarBookRepository,
+                                     BookRepository bookRepository,
+                                     TransactionOperations transactionOperations,
+                                     @Value("${bookstore.recommendations.neighbours:20}") int neighbourCount,
+                                     @Value("${bookstore.recommendations.parallelism:0}") int parallelism) {
+        this.ratingRepository = ratingRepository;
+        this.similarBookRepository = similarBookRepository;
+        this.bookRepository = bookRepository;
+        this.transactionOperations = transactionOperations;
+        this.neighbourCount = ItemSimilarityTask.validNeighbourCount(neighbourCount);
+        this.forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.similarBooksCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(30, MINUTES).maximumSize(5000)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Override
+    public List<Book> findSimilarBooks(String bookId, Integer limit) {
+        try {
+            List<Book> similarBooks = similarBooksCache.get(bookId, () -> loadSimilarBooks(bookId));
+            return similarBooks.size() > limit ? similarBooks.subList(0, limit) : similarBooks;
+        } catch (ExecutionException exc) {
+            String message = String.format("An error occurred during retrieving books similar to book with id: %s", bookId);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    private List<Book> loadSimilarBooks(String bookId) {
+        List<String> similarBookIds = similarBookRepository.findByBookIdOrderBySimilarityRankAsc(bookId).stream()
+                .map(SimilarBook::getSimilarBookId)
+                .collect(Collectors.toList());
+        Map<String, Book> booksById = bookRepository.findAllById(similarBookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return similarBookIds.stream()
+                .map(booksById::get)
+                .filter(book -> Objects.nonNull(book) && Boolean.TRUE.equals(book.getActive()))
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    @TransactionalEventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        changedBookIds.add(event.getBookId());
+    }
+
+    // cached neighbour lists hold Book entities, so a changed book has to leave every list it appears in
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        String bookId = event.getBookId();
+        similarBooksCache.invalidate(bookId);
+        similarBooksCache.asMap().values()
+                .removeIf(similarBooks -> similarBooks.stream().anyMatch(book -> book.getId().equals(bookId)));
+        if (event.isDeleted()) {
+            changedBookIds.add(bookId);
+        }
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${bookstore.recommendations.rebuild-initial-delay-ms:60000}",
+            fixedDelayString = "${bookstore.recommendations.rebuild-interval-ms:21600000}")
+    public synchronized void rebuildSimilarities() {
+        try {
+            long start = System.currentTimeMillis();
+            changedBookIds.clear();
+            RatingMatrix matrix = RatingMatrix.from(ratingRepository.findAllVotes());
+            int[] books = new int[matrix.bookCount()];
+            Arrays.setAll(books, book -> book);
+            List<SimilarBook> similarities = computeSimilarities(matrix, books);
+            transactionOperations.executeWithoutResult(status -> {
+                similarBookRepository.deleteAllInBatch();
+                similarBookRepository.saveAll(similarities);
+            });
+            similarBooksCache.invalidateAll();
+            log.info("Rebuilt similarities of {} books in {} ms", books.length, System.currentTimeMillis() - start);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during rebuilding book similarities", exc);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.recommendations.refresh-interval-ms:300000}")
+    public synchronized void refreshChangedSimilarities() {
+        if (changedBookIds.isEmpty()) {
+            return;
+        }
+        Set<String> changed = new HashSet<>(changedBookIds);
+        changedBookIds.removeAll(changed);
+        try {
+            RatingMatrix matrix = RatingMatrix.from(ratingRepository.findAllVotes());
+            Set<String> formerNeighbourIds = findBooksListingAsNeighbour(changed);
+            int[] books = affectedBooks(matrix, changed, formerNeighbourIds);
+            List<SimilarBook> similarities = computeSimilarities(matrix, books);
+            Set<String> affectedIds = new HashSet<>(changed);
+            affectedIds.addAll(formerNeighbourIds);
+            for (int book : books) {
+                affectedIds.add(matrix.bookId(book));
+            }
+            transactionOperations.executeWithoutResult(status -> {
+                Lists.partition(new ArrayList<>(affectedIds), DELETE_CHUNK_SIZE)
+                        .forEach(similarBookRepository::deleteByBookIdIn);
+                similarBookRepository.saveAll(similarities);
+            });
+            similarBooksCache.invalidateAll(affectedIds);
+            log.info("Refreshed similarities of {} books after ratings of {} books changed", affectedIds.size(), changed.size());
+        } catch (NonTransientDataAccessException exc) {
+            changedBookIds.addAll(changed);
+            log.error("An error occurred during refreshing book similarities", exc);
+        }
+    }
+
+    // books that stopped being co-rated with a changed book (or whose only votes were removed) are no longer
+    // reachable through the rating matrix, but their stored neighbour lists still point at the changed book
+    private Set<String> findBooksListingAsNeighbour(Set<String> changed) {
+        Set<String> bookIds = new HashSet<>();
+        Lists.partition(new ArrayList<>(changed), DELETE_CHUNK_SIZE)
+                .forEach(chunk -> bookIds.addAll(similarBookRepository.findBookIdsBySimilarBookIdIn(chunk)));
+        return bookIds;
+    }
+
+    // a rating change alters the similarity between the rated book and every book co-rated with it,
+    // so the neighbour lists of all of those books have to be recomputed
+    private int[] affectedBooks(RatingMatrix matrix, Set<String> changed, Set<String> formerNeighbourIds) {
+        BitSet affected = new BitSet(matrix.bookCount());
+        for (String bookId : changed) {
+            int book = matrix.bookIndex(bookId);
+            if (book >= 0) {
+                affected.set(book);
+                matrix.forEachCoRatedBook(book, affected::set);
+            }
+        }
+        for (String bookId : formerNeighbourIds) {
+            int book = matrix.bookIndex(bookId);
+            if (book >= 0) {
+                affected.set(book);
+            }
+        }
+        return affected.stream().toArray();
+    }
+
+    private List<SimilarBook> computeSimilarities(RatingMatrix matrix, int[] books) {
+        int[][] neighbours = new int[matrix.bookCount()][];
+        float[][] scores = new float[matrix.bookCount()][];
+        forkJoinPool.invoke(new ItemSimilarityTask(matrix, books, neighbourCount, neighbours, scores));
+
+        List<SimilarBook> similarities = new ArrayList<>();
+        for (int book : books) {
+            String bookId = matrix.bookId(book);
+            for (int rank = 0; rank < neighbours[book].length; rank++) {
+                similarities.add(new SimilarBook(bookId, matrix.bookId(neighbours[book][rank]), rank, (double) scores[book][rank]));
+            }
+        }
+        return similarities;
+    }
+}
@@ -0,0 +1,154 @@
+package com.radek.bookstore.service.impl;
+
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.BookActivity;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
+import com.radek.bookstore.repository.BookActivityRepository;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.service.TrendingService;
+import com.radek.bookstore.service.ranking.DecayedScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private final static Logger log = LoggerFactory.getLogger(TrendingServiceImpl.class);
+
+    private final BookActivityRepository bookActivityRepository;
+    private final BookRepository bookRepository;
+    private final DecayedScore decayedScore;
+    private final double purchaseWeight;
+    private final int snapshotSize;
+
+    // counters only ever grow; the flush persists the difference to the totals it has already written
+    private final ConcurrentMap<String, LongAdder> views = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> purchases = new ConcurrentHashMap<>();
+    private final Map<String, Long> flushedViews = new HashMap<>();
+    private final Map<String, Long> flushedPurchases = new HashMap<>();
+
+    private volatile List<Book> trendingSnapshot = Collections.emptyList();
+
+    public TrendingServiceImpl(BookActivityRepository bookActivityRepository,
+                               BookRepository bookRepository,
+                               @Value("${bookstore.trending.half-life-hours:24}") long halfLifeHours,
+                               @Value("${bookstore.trending.purchase-weight:5}") double purchaseWeight,
+                               @Value("${bookstore.trending.snapshot-size:50}") int snapshotSize) {
+        this.bookActivityRepository = bookActivityRepository;
+        this.bookRepository = bookRepository;
+        this.decayedScore = new DecayedScore(Duration.ofHours(halfLifeHours));
+        this.purchaseWeight = purchaseWeight;
+        this.snapshotSize = snapshotSize;
+    }
+
+    @Override
+    public void recordView(String bookId) {
+        counter(views, bookId).increment();
+    }
+
+    @Override
+    public void recordPurchase(String bookId, int quantity) {
+        counter(purchases, bookId).add(quantity);
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String bookId) {
+        LongAdder counter = counters.get(bookId);
+        return Objects.nonNull(counter) ? counter : counters.computeIfAbsent(bookId, id -> new LongAdder());
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        event.getQuantitiesByBookId().forEach(this::recordPurchase);
+    }
+
+    @Override
+    public List<Book> getTrendingBooks(Integer limit) {
+        List<Book> snapshot = trendingSnapshot;
+        return snapshot.size() > limit ? snapshot.subList(0, limit) : snapshot;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.trending.flush-interval-ms:60000}")
+    public synchronized void flushActivity() {
+        Map<String, Long> viewTotals = totals(views);
+        Map<String, Long> purchaseTotals = totals(purchases);
+        Map<String, Long> viewDeltas = deltas(viewTotals, flushedViews);
+        Map<String, Long> purchaseDeltas = deltas(purchaseTotals, flushedPurchases);
+        try {
+            if (!viewDeltas.isEmpty() || !purchaseDeltas.isEmpty()) {
+                saveActivity(viewDeltas, purchaseDeltas);
+                flushedViews.putAll(viewTotals);
+                flushedPurchases.putAll(purchaseTotals);
+            }
+            refreshSnapshot();
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during flushing book activity", exc);
+        }
+    }
+
+    private Map<String, Long> totals(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> totals = new HashMap<>();
+        counters.forEach((bookId, counter) -> totals.put(bookId, counter.sum()));
+        return totals;
+    }
+
+    private Map<String, Long> deltas(Map<String, Long> totals, Map<String, Long> flushed) {
+        Map<String, Long> deltas = new HashMap<>();
+        totals.forEach((bookId, total) -> {
+            long delta = total - flushed.getOrDefault(bookId, 0L);
+            if (delta > 0) {
+                deltas.put(bookId, delta);
+            }
+        });
+        return deltas;
+    }
+
+    private void saveActivity(Map<String, Long> viewDeltas, Map<String, Long> purchaseDeltas) {
+        Set<String> bookIds = new HashSet<>(viewDeltas.keySet());
+        bookIds.addAll(purchaseDeltas.keySet());
+        Map<String, BookActivity> activities = bookActivityRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(BookActivity::getBookId, Function.identity()));
+        Instant now = Instant.now();
+        List<BookActivity> updatedActivities = new ArrayList<>(bookIds.size());
+        for (String bookId : bookIds) {
+            BookActivity activity = activities.getOrDefault(bookId, new BookActivity(bookId));
+            long viewDelta = viewDeltas.getOrDefault(bookId, 0L);
+            long purchaseDelta = purchaseDeltas.getOrDefault(bookId, 0L);
+            activity.setViewsCount(activity.getViewsCount() + viewDelta);
+            activity.setPurchasesCount(activity.getPurchasesCount() + purchaseDelta);
+            activity.setTrendingScore(decayedScore.add(activity.getTrendingScore(), viewDelta + purchaseDelta * purchaseWeight, now));
+            activity.setLastActivityDate(LocalDateTime.now());
+            updatedActivities.add(activity);
+        }
+        bookActivityRepository.saveAll(updatedActivities);
+    }
+
+    private void refreshSnapshot() {
+        List<String> bookIds = bookActivityRepository.findAllByOrderByTrendingScoreDesc(PageRequest.of(0, snapshotSize * 2)).stream()
+                .map(BookActivity::getBookId)
+                .collect(Collectors.toList());
+        Map<String, Book> booksById = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        trendingSnapshot = bookIds.stream()
+                .map(booksById::get)
+                .filter(book -> Objects.nonNull(book) && Boolean.TRUE.equals(book.getActive()))
+                .limit(snapshotSize)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+}
@@ -3,29 +3,41 @@ package com.radek.bookstore.service.impl;
 import com.radek.bookstore.model.*;
 import com.radek.bookstore.model.dto.AddressDto;
 import com.radek.bookstore.model.dto.UserDto;
+import com.radek.bookstore.model.event.UserChangedEvent;
 import com.radek.bookstore.model.exception.*;
+import com.radek.bookstore.model.response.UserJson;
 import com.radek.bookstore.repository.AddressRepository;
 import com.radek.bookstore.repository.UserRepository;
-import com.radek.bookstore.service.EmailService;
+import com.radek.bookstore.service.CommentService;
+import com.radek.bookstore.service.CurrentUserService;
+import com.radek.bookstore.service.EmailOutbox;
+import com.radek.bookstore.service.LastLoginRecorder;
 import com.radek.bookstore.service.LoginAttemptService;
+import com.radek.bookstore.service.RatingService;
+import com.radek.bookstore.service.RefreshTokenService;
 import com.radek.bookstore.service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import javax.mail.MessagingException;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.radek.bookstore.model.Role.ROLE_USER;
@@ -38,9 +50,9 @@ import static org.springframework.data.domain.Sort.Direction.ASC;
 import static org.springframework.data.domain.Sort.by;
 
 @Service
-@Transactional
+@Transactional(rollbackOn = {UsernameExistsException.class, EmailExistsException.class})
 @Qualifier("userDetailsService")
-public class UserServiceImpl implements UserService, UserDetailsService {
+public class UserServiceImpl implements UserService, UserDetailsService, UserDetailsPasswordService {
 
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
     public static final String EMAIL_ALREADY_HAS_ACCOUNT = "Email already has account: ";
@@ -50,24 +62,42 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     private final String appBaseLink;
     private final UserRepository userRepository;
     private final AddressRepository addressRepository;
-    private final BCryptPasswordEncoder encoder;
+    private final PasswordEncoder encoder;
     private final LoginAttemptService loginAttemptService;
-    private final EmailService emailService;
+    private final EmailOutbox emailOutbox;
+    private final CurrentUserService currentUserService;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final RefreshTokenService refreshTokenService;
+    private final CommentService commentService;
+    private final RatingService ratingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserServiceImpl(@Value("${bookstore.profileImageSource}") String profileImageSource,
                            @Value("${bookstore.appBaseLink}") String appBaseLink,
                            UserRepository userRepository,
                            AddressRepository addressRepository,
-                           BCryptPasswordEncoder encoder,
+                           PasswordEncoder encoder,
                            LoginAttemptService loginAttemptService,
-                           EmailService emailService) {
+                           EmailOutbox emailOutbox,
+                           CurrentUserService currentUserService,
+                           LastLoginRecorder lastLoginRecorder,
+                           RefreshTokenService refreshTokenService,
+                           CommentService commentService,
+                           RatingService ratingService,
+                           ApplicationEventPublisher eventPublisher) {
         this.profileImageSource = profileImageSource;
         this.appBaseLink=appBaseLink;
         this.userRepository = userRepository;
         this.addressRepository = addressRepository;
         this.encoder = encoder;
         this.loginAttemptService = loginAttemptService;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.currentUserService = currentUserService;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.refreshTokenService = refreshTokenService;
+        this.commentService = commentService;
+        this.ratingService = ratingService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -76,23 +106,44 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                 .orElseThrow(
                         () -> new UsernameNotFoundException(
                                 String.format("Username with credentials %s not found", username)));
+        boolean wasNotLocked = user.isNotLocked();
         validateLoginAttempt(user);
-        user.setLastLoginDate(LocalDateTime.now());
-        userRepository.save(user);
+        if(wasNotLocked != user.isNotLocked()) {
+            userRepository.save(user);
+        }
+        lastLoginRecorder.recordLogin(user.getId(), LocalDateTime.now());
         log.info("Returning user found by username: {}", username);
         return new UserPrincipal(user);
     }
 
+    // called by the authentication provider after a successful login when the stored hash uses another cost
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        try {
+            Optional<User> user = userRepository.findByUsernameOrEmail(userDetails.getUsername());
+            if (user.isEmpty()) {
+                return userDetails;
+            }
+            user.get().setPassword(newPassword);
+            User updatedUser = userRepository.save(user.get());
+            currentUserService.evictUser(updatedUser.getUsername(), updatedUser.getEmail());
+            log.info("Rehashed password of user: {}", userDetails.getUsername());
+            return new UserPrincipal(updatedUser);
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during attempt to rehash password of user: %s", userDetails.getUsername()), exc);
+            return userDetails;
+        }
+    }
+
     private void validateLoginAttempt(User user) {
-        String username = user.getUsername()==null ? user.getEmail() : user.getUsername();
         if(user.isNotLocked()) {
-            if(loginAttemptService.exceededMaxAttempts(username)) {
+            if(loginAttemptService.exceededMaxAttempts(user.getId())) {
                 user.setNotLocked(false);
             } else {
                 user.setNotLocked(true);
             }
         } else {
-            loginAttemptService.evictUserFromLoginAttemptCache(username);
+            loginAttemptService.evictUserFromLoginAttemptCache(user.getId());
         }
     }
 
@@ -111,18 +162,19 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public User registerUser(UserDto userDto) throws UsernameExistsException, EmailExistsException, UserNotFoundException {
         try {
             String newUsername = isBlank(userDto.getUsername()) ? userDto.getEmail() : userDto.getUsername();
-            validateNewUsernameAndEmail(EMPTY, newUsername, userDto.getEmail());
+            validateNewUsernameAndEmail(null, newUsername, userDto.getEmail());
             if(isBlank(userDto.getPassword())) {
                 String message = String.format("An error occurred during attempt to register user with email: %s, due to empty password", userDto.getEmail());
                 log.info(message);
                 throw new PasswordNotExistsException(message);
             }
             User user = populateUserToSave(userDto, false, true, ROLE_USER);
-            User savedUser = userRepository.save(user);
-            emailService.sendActivationAccountMessage(savedUser.getFirstName(), generateActivationLink(user.getUserId()), user.getEmail());
+            User savedUser = saveIdentity(user, newUsername, userDto.getEmail());
+            eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
+            emailOutbox.enqueue(EmailType.ACTIVATION, user.getEmail(), savedUser.getFirstName(), generateActivationLink(user.getUserId()), null);
             log.info("New user with email {} successfully registered", savedUser.getEmail());
             return savedUser;
-        } catch(NonTransientDataAccessException | MessagingException | PasswordNotExistsException exc) {
+        } catch(NonTransientDataAccessException | PasswordNotExistsException exc) {
             String message = String.format("An error occurred during attempt to register user with email: %s", userDto.getEmail());
             log.error(message, exc);
             throw new BookStoreServiceException(message, exc);
@@ -130,9 +182,9 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
-    public Page<User> findAllUsers(Integer pageNumber, Integer pageSize) {
+    public Page<UserJson> findAllUsers(Integer pageNumber, Integer pageSize) {
         try {
-            return userRepository.findAll(PageRequest.of(pageNumber, pageSize, by(ASC, "lastName")));
+            return userRepository.findUserJsons(PageRequest.of(pageNumber, pageSize, by(ASC, "lastName")));
         } catch (NonTransientDataAccessException exc) {
             String message = "An error occurred during attempt to extract user's page";
             log.error(message, exc);
@@ -140,6 +192,17 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         }
     }
 
+    @Override
+    public Page<UserJson> findUsersWithoutIdentityKeys(Integer pageNumber, Integer pageSize) {
+        try {
+            return userRepository.findUserJsonsWithoutIdentityKeys(PageRequest.of(pageNumber, pageSize, by(ASC, "email")));
+        } catch (NonTransientDataAccessException exc) {
+            String message = "An error occurred during attempt to extract users without identity keys";
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
     @Override
     public User findUserByUsername(String username) {
         try {
@@ -177,6 +240,34 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         }
     }
 
+    @Override
+    public UserJson findUserJsonByUsernameOrEmail(String username, boolean includeAddress) throws UserNotFoundException {
+        try {
+            Optional<UserJson> userByCredentials = includeAddress
+                    ? userRepository.findUserJsonWithAddressByCredentials(username)
+                    : userRepository.findUserJsonByCredentials(username);
+            return userByCredentials.orElseThrow(() -> new UserNotFoundException(String.format("Cannot find user with username: %s", username)));
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during attempt to extract user by username or email: %s", username);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
+    @Override
+    public UserJson findUserJsonById(String id, boolean includeAddress) throws UserNotFoundException {
+        try {
+            Optional<UserJson> userById = includeAddress
+                    ? userRepository.findUserJsonWithAddressById(id)
+                    : userRepository.findUserJsonById(id);
+            return userById.orElseThrow(() -> new UserNotFoundException(String.format("Cannot find user with id: %s", id)));
+        } catch (NonTransientDataAccessException exc) {
+            String message = String.format("An error occurred during attempt to extract user by id: %s", id);
+            log.error(message, exc);
+            throw new BookStoreServiceException(message, exc);
+        }
+    }
+
     @Override
     public User findUserById(String id) throws UserNotFoundException {
         try {
@@ -196,7 +287,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public User addNewUser(UserDto userDto, String role, boolean isNonLocked, boolean isActive) throws UserNotFoundException, UsernameExistsException, EmailExistsException {
         try {
             String newUsername = isBlank(userDto.getUsername()) ? userDto.getEmail() : userDto.getUsername();
-            validateNewUsernameAndEmail(EMPTY, newUsername, userDto.getEmail());
+            validateNewUsernameAndEmail(null, newUsername, userDto.getEmail());
             Role newUserRole = getRoleEnumName(role);
             User user = populateUserToSave(userDto, isActive, isNonLocked, newUserRole);
             String tempPassword = userDto.getPassword();
@@ -204,11 +295,12 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                 tempPassword = generatePassword();
                 user.setPassword(encoder.encode(tempPassword));
             }
-            User savedUser = userRepository.save(user);
-            emailService.sendAddedNewUserMessage(user.getFirstName(), generateActivationLink(user.getUserId()), tempPassword, user.getEmail());
+            User savedUser = saveIdentity(user, newUsername, userDto.getEmail());
+            eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
+            emailOutbox.enqueue(EmailType.NEW_USER, user.getEmail(), user.getFirstName(), generateActivationLink(user.getUserId()), tempPassword);
             log.info("New user with email {} successfully added to database", savedUser.getEmail());
             return savedUser;
-        } catch (NonTransientDataAccessException | MessagingException exc) {
+        } catch (NonTransientDataAccessException exc) {
             String message = String.format("An error occurred during attempt to add new user with email: %s", userDto.getEmail());
             log.error(message, exc);
             throw new BookStoreServiceException(message, exc);
@@ -226,12 +318,21 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             }
             String newUsername = isBlank(userDto.getUsername()) ? userDto.getEmail() : userDto.getUsername();
             String currentUsername = isBlank(currentUser.getUsername()) ? currentUser.getEmail() : currentUser.getUsername();
-            currentUser = validateNewUsernameAndEmail(currentUsername, newUsername, userDto.getEmail());
+            String currentEmail = currentUser.getEmail();
+            String currentSubject = currentUser.getUsername();
+            String currentRole = currentUser.getRole();
+            validateNewUsernameAndEmail(currentUser.getId(), newUsername, userDto.getEmail());
             Role newRole = getRoleEnumName(role);
-            assert currentUser != null;
             User userToUpdate = populateUserToUpdate(currentUser, userDto, isActive, isNonLocked, newRole);
             log.info("Attempt to update user with email {}", userToUpdate.getEmail());
-            return userRepository.save(userToUpdate);
+            User updatedUser = saveIdentity(userToUpdate, newUsername, userDto.getEmail());
+            eventPublisher.publishEvent(new UserChangedEvent(updatedUser.getId()));
+            currentUserService.evictUser(currentUsername, currentEmail);
+            // issued tokens carry the username and authorities, so they must not outlive a change of either
+            if (!isActive || !isNonLocked || !newRole.name().equals(currentRole) || !Objects.equals(currentSubject, updatedUser.getUsername())) {
+                refreshTokenService.revokeUserTokens(updatedUser.getId(), currentSubject);
+            }
+            return updatedUser;
         } catch (NonTransientDataAccessException exc) {
             String message = String.format("An error occurred during attempt to add new user with email: %s", userDto.getEmail());
             log.error(message, exc);
@@ -247,7 +348,12 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             if(isNull(userToDelete)) {
                 throw new UserNotFoundException(String.format("Cannot find user with username: %s by attempt to delete the user"));
             }
+            commentService.deleteCommentsByUserId(userToDelete.getId());
+            ratingService.deleteRatingsByUserId(userToDelete.getId());
             userRepository.deleteById(userToDelete.getId());
+            eventPublisher.publishEvent(new UserChangedEvent(userToDelete.getId()));
+            currentUserService.evictUser(userToDelete.getUsername(), userToDelete.getEmail());
+            refreshTokenService.revokeUserTokens(userToDelete.getId(), userToDelete.getUsername());
         } catch (NonTransientDataAccessException exc) {
             String message = String.format("An error occurred during attempt to delete user with username: %s", username);
             log.error(message, exc);
@@ -256,15 +362,17 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
-    public void resetPassword(String email, String newPassword) throws UserNotFoundException, MessagingException {
+    public void resetPassword(String email, String newPassword) throws UserNotFoundException {
         User userByEmail = userRepository.findUserByEmailIgnoreCase(email);
         if(userByEmail==null) {
             throw new UserNotFoundException("No user found by email: "+email);
         }
         userByEmail.setPassword(encoder.encode(newPassword));
         userByEmail.setActive(false);
-        emailService.resetPasswordMessage(userByEmail.getFirstName(), generateActivationLink(userByEmail.getUserId()), userByEmail.getEmail());
         userRepository.save(userByEmail);
+        emailOutbox.enqueue(EmailType.RESET_PASSWORD, userByEmail.getEmail(), userByEmail.getFirstName(), generateActivationLink(userByEmail.getUserId()), null);
+        currentUserService.evictUser(userByEmail.getUsername(), userByEmail.getEmail());
+        refreshTokenService.revokeUserTokens(userByEmail.getId(), userByEmail.getUsername());
     }
 
     @Override
@@ -279,18 +387,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         }
         user.setActive(true);
         userRepository.save(user);
-    }
-
-    @Override
-    public Page<User> findUserByKeyword(String keyword, Integer pageNumber, Integer pageSize) {
-        try {
-            Pageable pageable = PageRequest.of(pageNumber, pageSize);
-            return userRepository.findUserByKeyword(keyword, pageable);
-        } catch (NonTransientDataAccessException exc) {
-            String message = "An error occurred during attempt to find user by keyword.";
-            log.error(message, exc);
-            throw new BookStoreServiceException(message, exc);
-        }
+        currentUserService.evictUser(user.getUsername(), user.getEmail());
     }
 
     private String generateUserId() {
@@ -336,29 +433,58 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         return currentUser;
     }
 
-    private User validateNewUsernameAndEmail(String currentUsername, String newUsername, String email) throws UsernameExistsException, EmailExistsException, UserNotFoundException {
-        if(isNotBlank(currentUsername)) {
-            User currentUser = userRepository.findUserByCredentials(currentUsername);
-            if(currentUser == null) {
-                throw new UserNotFoundException("No username found by username: "+currentUsername);
+    private void validateNewUsernameAndEmail(String currentUserId, String newUsername, String email) throws UsernameExistsException, EmailExistsException {
+        String loginKey = User.identityKey(newUsername);
+        String emailKey = User.identityKey(email);
+        for (User conflictingUser : userRepository.findIdentityConflicts(loginKey, emailKey)) {
+            if (conflictingUser.getId().equals(currentUserId)) {
+                continue;
             }
-            User userByUsername = findUserByUsername(newUsername);
-            if(userByUsername!=null && !currentUser.getId().equals(userByUsername.getId())) {
+            if (Objects.equals(conflictingUser.getLoginKey(), loginKey) || Objects.equals(conflictingUser.getEmailKey(), loginKey)) {
                 throw new UsernameExistsException(USERNAME_ALREADY_TAKEN+newUsername);
             }
-            User userByEmail = findUserByEmail(email);
-            if(userByEmail!=null && !currentUser.getId().equals(userByEmail.getId())) {
-                throw new EmailExistsException(EMAIL_ALREADY_HAS_ACCOUNT+email);
-            }
-            return currentUser;
-        } else {
-            if(userRepository.existsByUsername(newUsername)) {
-                throw new UsernameExistsException(USERNAME_ALREADY_TAKEN+newUsername);
+            throw new EmailExistsException(EMAIL_ALREADY_HAS_ACCOUNT+email);
+        }
+    }
+
+    // the unique keys settle concurrent signups the check above cannot see
+    private User saveIdentity(User user, String username, String email) throws UsernameExistsException, EmailExistsException {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException exc) {
+            String constraintName = exc.getCause() instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) exc.getCause()).getConstraintName()
+                    : null;
+            if (containsIgnoreCase(constraintName, User.LOGIN_KEY_CONSTRAINT)) {
+                throw new UsernameExistsException(USERNAME_ALREADY_TAKEN+username);
             }
-            if(userRepository.existsByEmail(email)) {
+            if (containsIgnoreCase(constraintName, User.EMAIL_KEY_CONSTRAINT) || violatesLegacyEmailConstraint(exc)) {
                 throw new EmailExistsException(EMAIL_ALREADY_HAS_ACCOUNT+email);
             }
-            return null;
+            throw exc;
+        }
+    }
+
+    // the unique constraint on the raw email column is named by Hibernate, so it is recognised by the column
+    // the database reports ("(email)" on PostgreSQL, "(EMAIL)" on H2)
+    private boolean violatesLegacyEmailConstraint(DataIntegrityViolationException exc) {
+        String message = exc.getMostSpecificCause().getMessage();
+        return containsIgnoreCase(message, "(email)");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIdentityKeys() {
+        try {
+            int loginKeys = userRepository.backfillLoginKeys();
+            int emailKeys = userRepository.backfillEmailKeys();
+            log.info("Backfilled {} login keys and {} email keys", loginKeys, emailKeys);
+            long usersWithoutKeys = userRepository.countByLoginKeyIsNullOrEmailKeyIsNull();
+            if (usersWithoutKeys > 0) {
+                log.warn("{} users share a username or email differing only by case and sign in only with its exact spelling " +
+                        "until it is changed, they are listed by GET /api/users/identity-conflicts", usersWithoutKeys);
+            }
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during backfilling identity keys", exc);
         }
     }
 
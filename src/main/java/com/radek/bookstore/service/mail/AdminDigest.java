@@ -0,0 +1,164 @@
+package com.radek.bookstore.service.mail;
+
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.radek.bookstore.utils.constants.EmailConstants.*;
+
+/**
+ * Keeps the admin informed about outbound mail without copying them on each one. Every sent mail is recorded
+ * in memory and the records are mailed to the admins as one summary per interval, or as soon as max-entries of
+ * them are waiting. A summary which could not be sent is carried over to the next one; beyond ten summaries
+ * worth of entries the oldest are dropped and only counted. The summary goes to ADMIN_EMAIL unless
+ * bookstore.mail.digest.recipients lists other admins; nothing is recorded when that list is set blank.
+ */
+@Service
+public class AdminDigest {
+
+    private final static Logger log = LoggerFactory.getLogger(AdminDigest.class);
+    private final static DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SmtpTransportPool transportPool;
+    private final MailTemplateRenderer templateRenderer;
+    private final List<String> recipients;
+    private final int maxEntries;
+    private final Executor flushExecutor;
+    private final Queue<DigestEntry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedEntries = new AtomicInteger();
+    private final List<DigestEntry> unsentEntries = new ArrayList<>();
+    private int droppedEntries;
+    private LocalDateTime periodStart = LocalDateTime.now();
+
+    @Autowired
+    public AdminDigest(SmtpTransportPool transportPool,
+                       MailTemplateRenderer templateRenderer,
+                       @Value("${bookstore.mail.digest.recipients:" + ADMIN_EMAIL + "}") String recipients,
+                       @Value("${bookstore.mail.digest.max-entries:200}") int maxEntries) {
+        this(transportPool, templateRenderer, recipients, maxEntries, Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("admin-digest-%d").setDaemon(true).build()));
+    }
+
+    AdminDigest(SmtpTransportPool transportPool, MailTemplateRenderer templateRenderer, String recipients,
+                int maxEntries, Executor flushExecutor) {
+        this.transportPool = transportPool;
+        this.templateRenderer = templateRenderer;
+        this.recipients = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(recipients);
+        this.maxEntries = maxEntries;
+        this.flushExecutor = flushExecutor;
+    }
+
+    public void record(String subject, String recipient) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        entries.add(new DigestEntry(LocalDateTime.now(), subject, recipient));
+        if (bufferedEntries.incrementAndGet() == maxEntries) {
+            // the sender does not wait for the summary
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    List<String> getRecipients() {
+        return recipients;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.mail.digest.interval-ms:3600000}")
+    public synchronized void flush() {
+        DigestEntry entry;
+        while (Objects.nonNull(entry = entries.poll())) {
+            bufferedEntries.decrementAndGet();
+            unsentEntries.add(entry);
+        }
+        if (unsentEntries.isEmpty()) {
+            return;
+        }
+        LocalDateTime periodEnd = LocalDateTime.now();
+        try {
+            transportPool.sendAll(createDigests(periodEnd));
+            unsentEntries.clear();
+            droppedEntries = 0;
+            periodStart = periodEnd;
+        } catch (MessagingException | RuntimeException exc) {
+            log.error(String.format("An error occurred during sending admin digest of %d emails", unsentEntries.size()), exc);
+            int overflow = unsentEntries.size() - 10 * maxEntries;
+            if (overflow > 0) {
+                unsentEntries.subList(0, overflow).clear();
+                droppedEntries += overflow;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (flushExecutor instanceof ExecutorService) {
+            ((ExecutorService) flushExecutor).shutdownNow();
+        }
+    }
+
+    private List<Message> createDigests(LocalDateTime periodEnd) throws MessagingException {
+        Map<String, Long> countsBySubject = unsentEntries.stream()
+                .collect(Collectors.groupingBy(DigestEntry::getSubject, TreeMap::new, Collectors.counting()));
+        List<Message> digests = new ArrayList<>(recipients.size());
+        List<MessagingException> failures = new ArrayList<>();
+        templateRenderer.renderAll(MailTemplateRenderer.ADMIN_DIGEST, recipients,
+                (recipient, context) -> {
+                    context.setVariable("timeFormat", TIME_FORMAT);
+                    context.setVariable("periodStart", periodStart);
+                    context.setVariable("periodEnd", periodEnd);
+                    context.setVariable("countsBySubject", countsBySubject);
+                    context.setVariable("entries", unsentEntries);
+                    context.setVariable("droppedEntries", droppedEntries);
+                },
+                (recipient, html) -> {
+                    try {
+                        digests.add(createMessage(recipient, html.toString()));
+                    } catch (MessagingException exc) {
+                        failures.add(exc);
+                    }
+                });
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return digests;
+    }
+
+    private MimeMessage createMessage(String recipient, String html) throws MessagingException {
+        MimeMessage message = new MimeMessage(transportPool.getSession());
+        message.setFrom(new InternetAddress(FROM_EMAIL));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(recipient, false));
+        message.setSubject(ADMIN_DIGEST_SUBJECT);
+        message.setSentDate(new Date());
+        message.setText(html, StandardCharsets.UTF_8.name(), "html");
+        return message;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DigestEntry {
+        private final LocalDateTime sentAt;
+        private final String subject;
+        private final String recipient;
+    }
+}
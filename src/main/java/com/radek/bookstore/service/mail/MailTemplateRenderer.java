@@ -0,0 +1,79 @@
+package com.radek.bookstore.service.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateEngineException;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Renders every outbound mail from the templates in resources/mail-templates. The engine keeps templates parsed
+ * in its cache, and all of them are rendered once at startup so the first mail does not pay for parsing.
+ * Bulk mail is rendered with {@link #renderAll}, which reuses a single context and output buffer for every
+ * recipient.
+ */
+@Service
+public class MailTemplateRenderer {
+
+    public static final String ACCOUNT_ACTIVATION = "account-activation";
+    public static final String NEW_USER = "new-user";
+    public static final String RESET_PASSWORD = "reset-password";
+    public static final String ORDER_SUMMARY = "order-summary";
+    public static final String ADMIN_DIGEST = "admin-digest";
+
+    private final static Logger log = LoggerFactory.getLogger(MailTemplateRenderer.class);
+    private final static List<String> TEMPLATES = Arrays.asList(ACCOUNT_ACTIVATION, NEW_USER, RESET_PASSWORD, ORDER_SUMMARY, ADMIN_DIGEST);
+
+    private final ITemplateEngine templateEngine;
+
+    public MailTemplateRenderer(ITemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    public String render(String templateName, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(templateName, context);
+    }
+
+    /**
+     * Renders the template for each recipient and hands the result to the consumer before the next one is
+     * rendered. The html passed to the consumer is only valid until it returns.
+     */
+    public <T> void renderAll(String templateName, Iterable<T> recipients, BiConsumer<T, Context> variables,
+                              BiConsumer<T, CharSequence> consumer) {
+        TemplateSpec templateSpec = new TemplateSpec(templateName, (String) null);
+        Context context = new Context();
+        StringWriter html = new StringWriter(4096);
+        for (T recipient : recipients) {
+            context.clearVariables();
+            variables.accept(recipient, context);
+            html.getBuffer().setLength(0);
+            templateEngine.process(templateSpec, context, html);
+            consumer.accept(recipient, html.getBuffer());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        for (String templateName : TEMPLATES) {
+            try {
+                templateEngine.process(templateName, new Context());
+            } catch (TemplateEngineException exc) {
+                log.error(String.format("An error occurred during parsing mail template: %s", templateName), exc);
+            }
+        }
+        log.info("Parsed {} mail templates in {} ms", TEMPLATES.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,166 @@
+package com.radek.bookstore.service.mail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed number of authenticated SMTP connections shared by every sender, so a mail costs one SMTP dialogue
+ * instead of a new TCP, STARTTLS and AUTH handshake. Connections are opened lazily, checked with a NOOP when
+ * they have been idle for a while and reopened when the server has dropped them or they have been idle longer
+ * than servers usually keep them. A connection which failed to send is closed and reopened for the next mail.
+ */
+public class SmtpTransportPool implements AutoCloseable {
+
+    private final static Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final Session session;
+    private final BlockingDeque<PooledTransport> connections;
+    private final long validateAfterIdleNanos;
+    private final long maxIdleNanos;
+    private final long borrowTimeoutMs;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean closed;
+
+    public SmtpTransportPool(Session session, int size, long validateAfterIdleMs, long maxIdleMs, long borrowTimeoutMs,
+                             MeterRegistry meterRegistry) {
+        this.session = session;
+        this.connections = new LinkedBlockingDeque<>(size);
+        for (int i = 0; i < size; i++) {
+            connections.add(new PooledTransport());
+        }
+        this.validateAfterIdleNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterIdleMs);
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMs);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public void send(Message message) throws MessagingException {
+        sendAll(Collections.singletonList(message));
+    }
+
+    /**
+     * Sends the messages one after another over a single connection.
+     */
+    public void sendAll(List<? extends Message> messages) throws MessagingException {
+        PooledTransport connection = borrow();
+        try {
+            for (Message message : messages) {
+                send(connection, message);
+            }
+        } finally {
+            release(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledTransport connection;
+        while (Objects.nonNull(connection = connections.poll())) {
+            connection.close();
+        }
+    }
+
+    private void send(PooledTransport connection, Message message) throws MessagingException {
+        message.saveChanges();
+        connect(connection);
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            connection.transport.sendMessage(message, message.getAllRecipients());
+        } catch (SendFailedException exc) {
+            // rejected recipients leave the connection usable, unless the server hung up along with the rejection
+            outcome = "rejected";
+            if (!connection.transport.isConnected()) {
+                connection.close();
+            }
+            throw exc;
+        } catch (MessagingException exc) {
+            outcome = "failure";
+            connection.close();
+            throw exc;
+        } finally {
+            connection.lastUsed = System.nanoTime();
+            Timer.builder("bookstore.mail.smtp.send")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(connection.lastUsed - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void connect(PooledTransport connection) throws MessagingException {
+        if (Objects.nonNull(connection.transport)) {
+            long idle = System.nanoTime() - connection.lastUsed;
+            if (idle > maxIdleNanos) {
+                connection.close();
+            } else if (idle > validateAfterIdleNanos && !connection.transport.isConnected()) {
+                // the NOOP failed, the server has dropped the connection
+                meterRegistry.counter("bookstore.mail.smtp.health-checks.failed").increment();
+                connection.close();
+            } else {
+                meterRegistry.counter("bookstore.mail.smtp.connections.reused").increment();
+                return;
+            }
+        }
+        Transport transport = session.getTransport("smtp");
+        transport.connect();
+        connection.transport = transport;
+        meterRegistry.counter("bookstore.mail.smtp.connections.opened").increment();
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        if (closed) {
+            throw new MessagingException("SMTP connection pool is closed");
+        }
+        try {
+            PooledTransport connection = connections.pollFirst(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+            if (Objects.isNull(connection)) {
+                throw new MessagingException(String.format("No SMTP connection available within %d ms", borrowTimeoutMs));
+            }
+            return connection;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for SMTP connection", exc);
+        }
+    }
+
+    private void release(PooledTransport connection) {
+        if (closed) {
+            connection.close();
+            return;
+        }
+        // the most recently used connection is handed out first, so spare ones stay closed under light load
+        connections.offerFirst(connection);
+    }
+
+    private static class PooledTransport {
+        private Transport transport;
+        private long lastUsed;
+
+        private void close() {
+            if (Objects.isNull(transport)) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException exc) {
+                log.debug("Closing SMTP connection failed: {}", exc.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.radek.bookstore.service.ranking;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Exponentially decayed activity score kept in log space. Instead of decaying every stored score on each
+ * flush, a new event of weight w at time t adds w * e^(lambda * (t - EPOCH)); all scores then share the
+ * same e^(-lambda * (now - EPOCH)) factor, so comparing them ranks by decayed activity. Storing the
+ * logarithm and adding with log-sum-exp keeps the growing exponent from overflowing.
+ */
+public final class DecayedScore {
+
+    public static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+    private final double decayPerSecond;
+
+    public DecayedScore(Duration halfLife) {
+        this.decayPerSecond = Math.log(2) / halfLife.getSeconds();
+    }
+
+    public double add(Double logScore, double weight, Instant at) {
+        double logIncrement = Math.log(weight) + decayPerSecond * Duration.between(EPOCH, at).getSeconds();
+        if (Objects.isNull(logScore)) {
+            return logIncrement;
+        }
+        double max = Math.max(logScore, logIncrement);
+        double min = Math.min(logScore, logIncrement);
+        return max + Math.log1p(Math.exp(min - max));
+    }
+}
@@ -0,0 +1,14 @@
+package com.radek.bookstore.service.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RatingTotals {
+
+    private final String bookId;
+    private final Integer ratingsCount;
+    private final Integer ratingsSum;
+    private final Double ratingScore;
+}
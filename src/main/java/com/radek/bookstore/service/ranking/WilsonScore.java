@@ -0,0 +1,27 @@
+package com.radek.bookstore.service.ranking;
+
+/**
+ * Lower bound of the Wilson score interval for star ratings. Votes 1..5 are rescaled to 0..1, so a book
+ * needs both a high average and enough votes to rank high; a single 5-star vote scores about 0.21.
+ */
+public final class WilsonScore {
+
+    private static final int MIN_VOTE = 1;
+    private static final int MAX_VOTE = 5;
+    private static final double Z = 1.96;
+
+    private WilsonScore() {
+    }
+
+    public static double lowerBound(int ratingsCount, int ratingsSum) {
+        if (ratingsCount <= 0) {
+            return 0.0;
+        }
+        double n = ratingsCount;
+        double positive = (ratingsSum - n * MIN_VOTE) / (MAX_VOTE - MIN_VOTE) / n;
+        double zSquared = Z * Z;
+        double centre = positive + zSquared / (2 * n);
+        double margin = Z * Math.sqrt((positive * (1 - positive) + zSquared / (4 * n)) / n);
+        return Math.max(0.0, (centre - margin) / (1 + zSquared / n));
+    }
+}
@@ -0,0 +1,123 @@
+package com.radek.bookstore.service.recommendation;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes cosine similarity between the given books and every book co-rated with them, keeping only the
+ * top N neighbours of each. Each task writes to disjoint slots of the result arrays, so no synchronisation
+ * is needed beyond the join.
+ */
+public final class ItemSimilarityTask extends RecursiveAction {
+
+    private static final int LEAF_SIZE = 64;
+
+    private final RatingMatrix matrix;
+    private final int[] books;
+    private final int from;
+    private final int to;
+    private final int neighbourCount;
+    private final int[][] neighbours;
+    private final float[][] scores;
+
+    public ItemSimilarityTask(RatingMatrix matrix, int[] books, int neighbourCount, int[][] neighbours, float[][] scores) {
+        this(matrix, books, 0, books.length, validNeighbourCount(neighbourCount), neighbours, scores);
+    }
+
+    public static int validNeighbourCount(int neighbourCount) {
+        if (neighbourCount < 1) {
+            throw new IllegalArgumentException(String.format("Neighbour count must be at least 1, was %d", neighbourCount));
+        }
+        return neighbourCount;
+    }
+
+    private ItemSimilarityTask(RatingMatrix matrix, int[] books, int from, int to, int neighbourCount,
+                               int[][] neighbours, float[][] scores) {
+        this.matrix = matrix;
+        this.books = books;
+        this.from = from;
+        this.to = to;
+        this.neighbourCount = neighbourCount;
+        this.neighbours = neighbours;
+        this.scores = scores;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= LEAF_SIZE) {
+            computeLeaf();
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new ItemSimilarityTask(matrix, books, from, middle, neighbourCount, neighbours, scores),
+                new ItemSimilarityTask(matrix, books, middle, to, neighbourCount, neighbours, scores));
+    }
+
+    private void computeLeaf() {
+        int[] bookOffsets = matrix.bookOffsets();
+        int[] bookUsers = matrix.bookUsers();
+        float[] bookVotes = matrix.bookVotes();
+        float[] norms = matrix.bookNorms();
+        int[] userOffsets = matrix.userOffsets();
+        int[] userBooks = matrix.userBooks();
+        float[] userVotes = matrix.userVotes();
+
+        float[] dotProducts = new float[matrix.bookCount()];
+        // a dot product can be zero or cancel out to zero, so it cannot tell whether a book was already touched
+        boolean[] isTouched = new boolean[matrix.bookCount()];
+        int[] touched = new int[matrix.bookCount()];
+        int[] topBooks = new int[neighbourCount];
+        float[] topScores = new float[neighbourCount];
+
+        for (int position = from; position < to; position++) {
+            int book = books[position];
+            int touchedCount = 0;
+            for (int i = bookOffsets[book]; i < bookOffsets[book + 1]; i++) {
+                int user = bookUsers[i];
+                float vote = bookVotes[i];
+                for (int j = userOffsets[user]; j < userOffsets[user + 1]; j++) {
+                    int other = userBooks[j];
+                    if (other == book) {
+                        continue;
+                    }
+                    if (!isTouched[other]) {
+                        isTouched[other] = true;
+                        touched[touchedCount++] = other;
+                    }
+                    dotProducts[other] += vote * userVotes[j];
+                }
+            }
+
+            int size = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float similarity = dotProducts[other] / (norms[book] * norms[other]);
+                dotProducts[other] = 0f;
+                isTouched[other] = false;
+                size = insert(topBooks, topScores, size, other, similarity);
+            }
+            neighbours[book] = Arrays.copyOf(topBooks, size);
+            scores[book] = Arrays.copyOf(topScores, size);
+        }
+    }
+
+    // keeps topScores sorted descending, ties broken by the lower book index so results are deterministic
+    private int insert(int[] topBooks, float[] topScores, int size, int book, float score) {
+        if (size == neighbourCount && !ranksBefore(score, book, topScores[size - 1], topBooks[size - 1])) {
+            return size;
+        }
+        int slot = size == neighbourCount ? size - 1 : size;
+        while (slot > 0 && ranksBefore(score, book, topScores[slot - 1], topBooks[slot - 1])) {
+            topScores[slot] = topScores[slot - 1];
+            topBooks[slot] = topBooks[slot - 1];
+            slot--;
+        }
+        topScores[slot] = score;
+        topBooks[slot] = book;
+        return Math.min(size + 1, neighbourCount);
+    }
+
+    private static boolean ranksBefore(float score, int book, float otherScore, int otherBook) {
+        return score > otherScore || (score == otherScore && book < otherBook);
+    }
+}
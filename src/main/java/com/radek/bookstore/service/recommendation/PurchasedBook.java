@@ -0,0 +1,12 @@
+package com.radek.bookstore.service.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PurchasedBook {
+
+    private final String orderId;
+    private final String bookId;
+}
@@ -0,0 +1,153 @@
+package com.radek.bookstore.service.recommendation;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable user x book vote matrix kept twice in compressed sparse row form: once indexed by book
+ * (book -> users who rated it) and once by user (user -> books they rated). Books and users are mapped
+ * to dense int indexes, so the similarity computation works on primitive arrays only.
+ */
+public final class RatingMatrix {
+
+    private final String[] bookIds;
+    private final Map<String, Integer> bookIndexes;
+
+    private final int[] bookOffsets;
+    private final int[] bookUsers;
+    private final float[] bookVotes;
+    private final float[] bookNorms;
+
+    private final int[] userOffsets;
+    private final int[] userBooks;
+    private final float[] userVotes;
+
+    private RatingMatrix(String[] bookIds, Map<String, Integer> bookIndexes,
+                         int[] bookOffsets, int[] bookUsers, float[] bookVotes, float[] bookNorms,
+                         int[] userOffsets, int[] userBooks, float[] userVotes) {
+        this.bookIds = bookIds;
+        this.bookIndexes = bookIndexes;
+        this.bookOffsets = bookOffsets;
+        this.bookUsers = bookUsers;
+        this.bookVotes = bookVotes;
+        this.bookNorms = bookNorms;
+        this.userOffsets = userOffsets;
+        this.userBooks = userBooks;
+        this.userVotes = userVotes;
+    }
+
+    public static RatingMatrix from(Collection<RatingVote> votes) {
+        int size = votes.size();
+        Map<String, Integer> bookIndexes = new HashMap<>();
+        Map<String, Integer> userIndexes = new HashMap<>();
+        int[] voteBooks = new int[size];
+        int[] voteUsers = new int[size];
+        float[] voteValues = new float[size];
+
+        int position = 0;
+        for (RatingVote vote : votes) {
+            voteBooks[position] = bookIndexes.computeIfAbsent(vote.getBookId(), id -> bookIndexes.size());
+            voteUsers[position] = userIndexes.computeIfAbsent(vote.getUserId(), id -> userIndexes.size());
+            voteValues[position] = vote.getVote();
+            position++;
+        }
+
+        String[] bookIds = new String[bookIndexes.size()];
+        bookIndexes.forEach((id, index) -> bookIds[index] = id);
+
+        int[] bookOffsets = offsets(voteBooks, bookIds.length);
+        int[] userOffsets = offsets(voteUsers, userIndexes.size());
+        int[] bookUsers = new int[size];
+        float[] bookVotes = new float[size];
+        int[] userBooks = new int[size];
+        float[] userVotes = new float[size];
+        int[] bookCursor = bookOffsets.clone();
+        int[] userCursor = userOffsets.clone();
+        float[] bookNorms = new float[bookIds.length];
+
+        for (int i = 0; i < size; i++) {
+            int book = voteBooks[i];
+            int user = voteUsers[i];
+            int bookSlot = bookCursor[book]++;
+            bookUsers[bookSlot] = user;
+            bookVotes[bookSlot] = voteValues[i];
+            int userSlot = userCursor[user]++;
+            userBooks[userSlot] = book;
+            userVotes[userSlot] = voteValues[i];
+            bookNorms[book] += voteValues[i] * voteValues[i];
+        }
+        for (int book = 0; book < bookNorms.length; book++) {
+            bookNorms[book] = (float) Math.sqrt(bookNorms[book]);
+        }
+
+        return new RatingMatrix(bookIds, bookIndexes, bookOffsets, bookUsers, bookVotes, bookNorms,
+                userOffsets, userBooks, userVotes);
+    }
+
+    private static int[] offsets(int[] rows, int rowCount) {
+        int[] offsets = new int[rowCount + 1];
+        for (int row : rows) {
+            offsets[row + 1]++;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        return offsets;
+    }
+
+    public int bookCount() {
+        return bookIds.length;
+    }
+
+    public String bookId(int book) {
+        return bookIds[book];
+    }
+
+    /**
+     * @return dense index of the book or -1 when nobody has rated it
+     */
+    public int bookIndex(String bookId) {
+        return bookIndexes.getOrDefault(bookId, -1);
+    }
+
+    public void forEachCoRatedBook(int book, IntConsumer action) {
+        for (int i = bookOffsets[book]; i < bookOffsets[book + 1]; i++) {
+            int user = bookUsers[i];
+            for (int j = userOffsets[user]; j < userOffsets[user + 1]; j++) {
+                if (userBooks[j] != book) {
+                    action.accept(userBooks[j]);
+                }
+            }
+        }
+    }
+
+    int[] bookOffsets() {
+        return bookOffsets;
+    }
+
+    int[] bookUsers() {
+        return bookUsers;
+    }
+
+    float[] bookVotes() {
+        return bookVotes;
+    }
+
+    float[] bookNorms() {
+        return bookNorms;
+    }
+
+    int[] userOffsets() {
+        return userOffsets;
+    }
+
+    int[] userBooks() {
+        return userBooks;
+    }
+
+    float[] userVotes() {
+        return userVotes;
+    }
+}
@@ -0,0 +1,13 @@
+package com.radek.bookstore.service.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RatingVote {
+
+    private final String userId;
+    private final String bookId;
+    private final Integer vote;
+}
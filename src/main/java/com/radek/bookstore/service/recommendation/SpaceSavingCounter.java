@@ -0,0 +1,73 @@
+package com.radek.bookstore.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded approximate top-K counter using the Space-Saving algorithm. When all slots are taken a new item
+ * replaces the least frequent one and inherits its count, so heavy hitters are never evicted and memory
+ * stays fixed at the configured capacity.
+ */
+public final class SpaceSavingCounter {
+
+    private final String[] items;
+    private final long[] counts;
+    private final Map<String, Integer> slots;
+    private int size;
+
+    public SpaceSavingCounter(int capacity) {
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String item) {
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot]++;
+            return;
+        }
+        if (size < items.length) {
+            items[size] = item;
+            counts[size] = 1;
+            slots.put(item, size++);
+            return;
+        }
+        int minimum = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[minimum]) {
+                minimum = i;
+            }
+        }
+        slots.remove(items[minimum]);
+        items[minimum] = item;
+        counts[minimum]++;
+        slots.put(item, minimum);
+    }
+
+    public synchronized long count(String item) {
+        Integer slot = slots.get(item);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    /**
+     * @return at most limit items ordered by descending estimated count
+     */
+    public synchronized List<String> top(int limit) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> counts[first] != counts[second]
+                ? Long.compare(counts[second], counts[first])
+                : items[first].compareTo(items[second]));
+        List<String> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < order.length && i < limit; i++) {
+            top.add(items[order[i]]);
+        }
+        return top;
+    }
+}
@@ -0,0 +1,224 @@
+package com.radek.bookstore.service.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over a few text fields per document, matched case and accent insensitively.
+ * Documents get ordinals in insertion order and every trigram keeps the ordinals of documents containing it,
+ * so a query only visits documents sharing at least one trigram with the keyword. Removed documents leave
+ * stale ordinals behind, which are skipped and dropped by compaction once they outnumber live documents.
+ *
+ * <p>Matches are ranked by how the keyword occurs in the best field: equal, prefix, substring or only fuzzy,
+ * and within each group by the share of keyword trigrams found, with ties broken by document id.
+ */
+public class TrigramIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_REMOVED_TO_COMPACT = 1024;
+
+    private final double minSimilarity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int removed;
+
+    public TrigramIndex(double minSimilarity) {
+        this.minSimilarity = minSimilarity;
+    }
+
+    public void put(String id, String... fields) {
+        String[] normalizedFields = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalizedFields[i] = Objects.isNull(fields[i]) ? "" : normalize(fields[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            addDocument(new Document(id, normalizedFields));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit best matches ranked after the given score and id, or from the top when afterId is null.
+     */
+    public List<Match> search(String keyword, double afterScore, String afterId, int limit) {
+        String query = normalize(keyword).trim();
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Comparator<Match> ranking = Comparator.comparingDouble(Match::getScore).reversed().thenComparing(Match::getId);
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        lock.readLock().lock();
+        try {
+            long[] trigrams = distinctTrigrams(query);
+            if (trigrams.length == 0) {
+                // too short for a trigram, so every document is checked for the substring
+                for (Document document : documents) {
+                    int occurrence = Objects.isNull(document) ? 0 : occurrence(document, query);
+                    if (occurrence > 0) {
+                        offer(best, new Match(document.id, occurrence + 1.0), afterScore, afterId, limit, ranking);
+                    }
+                }
+            } else {
+                int[] hits = new int[documents.size()];
+                for (long trigram : trigrams) {
+                    Postings trigramPostings = postings.get(trigram);
+                    if (Objects.nonNull(trigramPostings)) {
+                        for (int i = 0; i < trigramPostings.size; i++) {
+                            hits[trigramPostings.ordinals[i]]++;
+                        }
+                    }
+                }
+                for (int ordinal = 0; ordinal < hits.length; ordinal++) {
+                    double similarity = (double) hits[ordinal] / trigrams.length;
+                    Document document = documents.get(ordinal);
+                    if (hits[ordinal] > 0 && similarity >= minSimilarity && Objects.nonNull(document)) {
+                        offer(best, new Match(document.id, occurrence(document, query) + similarity), afterScore, afterId, limit, ranking);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(ranking);
+        return matches;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, double afterScore, String afterId,
+                              int limit, Comparator<Match> ranking) {
+        if (Objects.nonNull(afterId) && ranking.compare(match, new Match(afterId, afterScore)) <= 0) {
+            return;
+        }
+        best.offer(match);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    // 3 when a field equals the keyword, 2 when it starts with it, 1 when it contains it, 0 otherwise
+    private static int occurrence(Document document, String query) {
+        int occurrence = 0;
+        for (String field : document.fields) {
+            if (field.equals(query)) {
+                return 3;
+            } else if (field.startsWith(query)) {
+                occurrence = 2;
+            } else if (occurrence == 0 && field.contains(query)) {
+                occurrence = 1;
+            }
+        }
+        return occurrence;
+    }
+
+    private void addDocument(Document document) {
+        int ordinal = documents.size();
+        documents.add(document);
+        ordinalsById.put(document.id, ordinal);
+        Set<Long> documentTrigrams = new HashSet<>();
+        for (String field : document.fields) {
+            for (long trigram : distinctTrigrams(field)) {
+                documentTrigrams.add(trigram);
+            }
+        }
+        for (Long trigram : documentTrigrams) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(ordinal);
+        }
+    }
+
+    private void removeDocument(String id) {
+        Integer ordinal = ordinalsById.remove(id);
+        if (Objects.nonNull(ordinal)) {
+            documents.set(ordinal, null);
+            removed++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (removed < MIN_REMOVED_TO_COMPACT || removed <= ordinalsById.size()) {
+            return;
+        }
+        List<Document> liveDocuments = new ArrayList<>(ordinalsById.size());
+        for (Document document : documents) {
+            if (Objects.nonNull(document)) {
+                liveDocuments.add(document);
+            }
+        }
+        documents.clear();
+        ordinalsById.clear();
+        postings.clear();
+        removed = 0;
+        liveDocuments.forEach(this::addDocument);
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] distinctTrigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+        private final String id;
+        private final double score;
+    }
+
+    @AllArgsConstructor
+    private static class Document {
+        private final String id;
+        private final String[] fields;
+    }
+
+    private static class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
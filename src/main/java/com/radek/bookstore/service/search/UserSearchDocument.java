@@ -0,0 +1,15 @@
+package com.radek.bookstore.service.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserSearchDocument {
+
+    private final String id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final String username;
+}
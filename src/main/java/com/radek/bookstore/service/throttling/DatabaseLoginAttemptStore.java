@@ -0,0 +1,76 @@
+package com.radek.bookstore.service.throttling;
+
+import com.radek.bookstore.model.LoginAttempt;
+import com.radek.bookstore.repository.LoginAttemptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps login attempts in the database so every node of the application throttles on the same counts.
+ * If the database cannot be reached the attempts are let through rather than locking everybody out.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.security.login-attempts.store", havingValue = "database")
+public class DatabaseLoginAttemptStore implements LoginAttemptStore {
+
+    private final static Logger log = LoggerFactory.getLogger(DatabaseLoginAttemptStore.class);
+
+    private final LoginAttemptRepository loginAttemptRepository;
+    private final long windowMinutes;
+
+    public DatabaseLoginAttemptStore(LoginAttemptRepository loginAttemptRepository,
+                                     @Value("${bookstore.security.login-attempts.window-minutes:15}") long windowMinutes) {
+        this.loginAttemptRepository = loginAttemptRepository;
+        this.windowMinutes = windowMinutes;
+    }
+
+    @Override
+    public int recordAttempt(String key) {
+        try {
+            loginAttemptRepository.save(new LoginAttempt(key, LocalDateTime.now()));
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during recording login attempt for key: %s", key), exc);
+        }
+        return countAttempts(key);
+    }
+
+    @Override
+    public int countAttempts(String key) {
+        try {
+            return loginAttemptRepository.countByAttemptKeyAndAttemptedAtAfter(key, windowStart());
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during counting login attempts for key: %s", key), exc);
+            return 0;
+        }
+    }
+
+    @Override
+    public void clearAttempts(String key) {
+        try {
+            loginAttemptRepository.deleteByAttemptKey(key);
+        } catch (NonTransientDataAccessException exc) {
+            log.error(String.format("An error occurred during clearing login attempts for key: %s", key), exc);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.security.login-attempts.purge-interval-ms:60000}")
+    public void purgeExpiredAttempts() {
+        try {
+            int purged = loginAttemptRepository.deleteByAttemptedAtBefore(windowStart());
+            log.debug("Purged {} expired login attempts", purged);
+        } catch (NonTransientDataAccessException exc) {
+            log.error("An error occurred during purging expired login attempts", exc);
+        }
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now().minusMinutes(windowMinutes);
+    }
+}
@@ -0,0 +1,16 @@
+package com.radek.bookstore.service.throttling;
+
+/**
+ * Failed login attempts per key (username or client address) within the throttling window.
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * Records a failed attempt and returns the number of attempts in the window, including this one.
+     */
+    int recordAttempt(String key);
+
+    int countAttempts(String key);
+
+    void clearAttempts(String key);
+}
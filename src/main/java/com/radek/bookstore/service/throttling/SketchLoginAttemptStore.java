@@ -0,0 +1,36 @@
+package com.radek.bookstore.service.throttling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConditionalOnProperty(name = "bookstore.security.login-attempts.store", havingValue = "memory", matchIfMissing = true)
+public class SketchLoginAttemptStore implements LoginAttemptStore {
+
+    private final SlidingWindowSketch sketch;
+
+    public SketchLoginAttemptStore(@Value("${bookstore.security.login-attempts.window-minutes:15}") long windowMinutes,
+                                   @Value("${bookstore.security.login-attempts.buckets:15}") int buckets,
+                                   @Value("${bookstore.security.login-attempts.sketch-depth:4}") int depth,
+                                   @Value("${bookstore.security.login-attempts.sketch-width:4096}") int width) {
+        this.sketch = new SlidingWindowSketch(Duration.ofMinutes(windowMinutes), buckets, depth, width);
+    }
+
+    @Override
+    public int recordAttempt(String key) {
+        return sketch.add(key);
+    }
+
+    @Override
+    public int countAttempts(String key) {
+        return sketch.estimate(key);
+    }
+
+    @Override
+    public void clearAttempts(String key) {
+        sketch.remove(key);
+    }
+}
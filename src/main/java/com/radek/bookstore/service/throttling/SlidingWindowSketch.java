@@ -0,0 +1,143 @@
+package com.radek.bookstore.service.throttling;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts events per key over a sliding window in fixed memory: a wheel of count-min sketches, one per
+ * sub-window, where the oldest sketch is cleared and reused when the window moves on. Estimates never
+ * under-count (apart from {@link #remove}), and with conservative updates hot keys stay exact unless they
+ * collide with other hot keys in every row. The hash seed is random so colliding keys cannot be precomputed.
+ */
+public class SlidingWindowSketch {
+
+    private final int depth;
+    private final int width;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final HashFunction hashFunction = Hashing.murmur3_128(new SecureRandom().nextInt());
+    private final AtomicIntegerArray[] buckets;
+    private final AtomicLongArray bucketEpochs;
+
+    public SlidingWindowSketch(Duration window, int buckets, int depth, int width) {
+        this(window, buckets, depth, width, System::currentTimeMillis);
+    }
+
+    SlidingWindowSketch(Duration window, int buckets, int depth, int width, LongSupplier clock) {
+        this.depth = depth;
+        this.width = width;
+        this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+        this.clock = clock;
+        this.buckets = new AtomicIntegerArray[buckets];
+        this.bucketEpochs = new AtomicLongArray(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            this.buckets[bucket] = new AtomicIntegerArray(depth * width);
+            this.bucketEpochs.set(bucket, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Records one event for the key and returns the estimated number of its events in the window.
+     */
+    public int add(String key) {
+        int[] cells = cells(key);
+        AtomicIntegerArray counters = currentBucket();
+        int minimum = Integer.MAX_VALUE;
+        for (int cell : cells) {
+            minimum = Math.min(minimum, counters.get(cell));
+        }
+        int updated = minimum + 1;
+        for (int cell : cells) {
+            counters.accumulateAndGet(cell, updated, Math::max);
+        }
+        return estimate(cells);
+    }
+
+    public int estimate(String key) {
+        return estimate(cells(key));
+    }
+
+    /**
+     * Forgets the events of the key. Keys sharing all of its cells in a sub-window may lose some of their
+     * counts as well, which only errs towards allowing an attempt.
+     */
+    public void remove(String key) {
+        int[] cells = cells(key);
+        long epoch = currentEpoch();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            if (!isLive(bucket, epoch)) {
+                continue;
+            }
+            AtomicIntegerArray counters = buckets[bucket];
+            int minimum = Integer.MAX_VALUE;
+            for (int cell : cells) {
+                minimum = Math.min(minimum, counters.get(cell));
+            }
+            int removed = minimum;
+            if (removed > 0) {
+                for (int cell : cells) {
+                    counters.getAndUpdate(cell, count -> Math.max(0, count - removed));
+                }
+            }
+        }
+    }
+
+    private int estimate(int[] cells) {
+        long epoch = currentEpoch();
+        int minimum = Integer.MAX_VALUE;
+        for (int cell : cells) {
+            int count = 0;
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                if (isLive(bucket, epoch)) {
+                    count += buckets[bucket].get(cell);
+                }
+            }
+            minimum = Math.min(minimum, count);
+        }
+        return minimum;
+    }
+
+    private int[] cells(String key) {
+        long hash = hashFunction.hashString(key, StandardCharsets.UTF_8).asLong();
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        int[] cells = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            cells[row] = row * width + Math.floorMod(firstHash + row * secondHash, width);
+        }
+        return cells;
+    }
+
+    private long currentEpoch() {
+        return clock.getAsLong() / bucketMillis;
+    }
+
+    private boolean isLive(int bucket, long epoch) {
+        long bucketEpoch = bucketEpochs.get(bucket);
+        return bucketEpoch > epoch - buckets.length && bucketEpoch <= epoch;
+    }
+
+    private AtomicIntegerArray currentBucket() {
+        long epoch = currentEpoch();
+        int bucket = (int) Math.floorMod(epoch, (long) buckets.length);
+        AtomicIntegerArray counters = buckets[bucket];
+        if (bucketEpochs.get(bucket) != epoch) {
+            synchronized (counters) {
+                if (bucketEpochs.get(bucket) != epoch) {
+                    for (int cell = 0; cell < counters.length(); cell++) {
+                        counters.set(cell, 0);
+                    }
+                    bucketEpochs.set(bucket, epoch);
+                }
+            }
+        }
+        return counters;
+    }
+}
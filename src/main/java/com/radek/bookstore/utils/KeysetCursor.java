@@ -0,0 +1,37 @@
+package com.radek.bookstore.utils;
+
+import com.radek.bookstore.model.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque cursor for keyset pagination holding the sort key values of the last row of a page.
+ */
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    public static String encode(Object... values) {
+        String[] parts = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parts[i] = String.valueOf(values[i]);
+        }
+        byte[] joined = String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined);
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(Objects.requireNonNull(cursor)), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, -1);
+            if (parts.length != expectedParts) {
+                throw new InvalidCursorException(String.format("Invalid page cursor: %s", cursor));
+            }
+            return parts;
+        } catch (IllegalArgumentException | NullPointerException exc) {
+            throw new InvalidCursorException(String.format("Invalid page cursor: %s", cursor));
+        }
+    }
+}
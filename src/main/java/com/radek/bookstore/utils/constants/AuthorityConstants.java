@@ -1,6 +1,7 @@
 package com.radek.bookstore.utils.constants;
 
 public class AuthorityConstants {
+    public static final String METRICS_READ = "metrics:read";
     public static final String[] USER_AUTHORITIES = { "comment:create", "rating:create", "order:read", "user:account"};
     public static final String[] MODERATOR_AUTHORITIES = { "comment:create", "rating:create", "comment:delete",
                                                             "book:create", "book:update", "category:create",
@@ -11,5 +12,6 @@ public class AuthorityConstants {
                                                         "book:create", "book:update", "category:create",
                                                         "category:update", "author:update", "book:activate",
                                                         "book:delete", "order:read", "user:read", "user:update",
-                                                        "user:activate", "user:lock", "user:delete", "user:account"};
+                                                        "user:activate", "user:lock", "user:delete", "user:account",
+                                                        METRICS_READ};
 }
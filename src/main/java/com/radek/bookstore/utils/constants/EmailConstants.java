@@ -6,11 +6,12 @@ public class EmailConstants {
     public static final String USERNAME = "rornat.developer@gmail.com";
     public static final String PASSWORD = "Radek.com87**";
     public static final String FROM_EMAIL = "registration@bookstore-dev.pl";
-    public static final String CC_EMAIL = "";
+    public static final String ADMIN_EMAIL = USERNAME;
     public static final String EMAIL_SUBJECT = "Bookstore - dziękuję za rejestrację, aktywuj konto";
     public static final String ADD_NEW_USER_SUBJECT = "Bookstore - Twoje konto zostało utworzone, aktywuj konto";
     public static final String ORDER_SUMMARY_MESSAGE = "Bookstore - potwierdzenie zamówienia";
     public static final String RESET_PASSWORD_SUBJECT = "Bookstore - Twoje hasło zostało zresetowane, aktywuj konto";
+    public static final String ADMIN_DIGEST_SUBJECT = "Bookstore - podsumowanie wysłanych wiadomości";
     public static final String GMAIL_SMTP_SERVER = "smtp.gmail.com";
     public static final String SMTP_HOST = "mail.smtp.host";
     public static final String SMTP_AUTH = "mail.smtp.auth";
@@ -19,4 +20,7 @@ public class EmailConstants {
     public static final String SMTP_STARTTLS_ENABLE = "mail.smtp.starttls.enable";
     public static final String SMTP_STARTTLS_REQUIRED = "mail.smtp.starttls.required";
     public static final String MAIL_SMTP_SSL_TRUST="mail.smtp.ssl.trust";
+    public static final String SMTP_CONNECTION_TIMEOUT = "mail.smtp.connectiontimeout";
+    public static final String SMTP_TIMEOUT = "mail.smtp.timeout";
+    public static final String SMTP_WRITE_TIMEOUT = "mail.smtp.writetimeout";
 }
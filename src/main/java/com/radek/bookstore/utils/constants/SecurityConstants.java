@@ -2,20 +2,24 @@ package com.radek.bookstore.utils.constants;
 
 public class SecurityConstants {
 
-    public static final long EXPIRATION_TIME = 432_000; //5 days expressed in seconds
     public static final String TOKEN_PREFIX = "Bearer ";
     public static final String JWT_TOKEN_HEADER = "Jwt-Token";
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
     public static final String TOKEN_CANNOT_BE_VERIFIED = "Token cannot be verified";
     public static final String RADEK_COM = "radek.com";
     public static final String RADEK_COM_ADMINISTRATION = "Bookstore - Radosław Ornat";
     public static final String AUTHORITIES = "authorities";
+    public static final String ISSUED_AT_MILLIS = "iat_ms";
     public static final String FORBIDDEN_MESSAGE = "You need to login to access this page";
     public static final String ACCESS_DENIED_MESSAGE = "You do not have permission to access this resource";
     public static final String OPTIONS_HTTP_METHOD = "OPTIONS";
+    public static final String TOO_MANY_REQUESTS_MESSAGE = "Too many requests. Please slow down and try again later";
     public static final String[] PUBLIC_URLS = {
                                         "/api/users/signup",
                                         "/api/users/resetPassword",
                                         "/api/users/signin",
+                                        "/api/users/token/refresh",
+                                        "/api/users/availability",
                                         "/api/users/activate/**",
                                         "/api/checkout/**"
                                     };
@@ -0,0 +1,33 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.model.generator.CustomStringGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation of CustomStringGenerator, run for every inserted entity. The threads variant shows the
+ * contention on the shared SecureRandom behind UUID.randomUUID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final CustomStringGenerator generator = new CustomStringGenerator();
+
+    @Benchmark
+    public Serializable generate() {
+        return generator.generate(null, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Serializable generateFourThreads() {
+        return generator.generate(null, null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.radek.bookstore.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.Category;
+import com.radek.bookstore.model.dto.CategoryDto;
+import com.radek.bookstore.model.mapper.BookJsonMapper;
+import com.radek.bookstore.model.response.BookJson;
+import com.radek.bookstore.service.impl.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the two largest read responses: a default page of 24 books and a single BookJson.
+ * The mapper is built the way Spring Boot builds the application one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 24;
+
+    private ObjectMapper objectMapper;
+    private Page<Book> booksPage;
+    private BookJson bookJson;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Set<Category> categories = new HashSet<>();
+        for (String name : Arrays.asList("Fantastyka", "Kryminał")) {
+            Category category = new Category(new CategoryDto(name));
+            category.setId(UUID.randomUUID().toString());
+            categories.add(category);
+        }
+        List<Book> books = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Book book = BookGenerator.generateBook(LocalDateTime.now().minusDays(i));
+            book.setCategories(categories);
+            books.add(book);
+        }
+        booksPage = new PageImpl<>(books, PageRequest.of(0, PAGE_SIZE), 1000);
+        Book book = books.get(0);
+        bookJson = new BookJsonMapper().map(book, BookJson.class);
+        bookJson.setDescription(BookServiceImpl.extractDescriptionParagraphs(book.getDescription()));
+    }
+
+    @Benchmark
+    public byte[] booksPage() throws Exception {
+        return objectMapper.writeValueAsBytes(booksPage);
+    }
+
+    @Benchmark
+    public byte[] bookJson() throws Exception {
+        return objectMapper.writeValueAsBytes(bookJson);
+    }
+}
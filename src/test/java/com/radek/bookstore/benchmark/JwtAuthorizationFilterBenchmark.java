@@ -0,0 +1,90 @@
+package com.radek.bookstore.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.security.filter.JwtAuthorizationFilter;
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+import static com.radek.bookstore.utils.constants.SecurityConstants.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Overhead of JwtAuthorizationFilter for an authenticated request: with the decoded-token cache (repeat
+ * token), without it (one verification per request) and the previous four verifications per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthorizationFilterBenchmark {
+
+    private static final String SECRET = "BenchmarkJwtSecret$";
+    private static final long TOKEN_TTL_MS = 900_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtAuthorizationFilter cachingFilter;
+    private JwtAuthorizationFilter nonCachingFilter;
+    private String token;
+
+    @Setup
+    public void setup() {
+        TokenRevocationList revocationList = new TokenRevocationList(mock(RevokedTokenRepository.class), TOKEN_TTL_MS, 100_000, 0.001);
+        JwtTokenProvider cachingProvider = new JwtTokenProvider(SECRET, 10_000, TOKEN_TTL_MS, revocationList);
+        JwtTokenProvider nonCachingProvider = new JwtTokenProvider(SECRET, 0, TOKEN_TTL_MS, revocationList);
+        cachingFilter = new JwtAuthorizationFilter(cachingProvider);
+        nonCachingFilter = new JwtAuthorizationFilter(nonCachingProvider);
+        User user = UserGenerator.generateUser("benchmarkUserId");
+        user.setUsername("benchmarkUser");
+        token = cachingProvider.generateJwtToken(new UserPrincipal(user));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterWithTokenCache() throws Exception {
+        return filter(cachingFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterWithoutTokenCache() throws Exception {
+        return filter(nonCachingFilter);
+    }
+
+    // what the filter did before: getSubject, isTokenValid (two verifications) and getAuthorities,
+    // each building a fresh verifier
+    @Benchmark
+    public void legacyFourVerifications(Blackhole blackhole) {
+        blackhole.consume(legacyVerifier().verify(token).getSubject());
+        blackhole.consume(legacyVerifier().verify(token).getExpiresAt());
+        blackhole.consume(legacyVerifier().verify(token).getExpiresAt());
+        blackhole.consume(legacyVerifier().verify(token).getClaim(AUTHORITIES).asArray(String.class));
+    }
+
+    private JWTVerifier legacyVerifier() {
+        return JWT.require(Algorithm.HMAC512(SECRET)).withIssuer(RADEK_COM).build();
+    }
+
+    private MockHttpServletResponse filter(JwtAuthorizationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/list");
+        request.addHeader(AUTHORIZATION, TOKEN_PREFIX + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Issuing an access token and verifying one, served from the decoded-token cache and with a full signature
+ * verification (cache disabled).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "BenchmarkJwtSecret$";
+    private static final long TOKEN_TTL_MS = 900_000;
+
+    private JwtTokenProvider cachingProvider;
+    private JwtTokenProvider nonCachingProvider;
+    private UserPrincipal userPrincipal;
+    private String token;
+
+    @Setup
+    public void setup() {
+        TokenRevocationList revocationList = new TokenRevocationList(mock(RevokedTokenRepository.class), TOKEN_TTL_MS, 100_000, 0.001);
+        cachingProvider = new JwtTokenProvider(SECRET, 10_000, TOKEN_TTL_MS, revocationList);
+        nonCachingProvider = new JwtTokenProvider(SECRET, 0, TOKEN_TTL_MS, revocationList);
+        User user = UserGenerator.generateUser("benchmarkUserId");
+        user.setUsername("benchmarkUser");
+        userPrincipal = new UserPrincipal(user);
+        token = cachingProvider.generateJwtToken(userPrincipal);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingProvider.generateJwtToken(userPrincipal);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyCached() {
+        return cachingProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyUncached() {
+        return nonCachingProvider.verifyToken(token);
+    }
+}
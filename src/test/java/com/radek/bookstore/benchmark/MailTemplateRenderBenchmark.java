@@ -0,0 +1,80 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.config.ThymeleafTemplateConfig;
+import com.radek.bookstore.model.OrderItem;
+import com.radek.bookstore.service.mail.MailTemplateRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering one mail from the cached templates: a single account mail, a single order summary and one
+ * mail of a bulk run which reuses its context and buffer. Run with "-prof gc" to compare the allocation per
+ * mail of the single and bulk paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailTemplateRenderBenchmark {
+
+    private static final int BULK_SIZE = 1000;
+
+    private MailTemplateRenderer templateRenderer;
+    private Map<String, Object> accountProperties;
+    private Map<String, Object> orderProperties;
+    private List<String> recipients;
+
+    @Setup
+    public void setup() {
+        ThymeleafTemplateConfig config = new ThymeleafTemplateConfig();
+        templateRenderer = new MailTemplateRenderer(config.springTemplateEngine(config.htmlTemplateResolver(null), 50));
+        templateRenderer.warmUp();
+        accountProperties = new HashMap<>();
+        accountProperties.put("firstName", "John");
+        accountProperties.put("activationLink", "https://bookstore-rornat.herokuapp.com/activate/123456789");
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OrderItem item = new OrderItem();
+            item.setTitle("Book title " + i);
+            item.setUnitPrice(new BigDecimal("39.90"));
+            item.setQuantity(1);
+            items.add(item);
+        }
+        orderProperties = new HashMap<>();
+        orderProperties.put("firstName", "John");
+        orderProperties.put("totalPrice", "199.5");
+        orderProperties.put("totalQuantity", 5);
+        orderProperties.put("items", items);
+        recipients = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            recipients.add("Reader" + i);
+        }
+    }
+
+    @Benchmark
+    public String accountActivation() {
+        return templateRenderer.render(MailTemplateRenderer.ACCOUNT_ACTIVATION, accountProperties);
+    }
+
+    @Benchmark
+    public String orderSummary() {
+        return templateRenderer.render(MailTemplateRenderer.ORDER_SUMMARY, orderProperties);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void bulkAccountActivation(Blackhole blackhole) {
+        templateRenderer.renderAll(MailTemplateRenderer.ACCOUNT_ACTIVATION, recipients,
+                (firstName, context) -> {
+                    context.setVariable("firstName", firstName);
+                    context.setVariable("activationLink", accountProperties.get("activationLink"));
+                },
+                (firstName, html) -> blackhole.consume(html.length()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.model.exception.PasswordHashingUnavailableException;
+import com.radek.bookstore.security.utility.BoundedPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput of BoundedPasswordEncoder for a burst of concurrent sign in requests, by BCrypt cost and
+ * hashing pool size. Requests turned away by the full pool are reported as the "rejected" counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "BenchmarkPassword1";
+
+    @Param({"8", "10", "12"})
+    private int cost;
+
+    @Param({"2", "4", "8"})
+    private int poolSize;
+
+    @Param({"32"})
+    private int queueCapacity;
+
+    private BoundedPasswordEncoder encoder;
+    private String encodedPassword;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class LoginCounters {
+        public long accepted;
+        public long rejected;
+    }
+
+    @Setup
+    public void setup() {
+        encoder = new BoundedPasswordEncoder(cost, poolSize, queueCapacity);
+        encodedPassword = new BCryptPasswordEncoder(cost).encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Benchmark
+    public boolean login(LoginCounters counters) {
+        try {
+            boolean matches = encoder.matches(PASSWORD, encodedPassword);
+            counters.accepted++;
+            return matches;
+        } catch (PasswordHashingUnavailableException exc) {
+            counters.rejected++;
+            return false;
+        }
+    }
+}
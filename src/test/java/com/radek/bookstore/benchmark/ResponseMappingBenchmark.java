@@ -0,0 +1,59 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.generators.CommentGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.Comment;
+import com.radek.bookstore.model.mapper.BookJsonMapper;
+import com.radek.bookstore.model.mapper.CommentJsonMapper;
+import com.radek.bookstore.model.response.BookJson;
+import com.radek.bookstore.model.response.CommentJson;
+import com.radek.bookstore.service.impl.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of entities to their response objects: a book to BookJson (as in findBook, Orika mapping and the
+ * description split into paragraphs), the paragraph split alone and a comment to CommentJson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private BookJsonMapper bookJsonMapper;
+    private CommentJsonMapper commentJsonMapper;
+    private Book book;
+    private Comment comment;
+
+    @Setup
+    public void setup() {
+        bookJsonMapper = new BookJsonMapper();
+        commentJsonMapper = new CommentJsonMapper();
+        book = BookGenerator.generateBookWithDescription(LocalDateTime.now(), "benchmarkBookId", BookGenerator.FIVE_PARAGRAPH_DESCRIPTION);
+        comment = CommentGenerator.generateCommentWithCommentId("benchmarkCommentId");
+    }
+
+    @Benchmark
+    public BookJson bookToJson() {
+        BookJson bookJson = bookJsonMapper.map(book, BookJson.class);
+        bookJson.setDescription(BookServiceImpl.extractDescriptionParagraphs(book.getDescription()));
+        return bookJson;
+    }
+
+    @Benchmark
+    public List<String> extractDescriptionParagraphs() {
+        return BookServiceImpl.extractDescriptionParagraphs(book.getDescription());
+    }
+
+    @Benchmark
+    public CommentJson commentToJson() {
+        return commentJsonMapper.map(comment, CommentJson.class);
+    }
+}
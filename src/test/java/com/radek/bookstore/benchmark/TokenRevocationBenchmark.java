@@ -0,0 +1,60 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of the revocation check made on every authenticated request, for a token that is not revoked (the
+ * common case, answered by the Bloom filters) and for one that is. Run with "-prof gc" to see the allocation
+ * rate, which should stay at zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int revokedTokens;
+
+    private TokenRevocationList revocationList;
+    private VerifiedToken validToken;
+    private VerifiedToken revokedToken;
+
+    @Setup
+    public void setup() {
+        revocationList = new TokenRevocationList(mock(RevokedTokenRepository.class), 900_000, 100_000, 0.001);
+        Instant expiresAt = Instant.now().plusSeconds(900);
+        String revokedTokenId = null;
+        for (int i = 0; i < revokedTokens; i++) {
+            revokedTokenId = UUID.randomUUID().toString();
+            revocationList.revokeToken(revokedTokenId, expiresAt);
+        }
+        for (int i = 0; i < revokedTokens / 100; i++) {
+            revocationList.revokeSubject("kickedOutUser" + i);
+        }
+        validToken = new VerifiedToken("benchmarkUser", Collections.emptyList(), UUID.randomUUID().toString(), Instant.now(), expiresAt);
+        revokedToken = new VerifiedToken("benchmarkUser", Collections.emptyList(), revokedTokenId, Instant.now(), expiresAt);
+    }
+
+    @Benchmark
+    public boolean validToken() {
+        return revocationList.isRevoked(validToken);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return revocationList.isRevoked(revokedToken);
+    }
+}
@@ -0,0 +1,44 @@
+package com.radek.bookstore.benchmark;
+
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.Role;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserPrincipal.getAuthorities for a user and an admin, called on every sign in and token issue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPrincipalBenchmark {
+
+    private UserPrincipal userPrincipal;
+    private UserPrincipal adminPrincipal;
+
+    @Setup
+    public void setup() {
+        User user = UserGenerator.generateUser("benchmarkUserId");
+        user.setAuthorities(Role.ROLE_USER.getAuthorities());
+        userPrincipal = new UserPrincipal(user);
+        adminPrincipal = new UserPrincipal(UserGenerator.generateUser("benchmarkAdminId"));
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> userAuthorities() {
+        return userPrincipal.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> adminAuthorities() {
+        return adminPrincipal.getAuthorities();
+    }
+}
@@ -0,0 +1,56 @@
+package com.radek.bookstore.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationMetricsInterceptorTest {
+
+    SimpleMeterRegistry meterRegistry;
+    SampleService sampleService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProxyFactory proxyFactory = new ProxyFactory(new SampleService());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new OperationMetricsInterceptor(() -> meterRegistry, "bookstore.service"));
+        sampleService = (SampleService) proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldReuseOneTimerForSuccessfulCallsOfMethod() {
+        sampleService.findBook("bookId");
+        sampleService.findBook("otherBookId");
+
+        Timer timer = meterRegistry.get("bookstore.service")
+                .tags("component", "SampleService", "method", "findBook", "outcome", "success", "exception", "none")
+                .timer();
+        assertEquals(2, timer.count());
+        assertEquals(1, meterRegistry.getMeters().size());
+    }
+
+    @Test
+    void shouldTagFailedCallsWithException() {
+        assertThrows(IllegalArgumentException.class, () -> sampleService.findBook(null));
+
+        Timer timer = meterRegistry.get("bookstore.service")
+                .tags("method", "findBook", "outcome", "error", "exception", "IllegalArgumentException")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+
+    static class SampleService {
+
+        public String findBook(String id) {
+            if (id == null) {
+                throw new IllegalArgumentException("Book id is required");
+            }
+            return id;
+        }
+    }
+}
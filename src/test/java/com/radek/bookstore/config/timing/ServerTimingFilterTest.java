@@ -0,0 +1,99 @@
+package com.radek.bookstore.config.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServerTimingFilterTest {
+
+    QueryStatisticsDataSource dataSource;
+    SimpleMeterRegistry meterRegistry;
+    ServerTimingFilter serverTimingFilter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws Exception {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:server-timing;DB_CLOSE_DELAY=-1");
+        dataSource = new QueryStatisticsDataSource(h2DataSource);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS categories (id INT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("MERGE INTO categories KEY (id) VALUES (1, 'Fantasy'), (2, 'Crime'), (3, 'Poetry')");
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistryProvider = mock(ObjectProvider.class);
+        when(meterRegistryProvider.getIfAvailable(any())).thenReturn(meterRegistry);
+        serverTimingFilter = new ServerTimingFilter(true, 1000, meterRegistryProvider);
+    }
+
+    @Test
+    void shouldReportStatementsRowsAndDatabaseTimeOfRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categories");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/categories");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (servletRequest, servletResponse) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                readAll(connection, "SELECT id, name FROM categories");
+                readAll(connection, "SELECT name FROM categories WHERE id = 1");
+            } catch (Exception exc) {
+                throw new IllegalStateException(exc);
+            }
+            servletResponse.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+        };
+
+        serverTimingFilter.doFilter(request, response, chain);
+
+        String serverTiming = response.getHeader("Server-Timing");
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.matches("db;dur=\\d+\\.\\d;desc=\"2 statements, 4 rows\", app;dur=\\d+\\.\\d"), serverTiming);
+        assertEquals(2, meterRegistry.get("bookstore.request.sql.statements").tags("method", "GET", "uri", "/api/categories").summary().totalAmount());
+        assertEquals(4, meterRegistry.get("bookstore.request.sql.rows").tags("method", "GET", "uri", "/api/categories").summary().totalAmount());
+    }
+
+    @Test
+    void shouldAddHeaderBeforeBodyOverflowsResponseBuffer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categories");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setBufferSize(16);
+        FilterChain chain = (servletRequest, servletResponse) ->
+                servletResponse.getOutputStream().write(new byte[64]);
+
+        serverTimingFilter.doFilter(request, response, chain);
+
+        assertEquals("db;dur=0.0;desc=\"0 statements, 0 rows\"", response.getHeader("Server-Timing").split(", app")[0]);
+    }
+
+    @Test
+    void shouldNotRecordStatementsOutsideRequest() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            readAll(connection, "SELECT id FROM categories");
+            assertFalse(connection.prepareStatement("SELECT 1") instanceof java.lang.reflect.Proxy);
+        }
+    }
+
+    private static void readAll(Connection connection, String sql) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql); ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getObject(1);
+            }
+        }
+    }
+}
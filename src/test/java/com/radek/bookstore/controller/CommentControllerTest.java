@@ -3,7 +3,6 @@ package com.radek.bookstore.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.radek.bookstore.generators.BookGenerator;
 import com.radek.bookstore.generators.CommentGenerator;
-import com.radek.bookstore.model.Comment;
 import com.radek.bookstore.model.dto.CommentDto;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.model.response.CommentJson;
@@ -31,7 +30,6 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
@@ -152,16 +150,16 @@ class CommentControllerTest {
     }
 
     @Test
-    void shouldSaveCommentMethodReturnAllBookCommentsWhenBookAndUserExists() throws Exception {
+    void shouldSaveCommentMethodReturnSavedCommentWhenBookAndUserExists() throws Exception {
         String bookId="testBookId";
         String userId = "testUserId";
         String url = String.format("/api/comments/%s/user/%s", bookId, userId);
         CommentDto commentDto = new CommentDto("Some Content");
-        Comment comment = new Comment(commentDto);
+        CommentJson comment = CommentGenerator.generateCommentJson("testCommentId");
 
         when(bookService.existsByBookId(bookId)).thenReturn(true);
         when(userService.existByUserId(userId)).thenReturn(true);
-        when(commentService.saveComment(any(CommentDto.class), anyString(), anyString())).thenReturn(Collections.singleton(comment));
+        when(commentService.saveComment(any(CommentDto.class), anyString(), anyString())).thenReturn(comment);
 
         mockMvc.perform(post(url)
                 .with(csrf())
@@ -170,7 +168,7 @@ class CommentControllerTest {
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json(mapper.writeValueAsString(Collections.singleton(comment))));
+                .andExpect(content().json(mapper.writeValueAsString(comment)));
 
         verify(bookService).existsByBookId(bookId);
         verify(userService).existByUserId(userId);
@@ -0,0 +1,188 @@
+package com.radek.bookstore.controller;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.generators.CommentGenerator;
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.*;
+import com.radek.bookstore.model.dto.CategoryDto;
+import com.radek.bookstore.model.dto.RatingDto;
+import com.radek.bookstore.querycount.QueryCount;
+import com.radek.bookstore.querycount.QueryCounter;
+import com.radek.bookstore.repository.AuthorRepository;
+import com.radek.bookstore.repository.CategoryRepository;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.CommentService;
+import com.radek.bookstore.service.RatingService;
+import com.radek.bookstore.service.RecommendationService;
+import com.radek.bookstore.service.TrendingService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and entity load budgets of the read endpoints for a seeded dataset of 30 books by 6 authors in
+ * 3 categories, rated by 4 users. A change that adds statements to one of these paths fails the build; lower the
+ * budget together with a change that removes them.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryCountTest {
+
+    private static final int AUTHORS = 6;
+    private static final int BOOKS_PER_AUTHOR = 5;
+    private static final int USERS = 4;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CommentService commentService;
+
+    @Autowired
+    RatingService ratingService;
+
+    @Autowired
+    RecommendationService recommendationService;
+
+    @Autowired
+    TrendingService trendingService;
+
+    QueryCounter queryCounter;
+    String authorId;
+    String bookId;
+    String categoryId;
+
+    @BeforeAll
+    void seedDataset() {
+        List<Category> categories = new ArrayList<>();
+        for (String name : Arrays.asList("Fantastyka", "Kryminał", "Poezja")) {
+            categories.add(categoryRepository.save(new Category(new CategoryDto(name))));
+        }
+        List<Book> books = new ArrayList<>();
+        for (int authorIndex = 0; authorIndex < AUTHORS; authorIndex++) {
+            Author author = null;
+            for (int bookIndex = 0; bookIndex < BOOKS_PER_AUTHOR; bookIndex++) {
+                Book book = BookGenerator.generateBook(LocalDateTime.now().minusDays(books.size()));
+                book.setId(null);
+                book.setTitle("Book " + books.size());
+                book.setCategories(new HashSet<>(Arrays.asList(categories.get(books.size() % 3), categories.get((books.size() + 1) % 3))));
+                if (Objects.isNull(author)) {
+                    author = book.getAuthor();
+                    author.setId(null);
+                }
+                author.addBook(book);
+                books.add(book);
+            }
+            authorRepository.save(author);
+        }
+        List<User> users = new ArrayList<>();
+        for (int userIndex = 0; userIndex < USERS; userIndex++) {
+            User user = UserGenerator.generateUser(null);
+            user.setUserId("querycount" + userIndex);
+            user.setUsername("querycount" + userIndex);
+            user.setRole(Role.ROLE_USER.name());
+            user.setAuthorities(Role.ROLE_USER.getAuthorities());
+            user.setAddress(null);
+            users.add(userRepository.save(user));
+        }
+        bookId = books.get(0).getId();
+        authorId = books.get(0).getAuthor().getId();
+        categoryId = categories.get(0).getId();
+        for (Book book : books) {
+            for (User user : users) {
+                ratingService.saveRating(new RatingDto(1 + (book.getTitle().length() + user.getUserId().length()) % 5), book.getId(), user.getId());
+            }
+            trendingService.recordView(book.getId());
+        }
+        for (User user : users) {
+            for (int comment = 0; comment < 3; comment++) {
+                commentService.saveComment(CommentGenerator.generateCommentDto(), bookId, user.getId());
+            }
+        }
+        trendingService.flushActivity();
+        recommendationService.rebuildSimilarities();
+        queryCounter = QueryCounter.forEntityManagerFactory(entityManagerFactory);
+    }
+
+    @Test
+    void booksPage() throws Exception {
+        count(get("/api/books").param("size", "24")).assertAtMost(40, 39);
+    }
+
+    @Test
+    void singleBook() throws Exception {
+        count(get("/api/books/" + bookId)).assertAtMost(107, 175);
+    }
+
+    @Test
+    void categories() throws Exception {
+        count(get("/api/categories")).assertAtMost(34, 39);
+    }
+
+    @Test
+    void categoryBooksPage() throws Exception {
+        count(get("/api/categories/" + categoryId)).assertAtMost(34, 39);
+    }
+
+    @Test
+    void author() throws Exception {
+        count(get("/api/authors/" + authorId)).assertAtMost(36, 39);
+    }
+
+    @Test
+    void bookComments() throws Exception {
+        count(get("/api/comments/" + bookId)).assertAtMost(39, 55);
+    }
+
+    @Test
+    void bookRating() throws Exception {
+        count(get("/api/ratings/" + bookId)).assertAtMost(39, 47);
+    }
+
+    @Test
+    void topRated() throws Exception {
+        count(get("/api/books/top-rated")).assertAtMost(40, 39);
+    }
+
+    @Test
+    void trending() throws Exception {
+        count(get("/api/books/trending")).assertAtMost(0, 0);
+    }
+
+    @Test
+    void similarBooks() throws Exception {
+        count(get("/api/books/" + bookId + "/similar")).assertAtMost(41, 59);
+    }
+
+    private QueryCount count(RequestBuilder request) throws Exception {
+        return queryCounter.count(() -> mockMvc.perform(request).andExpect(status().isOk()));
+    }
+}
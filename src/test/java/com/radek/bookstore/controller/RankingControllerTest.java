@@ -0,0 +1,141 @@
+package com.radek.bookstore.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.exception.InvalidCursorException;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.security.filter.JwtAccessDeniedHandler;
+import com.radek.bookstore.security.filter.JwtAuthenticationEntryPoint;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.service.CategoryService;
+import com.radek.bookstore.service.RankingService;
+import com.radek.bookstore.service.TrendingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = RankingController.class)
+@WithMockUser(username = "user", roles = "ADMIN")
+class RankingControllerTest {
+
+    @MockBean
+    private RankingService rankingService;
+
+    @MockBean
+    private TrendingService trendingService;
+
+    @MockBean
+    private CategoryService categoryService;
+
+    @MockBean
+    JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    JwtAccessDeniedHandler jwtAccessDeniedHandler;
+
+    @MockBean
+    JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+
+    @MockBean
+    @Qualifier("userDetailsService")
+    UserDetailsService userDetailsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldGetTopRatedBooksMethodReturnFirstPageWithDefaultSize() throws Exception {
+        CursorPage<Book> page = new CursorPage<>(List.of(BookGenerator.generateBookWithId(LocalDateTime.now(), "bookId")), "nextCursor");
+        when(rankingService.findTopRated(null, null, 24)).thenReturn(page);
+
+        mockMvc.perform(get("/api/books/top-rated")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(page)));
+
+        verify(rankingService).findTopRated(null, null, 24);
+        verifyNoInteractions(categoryService);
+    }
+
+    @Test
+    void shouldGetTopRatedBooksMethodPassCategoryCursorAndCappedSize() throws Exception {
+        String categoryId = "categoryId";
+        when(categoryService.existByCategoryId(categoryId)).thenReturn(true);
+        when(rankingService.findTopRated(categoryId, "someCursor", 100)).thenReturn(new CursorPage<>(List.of(), null));
+
+        mockMvc.perform(get("/api/books/top-rated")
+                .param("categoryId", categoryId)
+                .param("cursor", "someCursor")
+                .param("size", "500")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+
+        verify(rankingService).findTopRated(categoryId, "someCursor", 100);
+    }
+
+    @Test
+    void shouldGetTopRatedBooksMethodReturnNotFoundWhenCategoryDoesNotExist() throws Exception {
+        String categoryId = "nonExistingCategoryId";
+        when(categoryService.existByCategoryId(categoryId)).thenReturn(false);
+
+        mockMvc.perform(get("/api/books/top-rated")
+                .param("categoryId", categoryId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(String.format("Cannot find category with id: %s", categoryId)));
+
+        verify(rankingService, never()).findTopRated(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldGetTopRatedBooksMethodReturnBadRequestWhenCursorIsInvalid() throws Exception {
+        when(rankingService.findTopRated(null, "brokenCursor", 24))
+                .thenThrow(new InvalidCursorException("Invalid page cursor: brokenCursor"));
+
+        mockMvc.perform(get("/api/books/top-rated")
+                .param("cursor", "brokenCursor")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page cursor: brokenCursor"));
+    }
+
+    @Test
+    void shouldGetTrendingBooksMethodReturnSnapshotWithRequestedSize() throws Exception {
+        List<Book> trendingBooks = List.of(BookGenerator.generateBookWithId(LocalDateTime.now(), "bookId"));
+        when(trendingService.getTrendingBooks(5)).thenReturn(trendingBooks);
+
+        mockMvc.perform(get("/api/books/trending")
+                .param("size", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(trendingBooks)));
+
+        verify(trendingService).getTrendingBooks(5);
+    }
+}
@@ -0,0 +1,150 @@
+package com.radek.bookstore.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.security.filter.JwtAccessDeniedHandler;
+import com.radek.bookstore.security.filter.JwtAuthenticationEntryPoint;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.service.BookService;
+import com.radek.bookstore.service.CoPurchaseService;
+import com.radek.bookstore.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = RecommendationController.class)
+@WithMockUser(username = "user", roles = "ADMIN")
+class RecommendationControllerTest {
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private RecommendationService recommendationService;
+
+    @MockBean
+    private CoPurchaseService coPurchaseService;
+
+    @MockBean
+    JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    JwtAccessDeniedHandler jwtAccessDeniedHandler;
+
+    @MockBean
+    JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+
+    @MockBean
+    @Qualifier("userDetailsService")
+    UserDetailsService userDetailsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldGetSimilarBooksMethodReturnSimilarBooksWithDefaultSizeWhenBookExists() throws Exception {
+        String bookId = "testBookId";
+        List<Book> similarBooks = Arrays.asList(
+                BookGenerator.generateBookWithId(LocalDateTime.now(), "similarBookId1"),
+                BookGenerator.generateBookWithId(LocalDateTime.now(), "similarBookId2"));
+
+        when(bookService.existsByBookId(bookId)).thenReturn(true);
+        when(recommendationService.findSimilarBooks(bookId, 10)).thenReturn(similarBooks);
+
+        mockMvc.perform(get(String.format("/api/books/%s/similar", bookId))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(similarBooks)));
+
+        verify(bookService).existsByBookId(bookId);
+        verify(recommendationService).findSimilarBooks(bookId, 10);
+    }
+
+    @Test
+    void shouldGetSimilarBooksMethodPassRequestedSizeToService() throws Exception {
+        String bookId = "testBookId";
+
+        when(bookService.existsByBookId(bookId)).thenReturn(true);
+        when(recommendationService.findSimilarBooks(bookId, 3)).thenReturn(List.of());
+
+        mockMvc.perform(get(String.format("/api/books/%s/similar", bookId))
+                .param("size", "3")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+
+        verify(recommendationService).findSimilarBooks(bookId, 3);
+    }
+
+    @Test
+    void shouldGetSimilarBooksMethodReturnNotFoundWhenBookDoesNotExist() throws Exception {
+        String bookId = "nonExistingBookId";
+        String message = String.format("Cannot find book with id: %s", bookId);
+
+        when(bookService.existsByBookId(bookId)).thenReturn(false);
+
+        mockMvc.perform(get(String.format("/api/books/%s/similar", bookId))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(message));
+
+        verify(bookService).existsByBookId(bookId);
+        verify(recommendationService, never()).findSimilarBooks(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldGetBooksBoughtTogetherMethodReturnBooksWhenBookExists() throws Exception {
+        String bookId = "testBookId";
+        List<Book> booksBoughtTogether = List.of(BookGenerator.generateBookWithId(LocalDateTime.now(), "otherBookId"));
+
+        when(bookService.existsByBookId(bookId)).thenReturn(true);
+        when(coPurchaseService.findBoughtTogether(bookId, 10)).thenReturn(booksBoughtTogether);
+
+        mockMvc.perform(get(String.format("/api/books/%s/bought-together", bookId))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(booksBoughtTogether)));
+
+        verify(coPurchaseService).findBoughtTogether(bookId, 10);
+    }
+
+    @Test
+    void shouldGetBooksBoughtTogetherMethodReturnNotFoundWhenBookDoesNotExist() throws Exception {
+        String bookId = "nonExistingBookId";
+
+        when(bookService.existsByBookId(bookId)).thenReturn(false);
+
+        mockMvc.perform(get(String.format("/api/books/%s/bought-together", bookId))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(String.format("Cannot find book with id: %s", bookId)));
+
+        verify(coPurchaseService, never()).findBoughtTogether(anyString(), anyInt());
+    }
+}
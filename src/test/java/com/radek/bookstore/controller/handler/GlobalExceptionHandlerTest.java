@@ -1,5 +1,7 @@
 package com.radek.bookstore.controller.handler;
 
+import com.radek.bookstore.model.exception.PasswordHashingUnavailableException;
+import com.radek.bookstore.model.response.HttpResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -52,6 +54,13 @@ class GlobalExceptionHandlerTest {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    void shouldReturnServiceUnavailableResponseWhenPasswordHashingPoolIsFull() {
+        ResponseEntity<HttpResponse> response = handler.passwordHashingUnavailable(new PasswordHashingUnavailableException("Too many requests"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Too many requests", response.getBody().getMessage());
+    }
+
     private String extractMessageFromResponseBody(String body) {
         int startIndex = body.indexOf("message=");
         int endIndex = body.indexOf(", path=");
@@ -0,0 +1,163 @@
+package com.radek.bookstore.loadtest;
+
+import com.radek.bookstore.generators.*;
+import com.radek.bookstore.model.*;
+import com.radek.bookstore.model.dto.CategoryDto;
+import com.radek.bookstore.model.dto.Purchase;
+import com.radek.bookstore.repository.*;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.service.*;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Seeds the catalog a load test runs against with the test generators: categories, authors and books, active
+ * users with access tokens, ratings, comments and orders. Orders go through the checkout service; ratings and
+ * comments are inserted in bulk, after which the denormalised counters, rankings and similarities are rebuilt
+ * the way the maintenance jobs do it.
+ */
+class CatalogSeeder {
+
+    private static final String WORD_PATTERN = "[a-z]{7}";
+    private static final int BOOKS_PER_AUTHOR = 5;
+    private static final int KEYWORDS = 200;
+
+    private final ApplicationContext context;
+    private final Random random = new Random(42);
+
+    CatalogSeeder(ApplicationContext context) {
+        this.context = context;
+    }
+
+    Dataset seed(int books, int users, int ratings, int comments, int orders) {
+        List<String> keywords = new ArrayList<>(KEYWORDS);
+        for (int i = 0; i < KEYWORDS; i++) {
+            keywords.add(RegexWordGenerator.getRandomRegexWord(WORD_PATTERN));
+        }
+        List<Category> categories = seedCategories();
+        List<String> bookIds = seedBooks(books, categories, keywords);
+        List<User> seededUsers = seedUsers(users);
+
+        seedRatingsAndComments(bookIds, seededUsers, ratings, comments);
+        CheckoutService checkoutService = context.getBean(CheckoutService.class);
+        for (int i = 0; i < orders; i++) {
+            checkoutService.placeOrder(purchase(pick(bookIds)));
+        }
+        TrendingService trendingService = context.getBean(TrendingService.class);
+        for (int i = 0; i < books; i++) {
+            trendingService.recordView(pick(bookIds));
+        }
+        trendingService.flushActivity();
+        context.getBean(RecommendationService.class).rebuildSimilarities();
+
+        JwtTokenProvider jwtTokenProvider = context.getBean(JwtTokenProvider.class);
+        List<Dataset.Reader> readers = new ArrayList<>(seededUsers.size());
+        for (User user : seededUsers) {
+            readers.add(new Dataset.Reader(user.getId(), jwtTokenProvider.generateJwtToken(new UserPrincipal(user))));
+        }
+        List<String> categoryIds = new ArrayList<>();
+        categories.forEach(category -> categoryIds.add(category.getId()));
+        return new Dataset(bookIds, categoryIds, keywords, readers);
+    }
+
+    // inserted in bulk and then counted by the same jobs that repair the counters in production, which is much
+    // faster than going through the services one vote at a time
+    private void seedRatingsAndComments(List<String> bookIds, List<User> users, int ratings, int comments) {
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            Set<String> ratedPairs = new HashSet<>();
+            List<Rating> seededRatings = new ArrayList<>(ratings);
+            while (seededRatings.size() < Math.min(ratings, bookIds.size() * users.size())) {
+                String bookId = pick(bookIds);
+                User user = pick(users);
+                if (ratedPairs.add(bookId + user.getId())) {
+                    Rating rating = RatingGenerator.generateRatingWithVote(null, 1 + random.nextInt(5));
+                    rating.setBook(bookRepository.getOne(bookId));
+                    rating.setUser(userRepository.getOne(user.getId()));
+                    seededRatings.add(rating);
+                }
+            }
+            context.getBean(RatingRepository.class).saveAll(seededRatings);
+            List<Comment> seededComments = new ArrayList<>(comments);
+            for (int i = 0; i < comments; i++) {
+                Comment comment = CommentGenerator.generateCommentWithCommentId(null);
+                comment.setBook(bookRepository.getOne(pick(bookIds)));
+                comment.setUser(userRepository.getOne(pick(users).getId()));
+                seededComments.add(comment);
+            }
+            context.getBean(CommentRepository.class).saveAll(seededComments);
+        });
+        context.getBean(CommentService.class).recalculateCommentsCounts();
+        context.getBean(RankingService.class).recalculateRatingScores();
+    }
+
+    static Purchase purchase(String bookId) {
+        Purchase purchase = PurchaseGenerator.generatePurchaseWithOrderItems(OrderItemGenerator.generateOrderItemWithBookId(bookId));
+        purchase.getCustomer().setId(null);
+        purchase.getOrder().setId(null);
+        purchase.getOrderItems().forEach(orderItem -> orderItem.setId(null));
+        return purchase;
+    }
+
+    private List<Category> seedCategories() {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        List<Category> categories = new ArrayList<>();
+        for (String name : Arrays.asList("Fantastyka", "Kryminał", "Poezja", "Reportaż", "Biografia", "Historia",
+                "Dla dzieci i młodzieży", "Literatura piękna", "Poradniki", "Nauka", "Horror", "Romans")) {
+            categories.add(categoryRepository.save(new Category(new CategoryDto(name))));
+        }
+        return categories;
+    }
+
+    private List<String> seedBooks(int books, List<Category> categories, List<String> keywords) {
+        AuthorRepository authorRepository = context.getBean(AuthorRepository.class);
+        List<Book> seeded = new ArrayList<>(books);
+        List<Author> authors = new ArrayList<>();
+        Author author = null;
+        for (int i = 0; i < books; i++) {
+            Book book = BookGenerator.generateBook(LocalDateTime.now().minusMinutes(i));
+            book.setId(null);
+            book.setTitle(pick(keywords) + " " + pick(keywords));
+            book.setSubtitle(pick(keywords));
+            book.setCategories(new HashSet<>(Arrays.asList(pick(categories), pick(categories))));
+            if (i % BOOKS_PER_AUTHOR == 0) {
+                author = book.getAuthor();
+                author.setId(null);
+                author.setLastName(pick(keywords));
+                authors.add(author);
+            }
+            author.addBook(book);
+            seeded.add(book);
+        }
+        authorRepository.saveAll(authors);
+        List<String> bookIds = new ArrayList<>(books);
+        seeded.forEach(book -> bookIds.add(book.getId()));
+        return bookIds;
+    }
+
+    private List<User> seedUsers(int users) {
+        List<User> seeded = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = UserGenerator.generateUser(null);
+            user.setUserId("loadtest" + i);
+            user.setUsername("loadtest" + i);
+            user.setEmail("loadtest" + i + "@example.com");
+            user.setRole(Role.ROLE_USER.name());
+            user.setAuthorities(Role.ROLE_USER.getAuthorities());
+            user.setAddress(null);
+            user.setActive(true);
+            user.setNotLocked(true);
+            seeded.add(user);
+        }
+        return context.getBean(UserRepository.class).saveAll(seeded);
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
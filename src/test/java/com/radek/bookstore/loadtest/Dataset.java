@@ -0,0 +1,29 @@
+package com.radek.bookstore.loadtest;
+
+import java.util.List;
+
+class Dataset {
+
+    final List<String> bookIds;
+    final List<String> categoryIds;
+    final List<String> keywords;
+    final List<Reader> readers;
+
+    Dataset(List<String> bookIds, List<String> categoryIds, List<String> keywords, List<Reader> readers) {
+        this.bookIds = bookIds;
+        this.categoryIds = categoryIds;
+        this.keywords = keywords;
+        this.readers = readers;
+    }
+
+    static class Reader {
+
+        final String userId;
+        final String accessToken;
+
+        Reader(String userId, String accessToken) {
+            this.userId = userId;
+            this.accessToken = accessToken;
+        }
+    }
+}
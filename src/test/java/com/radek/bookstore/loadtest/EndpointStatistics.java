@@ -0,0 +1,45 @@
+package com.radek.bookstore.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class EndpointStatistics {
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // status 0 stands for a request which got no response: refused connection, reset or timeout
+    void record(long latencyNanos, int status) {
+        latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    Histogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+}
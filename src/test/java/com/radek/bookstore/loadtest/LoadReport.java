@@ -0,0 +1,120 @@
+package com.radek.bookstore.loadtest;
+
+import com.radek.bookstore.loadtest.TrafficMix.Endpoint;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Throughput and latency percentiles per endpoint of one load test run. Written as CSV, one row per endpoint
+ * plus a total, so runs of two builds can be compared with {@link #compareWith(Path, PrintStream)}.
+ */
+class LoadReport {
+
+    private static final String TOTAL = "TOTAL";
+    private static final String CSV_HEADER = "endpoint,requests,ok_per_second,failed,dropped,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+    private static final String ROW_FORMAT = "%-44s %9s %9s %7s %8s %8s %8s %8s %9s %9s%n";
+
+    private final Map<String, Row> rows = new LinkedHashMap<>();
+    private final double ratePerSecond;
+    private final Duration measurement;
+
+    LoadReport(Map<Endpoint, EndpointStatistics> statistics, double ratePerSecond, Duration measurement) {
+        this.ratePerSecond = ratePerSecond;
+        this.measurement = measurement;
+        Histogram total = new Histogram(3);
+        long succeeded = 0, failed = 0, dropped = 0;
+        for (Map.Entry<Endpoint, EndpointStatistics> entry : statistics.entrySet()) {
+            EndpointStatistics endpointStatistics = entry.getValue();
+            rows.put(entry.getKey().route, new Row(endpointStatistics.getLatencyMicros(), endpointStatistics.getSucceeded(),
+                    endpointStatistics.getFailed(), endpointStatistics.getDropped(), measurement));
+            total.add(endpointStatistics.getLatencyMicros());
+            succeeded += endpointStatistics.getSucceeded();
+            failed += endpointStatistics.getFailed();
+            dropped += endpointStatistics.getDropped();
+        }
+        rows.put(TOTAL, new Row(total, succeeded, failed, dropped, measurement));
+    }
+
+    void print(PrintStream out) {
+        out.printf("%nOffered load %.0f req/s for %d s%n%n", ratePerSecond, measurement.getSeconds());
+        out.printf(ROW_FORMAT, "endpoint", "requests", "ok/s", "failed", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        rows.forEach((endpoint, row) -> out.printf(ROW_FORMAT, endpoint, row.requests, format(row.okPerSecond), row.failed,
+                row.dropped, format(row.p50), format(row.p90), format(row.p99), format(row.p999), format(row.max)));
+    }
+
+    void writeCsv(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        rows.forEach((endpoint, row) -> lines.add(String.join(",", endpoint, Long.toString(row.requests), format(row.okPerSecond),
+                Long.toString(row.failed), Long.toString(row.dropped), format(row.p50), format(row.p90), format(row.p99),
+                format(row.p999), format(row.max))));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    // positive changes of the percentiles are regressions, of the throughput improvements
+    void compareWith(Path baselineCsv, PrintStream out) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineCsv, StandardCharsets.UTF_8)) {
+            if (!line.equals(CSV_HEADER)) {
+                String[] columns = line.split(",");
+                baseline.put(columns[0], columns);
+            }
+        }
+        out.printf("%nChange against %s%n%n", baselineCsv);
+        out.printf("%-44s %9s %9s %9s%n", "endpoint", "ok/s", "p50", "p99");
+        rows.forEach((endpoint, row) -> {
+            String[] columns = baseline.get(endpoint);
+            if (columns == null) {
+                out.printf("%-44s %9s%n", endpoint, "new");
+                return;
+            }
+            out.printf("%-44s %9s %9s %9s%n", endpoint, change(Double.parseDouble(columns[2]), row.okPerSecond),
+                    change(Double.parseDouble(columns[5]), row.p50), change(Double.parseDouble(columns[7]), row.p99));
+        });
+    }
+
+    private static String change(double before, double after) {
+        return before == 0 ? "-" : String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static class Row {
+
+        private final long requests;
+        private final double okPerSecond;
+        private final long failed;
+        private final long dropped;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        private Row(Histogram latencyMicros, long succeeded, long failed, long dropped, Duration measurement) {
+            this.requests = succeeded + failed + dropped;
+            this.okPerSecond = succeeded / (double) measurement.getSeconds();
+            this.failed = failed;
+            this.dropped = dropped;
+            this.p50 = millis(latencyMicros, 50);
+            this.p90 = millis(latencyMicros, 90);
+            this.p99 = millis(latencyMicros, 99);
+            this.p999 = millis(latencyMicros, 99.9);
+            this.max = latencyMicros.getMaxValue() / 1000.0;
+        }
+
+        private static double millis(Histogram latencyMicros, double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.radek.bookstore.loadtest;
+
+import com.radek.bookstore.BookstoreBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: boots the application on an in-memory H2 database, seeds a catalog and drives the
+ * storefront traffic mix through the real HTTP stack (Tomcat, filters, security, JSON) at a fixed arrival rate.
+ * Prints a latency and throughput report per endpoint and writes it as CSV to compare builds.
+ *
+ * Run with: mvn -Pload-test test -Dloadtest.args="--rate 5 --duration 60 --baseline target/loadtest/previous.csv"
+ * <p>
+ * The default 5 requests per second is a smoke test that the embedded H2 catalog sustains, not a capacity baseline:
+ * every listing loads the eager book and category graph, so on H2 the application saturates at a few tens of
+ * requests per second. Raise the rate step by step and compare reports only between runs at the same rate.
+ */
+public class LoadTest {
+
+    private static final DateTimeFormatter REPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "5"));
+        Duration warmUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "15")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+
+        try (SmtpSink smtpSink = new SmtpSink();
+             ConfigurableApplicationContext context = start(smtpSink)) {
+            long seedStart = System.nanoTime();
+            Dataset dataset = new CatalogSeeder(context).seed(
+                    Integer.parseInt(options.getOrDefault("books", "1000")),
+                    Integer.parseInt(options.getOrDefault("users", "100")),
+                    Integer.parseInt(options.getOrDefault("ratings", "5000")),
+                    Integer.parseInt(options.getOrDefault("comments", "2000")),
+                    Integer.parseInt(options.getOrDefault("orders", "100")));
+            System.out.printf("Seeded %d books, %d users in %d s%n", dataset.bookIds.size(), dataset.readers.size(),
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - seedStart));
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            TrafficMix trafficMix = new TrafficMix("http://localhost:" + port, dataset);
+            LoadReport report = new OpenModelLoadGenerator(httpClient, trafficMix, rate, maxInFlight).run(warmUp, duration);
+
+            report.print(System.out);
+            Path reportFile = Paths.get(options.getOrDefault("report-dir", "target/loadtest"),
+                    "loadtest-" + LocalDateTime.now().format(REPORT_TIMESTAMP) + ".csv");
+            report.writeCsv(reportFile);
+            System.out.printf("%nReport written to %s (%d mails accepted by the SMTP sink)%n", reportFile, smtpSink.getReceived());
+            if (options.containsKey("baseline")) {
+                report.compareWith(Paths.get(options.get("baseline")), System.out);
+            }
+        }
+    }
+
+    // the test profile brings the H2 datasource; everything that would reach outside the process or throttle
+    // the generated traffic is pointed at local stand-ins or switched off. Passed as command line arguments,
+    // which take precedence over the yaml files, unlike default properties
+    private static ConfigurableApplicationContext start(SmtpSink smtpSink) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("management.server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("logging.level.root", "WARN");
+        properties.put("bookstore.rate-limit.enabled", false);
+        properties.put("bookstore.server-timing.slow-request-ms", 60_000);
+        properties.put("bookstore.mail.smtp.host", "localhost");
+        properties.put("bookstore.mail.smtp.port", smtpSink.getPort());
+        properties.put("bookstore.mail.smtp.auth", false);
+        properties.put("bookstore.mail.smtp.starttls", false);
+        properties.put("bookstore.app.jwtExpirationMs", TimeUnit.HOURS.toMillis(12));
+        return new SpringApplicationBuilder(BookstoreBackendApplication.class)
+                .profiles("test")
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option like --rate 200 but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
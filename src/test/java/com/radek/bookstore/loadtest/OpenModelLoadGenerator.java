@@ -0,0 +1,80 @@
+package com.radek.bookstore.loadtest;
+
+import com.radek.bookstore.loadtest.TrafficMix.Endpoint;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests arrive as a Poisson process at a fixed rate, whether or not earlier ones have
+ * completed, the way independent readers hit a shop. Latency is measured from the moment a request was due
+ * rather than when it was sent, so a stalled server shows up in the percentiles instead of quietly lowering
+ * the offered load. Arrivals beyond the in-flight limit are dropped and reported.
+ */
+class OpenModelLoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final HttpClient httpClient;
+    private final TrafficMix trafficMix;
+    private final double ratePerSecond;
+    private final int maxInFlight;
+
+    OpenModelLoadGenerator(HttpClient httpClient, TrafficMix trafficMix, double ratePerSecond, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.trafficMix = trafficMix;
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+
+    LoadReport run(Duration warmUp, Duration measurement) throws InterruptedException {
+        Map<Endpoint, EndpointStatistics> statistics = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            statistics.put(endpoint, new EndpointStatistics());
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Random random = new Random(7);
+        long start = System.nanoTime();
+        long measureFrom = start + warmUp.toNanos();
+        long end = measureFrom + measurement.toNanos();
+        long due = start;
+        while (true) {
+            due += (long) (-Math.log(1 - random.nextDouble()) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = trafficMix.nextEndpoint(random);
+            EndpointStatistics endpointStatistics = due >= measureFrom ? statistics.get(endpoint) : null;
+            if (!inFlight.tryAcquire()) {
+                if (endpointStatistics != null) {
+                    endpointStatistics.recordDropped();
+                }
+                continue;
+            }
+            long dueAt = due;
+            httpClient.sendAsync(trafficMix.request(endpoint), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.release();
+                        if (endpointStatistics != null) {
+                            endpointStatistics.record(System.nanoTime() - dueAt, failure == null ? response.statusCode() : 0);
+                        }
+                    });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.err.printf("%d requests still in flight after %d s, reporting without them%n",
+                    maxInFlight - inFlight.availablePermits(), DRAIN_TIMEOUT_SECONDS);
+        }
+        return new LoadReport(statistics, ratePerSecond, measurement);
+    }
+}
@@ -0,0 +1,134 @@
+package com.radek.bookstore.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.radek.bookstore.generators.CommentGenerator;
+import com.radek.bookstore.model.dto.RatingDto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.radek.bookstore.utils.constants.SecurityConstants.TOKEN_PREFIX;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Storefront traffic: mostly catalog reads with a few writes, spread over the books with a skew towards a
+ * small set of popular titles, like real readers do.
+ */
+class TrafficMix {
+
+    enum Endpoint {
+        BROWSE("GET /api/books", 25),
+        CATEGORY("GET /api/categories/{id}", 10),
+        SEARCH("GET /api/books/search", 15),
+        BOOK_DETAIL("GET /api/books/{id}", 25),
+        BOOK_COMMENTS("GET /api/comments/{bookId}", 10),
+        RATE("POST /api/ratings/{bookId}/user/{userId}", 7),
+        COMMENT("POST /api/comments/{bookId}/user/{userId}", 5),
+        CHECKOUT("POST /api/checkout/purchase", 3);
+
+        final String route;
+        final int weight;
+
+        Endpoint(String route, int weight) {
+            this.route = route;
+            this.weight = weight;
+        }
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int BROWSED_PAGES = 10;
+
+    private final String baseUrl;
+    private final Dataset dataset;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final Endpoint[] endpointByTicket;
+
+    TrafficMix(String baseUrl, Dataset dataset) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        int tickets = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            tickets += endpoint.weight;
+        }
+        endpointByTicket = new Endpoint[tickets];
+        int ticket = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (int i = 0; i < endpoint.weight; i++) {
+                endpointByTicket[ticket++] = endpoint;
+            }
+        }
+    }
+
+    Endpoint nextEndpoint(Random random) {
+        return endpointByTicket[random.nextInt(endpointByTicket.length)];
+    }
+
+    HttpRequest request(Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (endpoint) {
+            case BROWSE:
+                return get("/api/books?page=" + random.nextInt(BROWSED_PAGES));
+            case CATEGORY:
+                return get("/api/categories/" + pick(dataset.categoryIds, random) + "?page=" + random.nextInt(3));
+            case SEARCH:
+                return get("/api/books/search?keyword=" + pick(dataset.keywords, random).substring(0, 4));
+            case BOOK_DETAIL:
+                return get("/api/books/" + popularBook(random));
+            case BOOK_COMMENTS:
+                return get("/api/comments/" + popularBook(random));
+            case RATE: {
+                Dataset.Reader reader = pick(dataset.readers, random);
+                return post("/api/ratings/" + popularBook(random) + "/user/" + reader.userId,
+                        new RatingDto(1 + random.nextInt(5)), reader);
+            }
+            case COMMENT: {
+                Dataset.Reader reader = pick(dataset.readers, random);
+                return post("/api/comments/" + popularBook(random) + "/user/" + reader.userId,
+                        CommentGenerator.generateCommentDto(), reader);
+            }
+            case CHECKOUT:
+                return post("/api/checkout/purchase", CatalogSeeder.purchase(popularBook(random)), pick(dataset.readers, random));
+            default:
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+    }
+
+    // cubing the uniform draw sends about half of the views to the first tenth of the catalog
+    private String popularBook(Random random) {
+        double draw = random.nextDouble();
+        return dataset.bookIds.get((int) (dataset.bookIds.size() * draw * draw * draw));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(ACCEPT, APPLICATION_JSON_VALUE)
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Object body, Dataset.Reader reader) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header(ACCEPT, APPLICATION_JSON_VALUE)
+                    .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .header(AUTHORIZATION, TOKEN_PREFIX + reader.accessToken)
+                    .timeout(REQUEST_TIMEOUT)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException exc) {
+            throw new IllegalStateException("Cannot serialise request body of " + path, exc);
+        }
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
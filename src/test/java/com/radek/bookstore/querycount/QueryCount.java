@@ -0,0 +1,40 @@
+package com.radek.bookstore.querycount;
+
+import org.opentest4j.AssertionFailedError;
+
+public class QueryCount {
+
+    private final int statements;
+    private final long rows;
+    private final int entityLoads;
+
+    QueryCount(int statements, long rows, int entityLoads) {
+        this.statements = statements;
+        this.rows = rows;
+        this.entityLoads = entityLoads;
+    }
+
+    public void assertAtMost(int maxStatements, int maxEntityLoads) {
+        if (statements > maxStatements || entityLoads > maxEntityLoads) {
+            throw new AssertionFailedError(String.format("Expected at most %d SQL statements and %d entity loads but was %s",
+                    maxStatements, maxEntityLoads, this));
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d statements (%d rows), %d entity loads", statements, rows, entityLoads);
+    }
+}
@@ -0,0 +1,60 @@
+package com.radek.bookstore.querycount;
+
+import com.radek.bookstore.config.timing.QueryStatistics;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Counts the SQL statements, rows and entity loads of an action run on the calling thread. Statements are taken
+ * from the {@link QueryStatistics} of the application data source and entity loads from a Hibernate post load
+ * listener, both per thread, so scheduled jobs running at the same time do not change the numbers.
+ */
+public class QueryCounter {
+
+    private static final ThreadLocal<int[]> ENTITY_LOADS = new ThreadLocal<>();
+    private static final Set<SessionFactoryImplementor> INSTRUMENTED = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private QueryCounter() {
+    }
+
+    public static QueryCounter forEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        synchronized (INSTRUMENTED) {
+            if (INSTRUMENTED.add(sessionFactory)) {
+                sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)
+                        .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+                            int[] entityLoads = ENTITY_LOADS.get();
+                            if (entityLoads != null) {
+                                entityLoads[0]++;
+                            }
+                        });
+            }
+        }
+        return new QueryCounter();
+    }
+
+    public QueryCount count(Action action) throws Exception {
+        QueryStatistics statistics = QueryStatistics.start();
+        int[] entityLoads = new int[1];
+        ENTITY_LOADS.set(entityLoads);
+        try {
+            action.run();
+        } finally {
+            ENTITY_LOADS.remove();
+            QueryStatistics.stop();
+        }
+        return new QueryCount(statistics.getStatements(), statistics.getRows(), entityLoads[0]);
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
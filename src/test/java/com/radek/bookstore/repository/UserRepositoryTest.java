@@ -0,0 +1,161 @@
+package com.radek.bookstore.repository;
+
+import com.radek.bookstore.generators.AddressGenerator;
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.Role;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.response.UserJson;
+import com.radek.bookstore.service.LastLoginRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    User user;
+
+    @BeforeEach
+    void setup() {
+        user = UserGenerator.generateUser(null, "John.Smith@example.com");
+        user.setUserId("123456789012345");
+        user.setUsername("JSmith");
+        user.setRole(Role.ROLE_USER.name());
+        user.setAuthorities(Role.ROLE_USER.getAuthorities());
+        user.setAddress(null);
+        AddressGenerator.generateBaseAddress().addUser(user);
+        user = entityManager.persistAndFlush(user);
+    }
+
+    @Test
+    void shouldFindUserJsonByCredentialsMatchUsernameOrEmailIgnoringCase() {
+        Optional<UserJson> byUsername = userRepository.findUserJsonByCredentials(" jsmith ");
+        Optional<UserJson> byEmail = userRepository.findUserJsonByCredentials("JOHN.SMITH@EXAMPLE.COM");
+
+        assertTrue(byUsername.isPresent());
+        assertEquals(user.getId(), byUsername.get().getId());
+        assertTrue(byEmail.isPresent());
+        assertEquals(user.getId(), byEmail.get().getId());
+        assertFalse(userRepository.findUserJsonByCredentials("someone-else").isPresent());
+    }
+
+    @Test
+    void shouldFindUserJsonWithAddressByCredentialsMatchUsernameOrEmailIgnoringCase() {
+        Optional<UserJson> byUsername = userRepository.findUserJsonWithAddressByCredentials("JSMITH");
+        Optional<UserJson> byEmail = userRepository.findUserJsonWithAddressByCredentials("john.smith@example.com ");
+
+        assertTrue(byUsername.isPresent());
+        assertEquals(user.getAddress().getCity(), byUsername.get().getAddress().getCity());
+        assertTrue(byEmail.isPresent());
+        assertEquals(user.getId(), byEmail.get().getId());
+        assertFalse(userRepository.findUserJsonWithAddressByCredentials("someone-else").isPresent());
+    }
+
+    @Test
+    void shouldFindIdByIdentityKeyOfUsernameOrEmail() {
+        assertEquals(Optional.of(user.getId()), userRepository.findIdByIdentityKey(User.identityKey("JSmith")));
+        assertEquals(Optional.of(user.getId()), userRepository.findIdByIdentityKey(User.identityKey("John.Smith@Example.com")));
+        assertFalse(userRepository.findIdByIdentityKey("someone-else").isPresent());
+    }
+
+    @Test
+    void shouldFindUserLeftWithoutIdentityKeysByExactCredentials() {
+        User unkeyedUser = UserGenerator.generateUser(null, "jsmith@example.com");
+        unkeyedUser.setUserId("123456789012346");
+        unkeyedUser.setUsername("jsmith2");
+        unkeyedUser.setRole(Role.ROLE_USER.name());
+        unkeyedUser.setAuthorities(Role.ROLE_USER.getAuthorities());
+        unkeyedUser.setAddress(null);
+        unkeyedUser = entityManager.persistAndFlush(unkeyedUser);
+        jdbcTemplate.update("UPDATE app_users SET login_key = NULL, email_key = NULL WHERE id = ?", unkeyedUser.getId());
+        entityManager.clear();
+
+        assertEquals(unkeyedUser.getId(), userRepository.findByUsernameOrEmail("jsmith2").map(User::getId).orElse(null));
+        assertEquals(unkeyedUser.getId(), userRepository.findByUsernameOrEmail("jsmith@example.com").map(User::getId).orElse(null));
+        assertEquals(Optional.of(unkeyedUser.getId()), userRepository.findIdByCredentials("jsmith2"));
+        assertEquals(unkeyedUser.getId(), userRepository.findUserJsonByCredentials("jsmith2").map(UserJson::getId).orElse(null));
+        assertFalse(userRepository.findByUsernameOrEmail("JSMITH2").isPresent());
+        assertEquals(user.getId(), userRepository.findByUsernameOrEmail("JSmith").map(User::getId).orElse(null));
+    }
+
+    @Test
+    void shouldKeepRawEmailUniqueForUsersWithoutEmailKey() {
+        User unkeyedUser = UserGenerator.generateUser(null, "jsmith@example.com");
+        unkeyedUser.setUserId("123456789012346");
+        unkeyedUser.setUsername("jsmith2");
+        unkeyedUser.setRole(Role.ROLE_USER.name());
+        unkeyedUser.setAuthorities(Role.ROLE_USER.getAuthorities());
+        unkeyedUser.setAddress(null);
+        String unkeyedUserId = entityManager.persistAndFlush(unkeyedUser).getId();
+
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "UPDATE app_users SET email_key = NULL, email = ? WHERE id = ?", user.getEmail(), unkeyedUserId));
+    }
+
+    @Test
+    void shouldFindUsernameToDisplayFallBackToFullNameWithoutUsername() {
+        assertEquals(Optional.of("JSmith"), userRepository.findUsernameToDisplayById(user.getId()));
+
+        jdbcTemplate.update("UPDATE app_users SET username = NULL WHERE id = ?", user.getId());
+
+        assertEquals(Optional.of(user.getFirstName() + " " + user.getLastName()), userRepository.findUsernameToDisplayById(user.getId()));
+        assertFalse(userRepository.findUsernameToDisplayById("missing").isPresent());
+    }
+
+    @Test
+    void shouldFindUserJsonsWithoutIdentityKeysReturnOnlyUsersLeftWithoutKeysByBackfill() {
+        User unkeyedUser = UserGenerator.generateUser(null, "jsmith@example.com");
+        unkeyedUser.setUserId("123456789012346");
+        unkeyedUser.setUsername("jsmith2");
+        unkeyedUser.setRole(Role.ROLE_USER.name());
+        unkeyedUser.setAuthorities(Role.ROLE_USER.getAuthorities());
+        unkeyedUser.setAddress(null);
+        unkeyedUser = entityManager.persistAndFlush(unkeyedUser);
+        jdbcTemplate.update("UPDATE app_users SET login_key = NULL WHERE id = ?", unkeyedUser.getId());
+
+        Page<UserJson> result = userRepository.findUserJsonsWithoutIdentityKeys(PageRequest.of(0, 10));
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(unkeyedUser.getId(), result.getContent().get(0).getId());
+    }
+
+    @Test
+    void shouldSavingUserLoadedBeforeLoginKeepRecordedLastLoginDate() {
+        LocalDateTime loginDate = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User staleUser = userRepository.findById(user.getId()).get();
+        LastLoginRecorder lastLoginRecorder = new LastLoginRecorder(jdbcTemplate, 500);
+        lastLoginRecorder.recordLogin(user.getId(), loginDate);
+        lastLoginRecorder.flush();
+
+        staleUser.setFirstName("Jonathan");
+        userRepository.saveAndFlush(staleUser);
+        entityManager.clear();
+
+        User reloadedUser = userRepository.findById(user.getId()).get();
+        assertEquals("Jonathan", reloadedUser.getFirstName());
+        assertEquals(loginDate, reloadedUser.getLastLoginDate());
+    }
+}
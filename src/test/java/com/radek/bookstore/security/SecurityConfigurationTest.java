@@ -0,0 +1,51 @@
+package com.radek.bookstore.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.radek.bookstore.utils.constants.AuthorityConstants.METRICS_READ;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:security;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "management.server.port="})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigurationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void shouldServeHealthWithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRequireAuthenticationForMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(authorities = "user:account")
+    void shouldDenyMetricsWithoutMetricsAuthority() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = METRICS_READ)
+    void shouldServeMetricsWithMetricsAuthority() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldStillRequireAuthenticationForApi() throws Exception {
+        mockMvc.perform(get("/api/users/list")).andExpect(status().isForbidden());
+    }
+}
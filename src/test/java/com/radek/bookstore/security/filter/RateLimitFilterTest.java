@@ -0,0 +1,104 @@
+package com.radek.bookstore.security.filter;
+
+import com.radek.bookstore.config.RateLimitProperties;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.radek.bookstore.utils.constants.SecurityConstants.TOKEN_PREFIX;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+class RateLimitFilterTest {
+
+    JwtTokenProvider jwtTokenProvider;
+    MeterRegistry meterRegistry;
+    RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName("book-search");
+        route.setPatterns(List.of("/api/books/search/**"));
+        route.setMethods(List.of("GET"));
+        route.setCapacity(2);
+        route.setRefillPerSecond(0.01);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        jwtTokenProvider = mock(JwtTokenProvider.class);
+        when(jwtTokenProvider.verifyToken(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistryProvider = mock(ObjectProvider.class);
+        when(meterRegistryProvider.getIfAvailable(org.mockito.ArgumentMatchers.any())).thenReturn(meterRegistry);
+        rateLimitFilter = new RateLimitFilter(properties, jwtTokenProvider, meterRegistryProvider);
+    }
+
+    @Test
+    void shouldRejectRequestsOverRouteCapacityWithRetryAfterHeader() throws Exception {
+        assertEquals(200, search("10.0.0.1", null).getStatus());
+        assertEquals(200, search("10.0.0.1", null).getStatus());
+
+        MockHttpServletResponse rejected = search("10.0.0.1", null);
+
+        assertEquals(429, rejected.getStatus());
+        assertTrue(Long.parseLong(rejected.getHeader(RETRY_AFTER)) >= 1);
+        assertEquals(1.0, meterRegistry.get("bookstore.rate_limit.rejected").tag("route", "book-search").counter().count());
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsForEachAddress() throws Exception {
+        search("10.0.0.1", null);
+        search("10.0.0.1", null);
+
+        assertEquals(200, search("10.0.0.2", null).getStatus());
+    }
+
+    @Test
+    void shouldKeySignedInUserBySubjectInsteadOfAddress() throws Exception {
+        when(jwtTokenProvider.verifyToken("token"))
+                .thenReturn(Optional.of(new VerifiedToken("john", Collections.emptyList(), "tokenId", Instant.now(), Instant.now().plusSeconds(60))));
+        search("10.0.0.1", "token");
+        search("10.0.0.2", "token");
+
+        assertEquals(429, search("10.0.0.3", "token").getStatus());
+        assertEquals(200, search("10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    void shouldNotLimitRequestsOutsideConfiguredRoutes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/bookId");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            rateLimitFilter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private MockHttpServletResponse search(String remoteAddress, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/search");
+        request.setRemoteAddr(remoteAddress);
+        if (token != null) {
+            request.addHeader(AUTHORIZATION, TOKEN_PREFIX + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
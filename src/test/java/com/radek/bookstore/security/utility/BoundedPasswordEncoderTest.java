@@ -0,0 +1,61 @@
+package com.radek.bookstore.security.utility;
+
+import com.radek.bookstore.model.exception.PasswordHashingUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, executor);
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void shouldEncodeAndMatchPasswordOnHashingPool() {
+        String encodedPassword = encoder.encode("password");
+
+        assertTrue(encodedPassword.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("password", encodedPassword));
+        assertFalse(encoder.matches("otherPassword", encodedPassword));
+        assertEquals(3, executor.getTaskCount());
+    }
+
+    @Test
+    void shouldUpgradeEncodingMethodReturnTrueOnlyWhenHashUsesOtherCost() {
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+        assertFalse(encoder.upgradeEncoding("notBcryptHash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void shouldThrowPasswordHashingUnavailableExceptionWhenPoolAndQueueAreFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.matches("password", "hash"));
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("password"));
+        release.countDown();
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.radek.bookstore.security.utility;
+
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.Role;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenProviderTest {
+
+    @Mock
+    RevokedTokenRepository revokedTokenRepository;
+
+    TokenRevocationList tokenRevocationList;
+    JwtTokenProvider jwtTokenProvider;
+    UserPrincipal userPrincipal;
+
+    @BeforeEach
+    void setup() {
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, 900_000, 1000, 0.001);
+        jwtTokenProvider = new JwtTokenProvider("testSecret", 100, 900_000, tokenRevocationList);
+        User user = UserGenerator.generateUser("testUserId");
+        user.setUsername("jsmith");
+        user.setAuthorities(Role.ROLE_USER.getAuthorities());
+        userPrincipal = new UserPrincipal(user);
+    }
+
+    @Test
+    void shouldAcceptTokenIssuedRightAfterSubjectWasRevoked() throws InterruptedException {
+        String tokenBefore = jwtTokenProvider.generateJwtToken(userPrincipal);
+        tokenRevocationList.revokeSubject("jsmith");
+        Thread.sleep(2);
+
+        String tokenAfter = jwtTokenProvider.generateJwtToken(userPrincipal);
+
+        assertFalse(jwtTokenProvider.verifyToken(tokenBefore).isPresent());
+        assertTrue(jwtTokenProvider.verifyToken(tokenAfter).isPresent());
+    }
+}
@@ -0,0 +1,129 @@
+package com.radek.bookstore.security.utility;
+
+import com.radek.bookstore.model.RevokedToken;
+import com.radek.bookstore.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    RevokedTokenRepository revokedTokenRepository;
+
+    TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setup() {
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, 900_000, 1000, 0.001);
+    }
+
+    @Test
+    void shouldRevokeSingleTokenById() {
+        Instant expiresAt = Instant.now().plusSeconds(900);
+
+        tokenRevocationList.revokeToken("revokedId", expiresAt);
+
+        assertTrue(tokenRevocationList.isRevoked(token("john", "revokedId", Instant.now())));
+        assertFalse(tokenRevocationList.isRevoked(token("john", "otherId", Instant.now())));
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        assertEquals("revokedId", captor.getValue().getTokenId());
+    }
+
+    @Test
+    void shouldRevokeTokensOfSubjectIssuedBeforeRevocationOnly() throws InterruptedException {
+        Instant issuedBefore = Instant.now().minusSeconds(60);
+
+        tokenRevocationList.revokeSubject("john");
+
+        assertTrue(tokenRevocationList.isRevoked(token("john", "firstId", issuedBefore)));
+        assertFalse(tokenRevocationList.isRevoked(token("john", "secondId", Instant.now().plusSeconds(2))));
+        assertFalse(tokenRevocationList.isRevoked(token("anna", "thirdId", issuedBefore)));
+    }
+
+    @Test
+    void shouldNotRevokeTokenIssuedWithinTheSecondAfterRevocation() {
+        tokenRevocationList.revokeSubject("john");
+        Instant issuedAfter = Instant.now().plusMillis(1);
+
+        assertFalse(tokenRevocationList.isRevoked(token("john", "firstId", issuedAfter)));
+    }
+
+    @Test
+    void shouldRevokeSubjectInMemoryOnlyAfterTransactionCommits() {
+        Instant issuedBefore = Instant.now().minusSeconds(60);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenRevocationList.revokeSubject("john");
+
+            assertFalse(tokenRevocationList.isRevoked(token("john", "firstId", issuedBefore)));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            assertTrue(tokenRevocationList.isRevoked(token("john", "firstId", issuedBefore)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldNotRevokeInMemoryWhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenRevocationList.revokeToken("revokedId", Instant.now().plusSeconds(900));
+            tokenRevocationList.revokeSubject("john");
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(tokenRevocationList.isRevoked(token("john", "revokedId", Instant.now().minusSeconds(60))));
+    }
+
+    @Test
+    void shouldRebuildMethodLoadRevocationsSavedByOtherNodes() {
+        LocalDateTime now = LocalDateTime.now();
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of(
+                new RevokedToken("revokedId", null, now, now.plusMinutes(15)),
+                new RevokedToken(null, "anna", now, now.plusMinutes(15))));
+
+        tokenRevocationList.rebuild();
+
+        assertTrue(tokenRevocationList.isRevoked(token("john", "revokedId", Instant.now())));
+        assertTrue(tokenRevocationList.isRevoked(token("anna", "annaId", Instant.now().minusSeconds(60))));
+        verify(revokedTokenRepository).deleteExpired(any());
+    }
+
+    @Test
+    void shouldRebuildMethodDropRevocationsWhichAreNoLongerStored() {
+        tokenRevocationList.revokeToken("revokedId", Instant.now().plusSeconds(900));
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(Collections.emptyList());
+
+        tokenRevocationList.rebuild();
+
+        assertFalse(tokenRevocationList.isRevoked(token("john", "revokedId", Instant.now())));
+    }
+
+    private VerifiedToken token(String subject, String tokenId, Instant issuedAt) {
+        return new VerifiedToken(subject, Collections.emptyList(), tokenId, issuedAt, issuedAt.plusSeconds(900));
+    }
+}
@@ -7,6 +7,7 @@ import com.radek.bookstore.model.Category;
 import com.radek.bookstore.model.dto.AuthorDto;
 import com.radek.bookstore.model.dto.BookDto;
 import com.radek.bookstore.model.dto.CategoryDto;
+import com.radek.bookstore.model.event.BookChangedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.model.response.BookJson;
 import com.radek.bookstore.model.mapper.BookJsonMapper;
@@ -20,8 +21,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -49,13 +52,19 @@ class BookServiceTest {
     @Mock
     RatingRepository ratingRepository;
 
+    @Mock
+    TrendingService trendingService;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     BookJsonMapper bookJsonMapper = new BookJsonMapper();
 
     BookService bookService;
 
     @BeforeEach
     void setup(){
-        bookService = new BookServiceImpl(bookRepository, authorRepository, ratingRepository, bookJsonMapper);
+        bookService = new BookServiceImpl(bookRepository, authorRepository, ratingRepository, bookJsonMapper, trendingService, eventPublisher);
     }
 
     @Test
@@ -98,6 +107,7 @@ class BookServiceTest {
         assertEquals(book.getTitle(), result.getTitle());
 
         verify(bookRepository).findById(bookId);
+        verify(trendingService).recordView(bookId);
     }
 
     @Test
@@ -110,6 +120,7 @@ class BookServiceTest {
         assertEquals(Optional.empty(), result);
 
         verify(bookRepository).findById(bookId);
+        verify(trendingService, never()).recordView(bookId);
     }
 
     @ParameterizedTest
@@ -458,6 +469,10 @@ class BookServiceTest {
 
         verify(ratingRepository).deleteByBookId(bookId);
         verify(bookRepository).deleteById(bookId);
+        ArgumentCaptor<BookChangedEvent> captor = ArgumentCaptor.forClass(BookChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(bookId, captor.getValue().getBookId());
+        assertTrue(captor.getValue().isDeleted());
     }
 
     @Test
@@ -4,6 +4,7 @@ import com.radek.bookstore.generators.BookGenerator;
 import com.radek.bookstore.model.Book;
 import com.radek.bookstore.model.Customer;
 import com.radek.bookstore.model.dto.Purchase;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.model.response.PurchaseJson;
 import com.radek.bookstore.repository.*;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 
 import javax.mail.MessagingException;
@@ -48,11 +50,14 @@ public class CheckoutServiceTest {
     @Mock
     EmailService emailService;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     CheckoutService checkoutService;
 
     @BeforeEach
     void setup() {
-        this.checkoutService = new CheckoutServiceImpl(customerRepository, bookRepository, orderRepository, orderItemRepository, addressRepository, currentUserService, emailService);
+        this.checkoutService = new CheckoutServiceImpl(customerRepository, bookRepository, orderRepository, orderItemRepository, addressRepository, currentUserService, emailService, eventPublisher);
     }
 
     @Test
@@ -74,6 +79,7 @@ public class CheckoutServiceTest {
         verify(bookRepository).existsById(anyString());
         verify(bookRepository).findById(anyString());
         verify(customerRepository).save(purchase.getCustomer());
+        verify(eventPublisher).publishEvent(any(OrderPlacedEvent.class));
     }
 
     @Test
@@ -0,0 +1,130 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.repository.OrderItemRepository;
+import com.radek.bookstore.repository.OrderRepository;
+import com.radek.bookstore.service.impl.CoPurchaseServiceImpl;
+import com.radek.bookstore.service.recommendation.PurchasedBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoPurchaseServiceTest {
+
+    @Mock
+    OrderRepository orderRepository;
+
+    @Mock
+    OrderItemRepository orderItemRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    CoPurchaseService coPurchaseService;
+
+    @BeforeEach
+    void setup() {
+        coPurchaseService = new CoPurchaseServiceImpl(orderRepository, orderItemRepository, bookRepository, 2, 2, 2);
+    }
+
+    @Test
+    void shouldFindBoughtTogetherMethodReturnEmptyListWhenBookWasNeverBought() {
+        List<Book> result = coPurchaseService.findBoughtTogether("neverBoughtBookId", 10);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldFindBoughtTogetherMethodReturnBooksOrderedByCoPurchaseCount() {
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book2"));
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book3"));
+        ((CoPurchaseServiceImpl) coPurchaseService).onOrderPlaced(new OrderPlacedEvent("trackingNumber", Map.of("book1", 2, "book3", 1)));
+        mockBooks("book2", "book3");
+
+        List<Book> result = coPurchaseService.findBoughtTogether("book1", 10);
+
+        assertEquals(Arrays.asList("book3", "book2"), bookIds(result));
+    }
+
+    @Test
+    void shouldFindBoughtTogetherMethodKeepCounterBoundedAndSkipInactiveBooks() {
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book2", "book2"));
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book2"));
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book3"));
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book4"));
+        Book inactiveBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book2");
+        inactiveBook.setActive(false);
+        Book activeBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book4");
+        when(bookRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(inactiveBook, activeBook));
+
+        List<Book> result = coPurchaseService.findBoughtTogether("book1", 10);
+
+        assertEquals(Collections.singletonList("book4"), bookIds(result));
+        verify(bookRepository).findAllById(Arrays.asList("book2", "book4"));
+    }
+
+    @Test
+    void shouldFindBoughtTogetherMethodThrowBookStoreServiceExceptionWhenNonTransientDataAccessExceptionOccur() {
+        coPurchaseService.recordOrder(Arrays.asList("book1", "book2"));
+        doThrow(new NonTransientDataAccessException(""){}).when(bookRepository).findAllById(anyCollection());
+
+        assertThrows(BookStoreServiceException.class, () -> coPurchaseService.findBoughtTogether("book1", 10));
+    }
+
+    @Test
+    void shouldBackfillMethodLoadHistoricalOrdersInKeysetChunks() {
+        when(orderRepository.findOrderIdsPlacedBefore(any(LocalDateTime.class), eq(""), any(Pageable.class)))
+                .thenReturn(Arrays.asList("order1", "order2"));
+        when(orderRepository.findOrderIdsPlacedBefore(any(LocalDateTime.class), eq("order2"), any(Pageable.class)))
+                .thenReturn(Collections.singletonList("order3"));
+        when(orderItemRepository.findPurchasedBooks(Arrays.asList("order1", "order2"))).thenReturn(Arrays.asList(
+                new PurchasedBook("order1", "book1"), new PurchasedBook("order1", "book2"),
+                new PurchasedBook("order2", "book1"), new PurchasedBook("order2", "book3")));
+        when(orderItemRepository.findPurchasedBooks(Collections.singletonList("order3"))).thenReturn(Arrays.asList(
+                new PurchasedBook("order3", "book1"), new PurchasedBook("order3", "book3")));
+        mockBooks("book2", "book3");
+
+        coPurchaseService.backfill();
+        List<Book> result = coPurchaseService.findBoughtTogether("book1", 10);
+
+        assertEquals(Arrays.asList("book3", "book2"), bookIds(result));
+        verify(orderRepository, times(2)).findOrderIdsPlacedBefore(any(LocalDateTime.class), anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void shouldBackfillMethodNotThrowWhenNonTransientDataAccessExceptionOccur() {
+        doThrow(new NonTransientDataAccessException(""){}).when(orderRepository)
+                .findOrderIdsPlacedBefore(any(LocalDateTime.class), anyString(), any(Pageable.class));
+
+        assertDoesNotThrow(() -> coPurchaseService.backfill());
+    }
+
+    private void mockBooks(String... bookIds) {
+        List<Book> books = Arrays.stream(bookIds)
+                .map(bookId -> BookGenerator.generateBookWithId(LocalDateTime.now(), bookId))
+                .collect(Collectors.toList());
+        when(bookRepository.findAllById(anyCollection())).thenReturn(books);
+    }
+
+    private List<String> bookIds(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
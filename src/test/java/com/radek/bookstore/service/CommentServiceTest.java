@@ -20,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.NonTransientDataAccessException;
@@ -52,7 +53,7 @@ class CommentServiceTest {
 
     @BeforeEach
     void setup() {
-        commentService = new CommentServiceImpl(commentRepository, bookRepository, userRepository, commentJsonMapper);
+        commentService = new CommentServiceImpl(commentRepository, bookRepository, userRepository, commentJsonMapper, false);
     }
 
     @Test
@@ -126,27 +127,37 @@ class CommentServiceTest {
     }
 
     @Test
-    void shouldSaveCommentMethodReturnCollectionOfBooksComments() {
-        Comment comment = CommentGenerator.generateCommentWithCommentId("testCommentId");
+    void shouldSaveCommentMethodReturnSavedCommentJson() {
         Book book = BookGenerator.generateBookWithId(LocalDateTime.now(), "testBookId");
-        User user = comment.getUser();
+        User user = UserGenerator.generateUser("testUserId");
+        user.setUsername("testUsername");
         CommentDto commentDto = CommentGenerator.generateCommentDto();
-        Comment commentToSave = new Comment(commentDto);
-        commentToSave.setUser(user);
-        book.addComment(commentToSave);
-
-        when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        lenient().when(bookRepository.save(any(Book.class))).thenReturn(book);
-
-
-        Collection<Comment> result = commentService.saveComment(commentDto, book.getId(), user.getId());
-
-        assertEquals(book.getComments(), result);
-
-        verify(bookRepository).findById(book.getId());
-        verify(userRepository).findById(user.getId());
-        verify(bookRepository).save(any(Book.class));
+        Comment savedComment = new Comment(commentDto);
+        savedComment.setId("testCommentId");
+        savedComment.setUpdateDate(LocalDateTime.now());
+        savedComment.setUser(user);
+        savedComment.setBook(book);
+
+        User userReference = mock(User.class);
+
+        when(bookRepository.getOne(book.getId())).thenReturn(book);
+        when(userRepository.getOne(user.getId())).thenReturn(userReference);
+        when(commentRepository.save(any(Comment.class))).thenReturn(savedComment);
+        when(userRepository.findUsernameToDisplayById(user.getId())).thenReturn(Optional.of(user.getUsername()));
+
+        CommentJson result = commentService.saveComment(commentDto, book.getId(), user.getId());
+
+        assertEquals(savedComment.getId(), result.getId());
+        assertEquals(commentDto.getContent(), result.getContent());
+        assertEquals(user.getUsername(), result.getUsernameToDisplay());
+
+        verify(bookRepository).getOne(book.getId());
+        verify(userRepository).getOne(user.getId());
+        verify(commentRepository).save(any(Comment.class));
+        verify(bookRepository).incrementCommentsCount(book.getId());
+        verify(bookRepository, never()).findById(anyString());
+        verify(bookRepository, never()).save(any(Book.class));
+        verifyNoInteractions(userReference);
     }
 
     @Test
@@ -154,22 +165,80 @@ class CommentServiceTest {
         CommentDto commentDto = CommentGenerator.generateCommentDto();
         String bookId = "testBookId";
         String userId = "testUserId";
-        Comment comment = new Comment(commentDto);
 
         Book book = BookGenerator.generateBookWithId(LocalDateTime.now(), "testBookId");
         User user = UserGenerator.generateUser("testUserId");
 
-        book.addComment(comment);
-
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(bookRepository.getOne(bookId)).thenReturn(book);
+        when(userRepository.getOne(userId)).thenReturn(user);
 
-        doThrow(new NonTransientDataAccessException(""){}).when(bookRepository).save(book);
+        doThrow(new NonTransientDataAccessException(""){}).when(commentRepository).save(any(Comment.class));
 
         assertThrows(BookStoreServiceException.class, () -> commentService.saveComment(commentDto, bookId, userId));
 
-        verify(bookRepository).findById(bookId);
-        verify(bookRepository).save(book);
+        verify(commentRepository).save(any(Comment.class));
+        verify(bookRepository, never()).incrementCommentsCount(bookId);
+    }
+
+    @Test
+    void shouldRecalculateCommentsCountsMethodNotThrowWhenNonTransientDataAccessExceptionOccur() {
+        doThrow(new NonTransientDataAccessException(""){}).when(bookRepository).recalculateCommentsCounts();
+
+        assertDoesNotThrow(() -> commentService.recalculateCommentsCounts());
+
+        verify(bookRepository).recalculateCommentsCounts();
+    }
+
+    @Test
+    void shouldDeleteCommentsByUserIdRecountCommentedBooks() {
+        String userId = "testUserId";
+        List<String> bookIds = Arrays.asList("bookId1", "bookId2");
+        when(commentRepository.findCommentedBookIdsByUserId(userId)).thenReturn(bookIds);
+        when(commentRepository.deleteByUserId(userId)).thenReturn(3);
+
+        commentService.deleteCommentsByUserId(userId);
+
+        InOrder inOrder = inOrder(commentRepository, bookRepository);
+        inOrder.verify(commentRepository).deleteByUserId(userId);
+        inOrder.verify(bookRepository).recalculateCommentsCounts(bookIds);
+    }
+
+    @Test
+    void shouldDeleteCommentsByUserIdSkipRecountWhenUserHasNoComments() {
+        String userId = "testUserId";
+        when(commentRepository.findCommentedBookIdsByUserId(userId)).thenReturn(Collections.emptyList());
+
+        commentService.deleteCommentsByUserId(userId);
+
+        verify(commentRepository, never()).deleteByUserId(anyString());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldDeleteCommentsByUserIdThrowBookStoreServiceExceptionWhenNonTransientDataAccessExceptionOccur() {
+        String userId = "testUserId";
+        when(commentRepository.findCommentedBookIdsByUserId(userId)).thenReturn(Collections.singletonList("bookId"));
+        doThrow(new NonTransientDataAccessException(""){}).when(commentRepository).deleteByUserId(userId);
+
+        assertThrows(BookStoreServiceException.class, () -> commentService.deleteCommentsByUserId(userId));
+
+        verify(bookRepository, never()).recalculateCommentsCounts(anyCollection());
+    }
+
+    @Test
+    void shouldNotRecalculateCommentsCountsOnStartupByDefault() {
+        new CommentServiceImpl(commentRepository, bookRepository, userRepository, commentJsonMapper, false)
+                .recalculateCommentsCountsOnStartup();
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldRecalculateCommentsCountsOnStartupWhenEnabled() {
+        new CommentServiceImpl(commentRepository, bookRepository, userRepository, commentJsonMapper, true)
+                .recalculateCommentsCountsOnStartup();
+
+        verify(bookRepository).recalculateCommentsCounts();
     }
 
     private List<Comment> generateExampleOfCommentsPage() {
@@ -0,0 +1,124 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserServiceTest {
+
+    private static final String USERNAME = "currentUser";
+
+    @Mock
+    UserRepository userRepository;
+
+    CurrentUserService currentUserService;
+
+    User user;
+
+    @BeforeEach
+    void setup() {
+        currentUserService = new CurrentUserService(userRepository, 30);
+        user = UserGenerator.generateUser("currentUserId", "current@gmail.com");
+        user.setUsername(USERNAME);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(USERNAME, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldGetCurrentUserMethodQueryRepositoryOnceWhileUserIsCached() {
+        when(userRepository.findUserByCredentials(USERNAME)).thenReturn(user);
+
+        User firstResult = currentUserService.getCurrentUser();
+        User secondResult = currentUserService.getCurrentUser();
+
+        assertSame(user, firstResult);
+        assertSame(user, secondResult);
+        verify(userRepository, times(1)).findUserByCredentials(USERNAME);
+    }
+
+    @Test
+    void shouldGetCurrentUserMethodReloadUserAfterEviction() {
+        when(userRepository.findUserByCredentials(USERNAME)).thenReturn(user);
+
+        currentUserService.getCurrentUser();
+        currentUserService.evictUser(USERNAME, user.getEmail());
+        currentUserService.getCurrentUser();
+
+        verify(userRepository, times(2)).findUserByCredentials(USERNAME);
+    }
+
+    @Test
+    void shouldEvictUserMethodKeepCachedUserUntilTransactionCommits() {
+        when(userRepository.findUserByCredentials(USERNAME)).thenReturn(user);
+        currentUserService.getCurrentUser();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            currentUserService.evictUser(USERNAME, user.getEmail());
+            currentUserService.getCurrentUser();
+            verify(userRepository, times(1)).findUserByCredentials(USERNAME);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        currentUserService.getCurrentUser();
+
+        verify(userRepository, times(2)).findUserByCredentials(USERNAME);
+    }
+
+    @Test
+    void shouldGetCurrentUserMethodMemoizeUserInRequestAttributes() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        CurrentUserService otherInstance = new CurrentUserService(userRepository, 30);
+        when(userRepository.findUserByCredentials(USERNAME)).thenReturn(user);
+
+        currentUserService.getCurrentUser();
+        User result = otherInstance.getCurrentUser();
+
+        assertSame(user, result);
+        verify(userRepository, times(1)).findUserByCredentials(USERNAME);
+    }
+
+    @Test
+    void shouldGetCurrentUserMethodNotCacheMissingUser() {
+        when(userRepository.findUserByCredentials(USERNAME)).thenReturn(null);
+
+        assertNull(currentUserService.getCurrentUser());
+        assertNull(currentUserService.getCurrentUser());
+
+        verify(userRepository, times(2)).findUserByCredentials(USERNAME);
+    }
+
+    @Test
+    void shouldGetCurrentUserMethodThrowBookStoreServiceExceptionWhenNonTransientDataAccessExceptionOccur() {
+        doThrow(new NonTransientDataAccessException(""){}).when(userRepository).findUserByCredentials(USERNAME);
+
+        assertThrows(BookStoreServiceException.class, () -> currentUserService.getCurrentUser());
+    }
+}
@@ -0,0 +1,145 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.EmailType;
+import com.radek.bookstore.model.OutboxEmail;
+import com.radek.bookstore.model.event.EmailQueuedEvent;
+import com.radek.bookstore.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.mail.MessagingException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxTest {
+
+    @Mock
+    OutboxEmailRepository outboxEmailRepository;
+
+    @Mock
+    EmailService emailService;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    EmailOutbox emailOutbox;
+
+    @BeforeEach
+    void setup() {
+        when(meterRegistry.getIfAvailable(any())).thenAnswer(invocation -> new SimpleMeterRegistry());
+        emailOutbox = new EmailOutbox(outboxEmailRepository, emailService, eventPublisher, meterRegistry, 1, 10, 3, 30, 300, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailOutbox.shutdown();
+    }
+
+    @Test
+    void shouldStoreNewUserEmailRenderedInsteadOfTemporaryPassword() {
+        when(emailService.renderAddedNewUserMessage("John", "http://localhost:4200/activate", "tempPassword")).thenReturn("<p>tempPassword</p>");
+        when(outboxEmailRepository.save(any(OutboxEmail.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        emailOutbox.enqueue(EmailType.NEW_USER, "john@example.com", "John", "http://localhost:4200/activate", "tempPassword");
+
+        ArgumentCaptor<OutboxEmail> captor = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(outboxEmailRepository).save(captor.capture());
+        assertEquals("<p>tempPassword</p>", captor.getValue().getBody());
+        verify(eventPublisher).publishEvent(any(EmailQueuedEvent.class));
+    }
+
+    @Test
+    void shouldNotRenderEmailsWithoutSecretWhenQueued() {
+        when(outboxEmailRepository.save(any(OutboxEmail.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        emailOutbox.enqueue(EmailType.ACTIVATION, "john@example.com", "John", "http://localhost:4200/activate", null);
+
+        ArgumentCaptor<OutboxEmail> captor = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(outboxEmailRepository).save(captor.capture());
+        assertNull(captor.getValue().getBody());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void shouldSendClaimedEmailAndRemoveIt() throws MessagingException {
+        OutboxEmail email = generateEmail(EmailType.NEW_USER, 0);
+        when(outboxEmailRepository.claim(eq("mailId"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxEmailRepository.findById("mailId")).thenReturn(Optional.of(email));
+
+        emailOutbox.dispatch("mailId");
+
+        verify(emailService).sendAddedNewUserMessage("<p>tempPassword</p>", "john@example.com");
+        verify(outboxEmailRepository).delete(email);
+    }
+
+    @Test
+    void shouldSkipEmailClaimedByAnotherWorker() {
+        when(outboxEmailRepository.claim(eq("mailId"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        emailOutbox.dispatch("mailId");
+
+        verify(outboxEmailRepository, never()).findById(anyString());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void shouldRescheduleEmailWithBackoffWhenSendingFails() throws MessagingException {
+        OutboxEmail email = generateEmail(EmailType.ACTIVATION, 1);
+        when(outboxEmailRepository.claim(eq("mailId"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxEmailRepository.findById("mailId")).thenReturn(Optional.of(email));
+        doThrow(new MessagingException("SMTP unavailable")).when(emailService)
+                .sendActivationAccountMessage(anyString(), anyString(), anyString());
+
+        emailOutbox.dispatch("mailId");
+
+        assertEquals(OutboxEmail.Status.PENDING, email.getStatus());
+        assertEquals(2, email.getAttempts());
+        assertTrue(email.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(59)));
+        assertNotNull(email.getLastError());
+        verify(outboxEmailRepository).save(email);
+        verify(outboxEmailRepository, never()).delete(any(OutboxEmail.class));
+    }
+
+    @Test
+    void shouldGiveUpAndDropRenderedBodyAfterMaxAttempts() throws MessagingException {
+        OutboxEmail email = generateEmail(EmailType.NEW_USER, 2);
+        when(outboxEmailRepository.claim(eq("mailId"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxEmailRepository.findById("mailId")).thenReturn(Optional.of(email));
+        doThrow(new IllegalStateException("Template missing")).when(emailService)
+                .sendAddedNewUserMessage(anyString(), anyString());
+
+        emailOutbox.dispatch("mailId");
+
+        assertEquals(OutboxEmail.Status.FAILED, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        assertNull(email.getBody());
+        verify(outboxEmailRepository).save(email);
+    }
+
+    private OutboxEmail generateEmail(EmailType type, int attempts) {
+        String body = type == EmailType.NEW_USER ? "<p>tempPassword</p>" : null;
+        OutboxEmail email = new OutboxEmail(type, "john@example.com", "John", "http://localhost:4200/activate", body);
+        email.setId("mailId");
+        email.setAttempts(attempts);
+        return email;
+    }
+}
@@ -0,0 +1,74 @@
+package com.radek.bookstore.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LastLoginRecorderTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    LastLoginRecorder lastLoginRecorder;
+
+    @BeforeEach
+    void setup() {
+        lastLoginRecorder = new LastLoginRecorder(jdbcTemplate, 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFlushMethodWriteOnlyLatestLoginOfEachUserInOneBatch() {
+        LocalDateTime firstLogin = LocalDateTime.of(2021, 3, 1, 10, 0);
+        LocalDateTime secondLogin = firstLogin.plusMinutes(5);
+        lastLoginRecorder.recordLogin("userId", secondLogin);
+        lastLoginRecorder.recordLogin("userId", firstLogin);
+        lastLoginRecorder.recordLogin("otherUserId", firstLogin);
+
+        lastLoginRecorder.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        List<Object[]> arguments = captor.getValue();
+        assertEquals(2, arguments.size());
+        Object[] userArguments = arguments.stream().filter(row -> row[1].equals("userId")).findFirst().get();
+        assertEquals(Timestamp.valueOf(secondLogin), userArguments[0]);
+        assertEquals(Timestamp.valueOf(secondLogin), userArguments[2]);
+    }
+
+    @Test
+    void shouldFlushMethodDoNothingWhenNoLoginWasRecorded() {
+        lastLoginRecorder.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldFlushMethodKeepLoginsForNextFlushWhenBatchUpdateFailed() {
+        lastLoginRecorder.recordLogin("userId", LocalDateTime.now());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(new int[]{1});
+
+        lastLoginRecorder.flush();
+        lastLoginRecorder.drain();
+        lastLoginRecorder.drain();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+}
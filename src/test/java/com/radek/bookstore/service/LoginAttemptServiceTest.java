@@ -0,0 +1,81 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.throttling.SketchLoginAttemptStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.radek.bookstore.service.LoginAttemptService.MAXIMUM_NUMBER_OF_ATTEMPTS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoginAttemptServiceTest {
+
+    private static final String JOHN_ID = "john-id";
+
+    LoginAttemptService loginAttemptService;
+
+    @BeforeEach
+    void setup() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findIdByCredentials(anyString())).thenAnswer(invocation -> {
+            String identityKey = User.identityKey(invocation.getArgument(0));
+            return identityKey.equals("jsmith") || identityKey.equals("jsmith@example.com") ? Optional.of(JOHN_ID) : Optional.empty();
+        });
+        loginAttemptService = new LoginAttemptService(new SketchLoginAttemptStore(15, 15, 4, 4096), userRepository, 20);
+    }
+
+    @Test
+    void shouldExceedMaxAttemptsAfterTooManyFailedAttemptsEvenWhenManyUsernamesAreSprayed() {
+        IntStream.rangeClosed(0, MAXIMUM_NUMBER_OF_ATTEMPTS).forEach(attempt -> loginAttemptService.addFailedAttempt("jsmith", null));
+        IntStream.range(0, 10_000).forEach(attempt -> loginAttemptService.addFailedAttempt("sprayed" + attempt, null));
+
+        assertTrue(loginAttemptService.exceededMaxAttempts(JOHN_ID));
+        assertFalse(loginAttemptService.exceededMaxAttempts("anna-id"));
+    }
+
+    @Test
+    void shouldCountAttemptsByUsernameInAnyCaseAndByEmailTogether() {
+        String[] logins = {"JSmith", " jsmith ", "JSMITH", "jsmith@example.com", "JSmith@Example.com", "jsmith"};
+        IntStream.rangeClosed(0, MAXIMUM_NUMBER_OF_ATTEMPTS).forEach(attempt ->
+                loginAttemptService.addFailedAttempt(logins[attempt % logins.length], null));
+
+        assertTrue(loginAttemptService.exceededMaxAttempts(JOHN_ID));
+
+        loginAttemptService.evictUserFromLoginAttemptCache(JOHN_ID);
+
+        assertFalse(loginAttemptService.exceededMaxAttempts(JOHN_ID));
+    }
+
+    @Test
+    void shouldNotExceedMaxAttemptsAfterUserWasEvicted() {
+        IntStream.rangeClosed(0, MAXIMUM_NUMBER_OF_ATTEMPTS).forEach(attempt -> loginAttemptService.addFailedAttempt("jsmith", "10.0.0.1"));
+
+        loginAttemptService.evictUserFromLoginAttemptCache(JOHN_ID);
+
+        assertFalse(loginAttemptService.exceededMaxAttempts(JOHN_ID));
+    }
+
+    @Test
+    void shouldExceedMaxClientAttemptsWhenOneAddressTriesManyUsernames() {
+        IntStream.range(0, 21).forEach(attempt -> loginAttemptService.addFailedAttempt("user" + attempt, "10.0.0.1"));
+
+        assertTrue(loginAttemptService.exceededMaxClientAttempts("10.0.0.1"));
+        assertFalse(loginAttemptService.exceededMaxClientAttempts("10.0.0.2"));
+        assertFalse(loginAttemptService.exceededMaxAttempts("user0"));
+    }
+
+    @Test
+    void shouldIgnoreMissingUsernameAndAddress() {
+        loginAttemptService.addFailedAttempt(null, null);
+
+        assertFalse(loginAttemptService.exceededMaxAttempts(null));
+        assertFalse(loginAttemptService.exceededMaxClientAttempts(null));
+    }
+}
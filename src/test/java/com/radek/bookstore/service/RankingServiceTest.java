@@ -0,0 +1,154 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.event.RatingChangedEvent;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.exception.InvalidCursorException;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.service.impl.RankingServiceImpl;
+import com.radek.bookstore.service.ranking.RatingTotals;
+import com.radek.bookstore.service.ranking.WilsonScore;
+import com.radek.bookstore.utils.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingServiceTest {
+
+    @Mock
+    BookRepository bookRepository;
+
+    RankingServiceImpl rankingService;
+
+    @BeforeEach
+    void setup() {
+        rankingService = new RankingServiceImpl(bookRepository);
+    }
+
+    @Test
+    void shouldWilsonScoreRankManyGoodVotesAboveSingleBestVote() {
+        double singleFiveStarVote = WilsonScore.lowerBound(1, 5);
+        double manyFourAndFiveStarVotes = WilsonScore.lowerBound(50, 225);
+
+        assertTrue(manyFourAndFiveStarVotes > singleFiveStarVote);
+        assertTrue(WilsonScore.lowerBound(50, 225) > WilsonScore.lowerBound(50, 150));
+        assertEquals(0.0, WilsonScore.lowerBound(0, 0));
+        assertEquals(0.0, WilsonScore.lowerBound(3, 3));
+    }
+
+    @Test
+    void shouldFindTopRatedMethodReturnNextCursorWhenMoreBooksExist() {
+        Book firstBook = generateBookWithScore("book2", 0.8);
+        Book secondBook = generateBookWithScore("book1", 0.5);
+        Book thirdBook = generateBookWithScore("book3", 0.2);
+        when(bookRepository.findTopRated(PageRequest.of(0, 3))).thenReturn(Arrays.asList(firstBook, secondBook, thirdBook));
+
+        CursorPage<Book> result = rankingService.findTopRated(null, null, 2);
+
+        assertEquals(Arrays.asList(firstBook, secondBook), result.getContent());
+        assertEquals(KeysetCursor.encode(0.5, "book1"), result.getNextCursor());
+    }
+
+    @Test
+    void shouldFindTopRatedMethodContinueAfterCursorInCategory() {
+        String categoryId = "categoryId";
+        Book book = generateBookWithScore("book3", 0.2);
+        when(bookRepository.findTopRatedInCategoryAfter(categoryId, 0.5, "book1", PageRequest.of(0, 3)))
+                .thenReturn(Collections.singletonList(book));
+
+        CursorPage<Book> result = rankingService.findTopRated(categoryId, KeysetCursor.encode(0.5, "book1"), 2);
+
+        assertEquals(Collections.singletonList(book), result.getContent());
+        assertNull(result.getNextCursor());
+        verify(bookRepository, never()).findTopRatedAfter(anyDouble(), anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void shouldFindTopRatedMethodThrowInvalidCursorExceptionWhenCursorIsMalformed() {
+        assertThrows(InvalidCursorException.class, () -> rankingService.findTopRated(null, "not a cursor", 2));
+        assertThrows(InvalidCursorException.class, () -> rankingService.findTopRated(null, KeysetCursor.encode("abc", "book1"), 2));
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldFindTopRatedMethodThrowBookStoreServiceExceptionWhenNonTransientDataAccessExceptionOccur() {
+        doThrow(new NonTransientDataAccessException(""){}).when(bookRepository).findTopRated(any(Pageable.class));
+
+        assertThrows(BookStoreServiceException.class, () -> rankingService.findTopRated(null, null, 2));
+    }
+
+    @Test
+    void shouldOnRatingChangedMethodApplyDeltaOfNewRatingAndStoreScore() {
+        String bookId = "bookId";
+        when(bookRepository.findRatingTotals(bookId)).thenReturn(Optional.of(new RatingTotals(bookId, 3, 12, 0.0)));
+
+        rankingService.onRatingChanged(new RatingChangedEvent(bookId, "userId", null, 4));
+
+        verify(bookRepository).applyRatingDelta(bookId, 1, 4);
+        verify(bookRepository).updateRatingScore(bookId, WilsonScore.lowerBound(3, 12));
+    }
+
+    @Test
+    void shouldOnRatingChangedMethodApplyOnlyVoteDifferenceOfUpdatedRating() {
+        String bookId = "bookId";
+        when(bookRepository.findRatingTotals(bookId)).thenReturn(Optional.of(new RatingTotals(bookId, 3, 10, 0.0)));
+
+        rankingService.onRatingChanged(new RatingChangedEvent(bookId, "userId", 4, 2));
+
+        verify(bookRepository).applyRatingDelta(bookId, 0, -2);
+        verify(bookRepository).updateRatingScore(bookId, WilsonScore.lowerBound(3, 10));
+    }
+
+    @Test
+    void shouldOnRatingChangedMethodSubtractRemovedRating() {
+        String bookId = "bookId";
+        when(bookRepository.findRatingTotals(bookId)).thenReturn(Optional.of(new RatingTotals(bookId, 0, 0, 0.0)));
+
+        rankingService.onRatingChanged(new RatingChangedEvent(bookId, "userId", 4, null));
+
+        verify(bookRepository).applyRatingDelta(bookId, -1, -4);
+        verify(bookRepository).updateRatingScore(bookId, WilsonScore.lowerBound(0, 0));
+    }
+
+    @Test
+    void shouldRecalculateRatingScoresMethodUpdateOnlyOutdatedScores() {
+        List<RatingTotals> totals = Arrays.asList(
+                new RatingTotals("upToDateBookId", 2, 9, WilsonScore.lowerBound(2, 9)),
+                new RatingTotals("outdatedBookId", 2, 9, 0.0));
+        when(bookRepository.findAllRatingTotals()).thenReturn(totals);
+
+        rankingService.recalculateRatingScores();
+
+        verify(bookRepository).recalculateRatingTotals();
+        verify(bookRepository).updateRatingScore("outdatedBookId", WilsonScore.lowerBound(2, 9));
+        verify(bookRepository, never()).updateRatingScore(eq("upToDateBookId"), anyDouble());
+    }
+
+    private Book generateBookWithScore(String bookId, double ratingScore) {
+        Book book = BookGenerator.generateBookWithId(LocalDateTime.now(), bookId);
+        book.setRatingScore(ratingScore);
+        return book;
+    }
+}
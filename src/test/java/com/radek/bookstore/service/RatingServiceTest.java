@@ -7,6 +7,7 @@ import com.radek.bookstore.model.Book;
 import com.radek.bookstore.model.Rating;
 import com.radek.bookstore.model.User;
 import com.radek.bookstore.model.dto.RatingDto;
+import com.radek.bookstore.model.event.RatingChangedEvent;
 import com.radek.bookstore.model.exception.BookStoreServiceException;
 import com.radek.bookstore.repository.BookRepository;
 import com.radek.bookstore.repository.RatingRepository;
@@ -15,8 +16,10 @@ import com.radek.bookstore.service.impl.RatingServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.NonTransientDataAccessException;
 
 import java.time.LocalDateTime;
@@ -37,11 +40,14 @@ class RatingServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     RatingService ratingService;
 
     @BeforeEach
     void setup() {
-        ratingService = new RatingServiceImpl(ratingRepository, bookRepository, userRepository);
+        ratingService = new RatingServiceImpl(ratingRepository, bookRepository, userRepository, eventPublisher);
     }
 
     @Test
@@ -121,6 +127,7 @@ class RatingServiceTest {
 
         verify(ratingRepository).findByBookIdAndUserId(bookId, userId);
         verify(ratingRepository).save(any(Rating.class));
+        verify(eventPublisher).publishEvent(any(RatingChangedEvent.class));
     }
 
     @Test
@@ -162,6 +169,7 @@ class RatingServiceTest {
         verify(bookRepository).findById(bookId);
         verify(userRepository).findById(userId);
         verify(bookRepository).save(book);
+        verify(eventPublisher).publishEvent(any(RatingChangedEvent.class));
     }
 
     @Test
@@ -200,6 +208,33 @@ class RatingServiceTest {
         verify(bookRepository).save(book);
     }
 
+    @Test
+    void shouldDeleteRatingsByUserIdPublishRemovalOfEveryRating() {
+        String userId = "testUserId";
+        Rating rating = RatingGenerator.generateRatingWithVote("ratingId", 4);
+        rating.setBook(BookGenerator.generateBookWithId(LocalDateTime.now(), "bookId"));
+        when(ratingRepository.findByUserId(userId)).thenReturn(Collections.singletonList(rating));
+
+        ratingService.deleteRatingsByUserId(userId);
+
+        verify(ratingRepository).deleteAll(Collections.singletonList(rating));
+        ArgumentCaptor<RatingChangedEvent> captor = ArgumentCaptor.forClass(RatingChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals("bookId", captor.getValue().getBookId());
+        assertEquals(4, captor.getValue().getPreviousVote());
+        assertNull(captor.getValue().getVote());
+    }
+
+    @Test
+    void shouldDeleteRatingsByUserIdDoNothingWhenUserHasNoRatings() {
+        when(ratingRepository.findByUserId("testUserId")).thenReturn(Collections.emptyList());
+
+        ratingService.deleteRatingsByUserId("testUserId");
+
+        verify(ratingRepository, never()).deleteAll(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
     private List<Rating> generateTestListOfRatings() {
         Rating rating1 = RatingGenerator.generateRating("rating1");
         Rating rating2 = RatingGenerator.generateRating("rating2");
@@ -0,0 +1,209 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.SimilarBook;
+import com.radek.bookstore.model.event.BookChangedEvent;
+import com.radek.bookstore.model.event.RatingChangedEvent;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.repository.RatingRepository;
+import com.radek.bookstore.repository.SimilarBookRepository;
+import com.radek.bookstore.service.impl.RecommendationServiceImpl;
+import com.radek.bookstore.service.recommendation.RatingVote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    RatingRepository ratingRepository;
+
+    @Mock
+    SimilarBookRepository similarBookRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    RecommendationServiceImpl recommendationService;
+
+    @BeforeEach
+    void setup() {
+        recommendationService = new RecommendationServiceImpl(ratingRepository, similarBookRepository, bookRepository,
+                TransactionOperations.withoutTransaction(), 20, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommendationService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRebuildSimilaritiesMethodPersistNeighboursOrderedByCosineSimilarity() {
+        when(ratingRepository.findAllVotes()).thenReturn(generateTestVotes());
+
+        recommendationService.rebuildSimilarities();
+
+        ArgumentCaptor<List<SimilarBook>> captor = ArgumentCaptor.forClass(List.class);
+        verify(similarBookRepository).deleteAllInBatch();
+        verify(similarBookRepository).saveAll(captor.capture());
+
+        List<SimilarBook> firstBookNeighbours = neighboursOf(captor.getValue(), "book1");
+        assertEquals(Arrays.asList("book2", "book3"), firstBookNeighbours.stream()
+                .map(SimilarBook::getSimilarBookId).collect(Collectors.toList()));
+        assertEquals(1.0, firstBookNeighbours.get(0).getScore(), 1e-6);
+        assertEquals(4 / Math.sqrt(41 * 26), firstBookNeighbours.get(1).getScore(), 1e-6);
+        assertEquals(0, firstBookNeighbours.get(0).getSimilarityRank());
+        assertEquals(1, firstBookNeighbours.get(1).getSimilarityRank());
+        assertEquals(Collections.singletonList("book5"), neighboursOf(captor.getValue(), "book4").stream()
+                .map(SimilarBook::getSimilarBookId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldRebuildSimilaritiesMethodNotThrowWhenNonTransientDataAccessExceptionOccur() {
+        doThrow(new NonTransientDataAccessException(""){}).when(ratingRepository).findAllVotes();
+
+        assertDoesNotThrow(() -> recommendationService.rebuildSimilarities());
+
+        verify(similarBookRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldRefreshChangedSimilaritiesMethodDoNothingWhenNoRatingChanged() {
+        recommendationService.refreshChangedSimilarities();
+
+        verifyNoInteractions(ratingRepository, similarBookRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRefreshChangedSimilaritiesMethodRecomputeOnlyChangedAndCoRatedBooks() {
+        when(ratingRepository.findAllVotes()).thenReturn(generateTestVotes());
+        recommendationService.onRatingChanged(new RatingChangedEvent("book3", "user3", null, 5));
+
+        recommendationService.refreshChangedSimilarities();
+
+        ArgumentCaptor<Collection<String>> deletedCaptor = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<List<SimilarBook>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(similarBookRepository).deleteByBookIdIn(deletedCaptor.capture());
+        verify(similarBookRepository).saveAll(savedCaptor.capture());
+        verify(similarBookRepository, never()).deleteAllInBatch();
+
+        assertEquals(new HashSet<>(Arrays.asList("book1", "book2", "book3")), new HashSet<>(deletedCaptor.getValue()));
+        assertTrue(savedCaptor.getValue().stream().noneMatch(similarBook -> similarBook.getBookId().equals("book4")));
+
+        recommendationService.refreshChangedSimilarities();
+        verify(ratingRepository).findAllVotes();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRefreshChangedSimilaritiesMethodDropNeighbourRowsOfBookWhoseRatingsDroppedToZero() {
+        List<RatingVote> votesWithoutThirdBook = generateTestVotes().stream()
+                .filter(vote -> !vote.getBookId().equals("book3"))
+                .collect(Collectors.toList());
+        when(ratingRepository.findAllVotes()).thenReturn(votesWithoutThirdBook);
+        when(similarBookRepository.findBookIdsBySimilarBookIdIn(Collections.singletonList("book3")))
+                .thenReturn(Arrays.asList("book1", "book2"));
+        recommendationService.onRatingChanged(new RatingChangedEvent("book3", "user3", 5, 0));
+
+        recommendationService.refreshChangedSimilarities();
+
+        ArgumentCaptor<Collection<String>> deletedCaptor = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<List<SimilarBook>> savedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(similarBookRepository).deleteByBookIdIn(deletedCaptor.capture());
+        verify(similarBookRepository).saveAll(savedCaptor.capture());
+
+        assertEquals(new HashSet<>(Arrays.asList("book1", "book2", "book3")), new HashSet<>(deletedCaptor.getValue()));
+        assertEquals(Collections.singletonList("book2"), neighboursOf(savedCaptor.getValue(), "book1").stream()
+                .map(SimilarBook::getSimilarBookId).collect(Collectors.toList()));
+        assertTrue(savedCaptor.getValue().stream().noneMatch(similarBook ->
+                similarBook.getBookId().equals("book3") || similarBook.getSimilarBookId().equals("book3")));
+    }
+
+    @Test
+    void shouldOnBookChangedMethodEvictCachedListsContainingBookAndScheduleRefreshOfDeletedBook() {
+        Book secondBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book2");
+        Book fourthBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book4");
+        when(similarBookRepository.findByBookIdOrderBySimilarityRankAsc("book1"))
+                .thenReturn(Collections.singletonList(new SimilarBook("book1", "book2", 0, 0.9)));
+        when(similarBookRepository.findByBookIdOrderBySimilarityRankAsc("book3"))
+                .thenReturn(Collections.singletonList(new SimilarBook("book3", "book4", 0, 0.9)));
+        when(bookRepository.findAllById(Collections.singletonList("book2"))).thenReturn(Collections.singletonList(secondBook));
+        when(bookRepository.findAllById(Collections.singletonList("book4"))).thenReturn(Collections.singletonList(fourthBook));
+        recommendationService.findSimilarBooks("book1", 10);
+        recommendationService.findSimilarBooks("book3", 10);
+
+        recommendationService.onBookChanged(new BookChangedEvent("book2", false));
+        recommendationService.findSimilarBooks("book1", 10);
+        recommendationService.findSimilarBooks("book3", 10);
+
+        verify(similarBookRepository, times(2)).findByBookIdOrderBySimilarityRankAsc("book1");
+        verify(similarBookRepository, times(1)).findByBookIdOrderBySimilarityRankAsc("book3");
+        recommendationService.refreshChangedSimilarities();
+        verifyNoInteractions(ratingRepository);
+
+        recommendationService.onBookChanged(new BookChangedEvent("book2", true));
+        recommendationService.refreshChangedSimilarities();
+        verify(ratingRepository).findAllVotes();
+    }
+
+    @Test
+    void shouldFindSimilarBooksMethodReturnActiveBooksInRankOrderAndCacheResult() {
+        String bookId = "book1";
+        Book secondBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book2");
+        Book thirdBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book3");
+        Book inactiveBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book4");
+        inactiveBook.setActive(false);
+        when(similarBookRepository.findByBookIdOrderBySimilarityRankAsc(bookId)).thenReturn(Arrays.asList(
+                new SimilarBook(bookId, "book3", 0, 0.9),
+                new SimilarBook(bookId, "book4", 1, 0.8),
+                new SimilarBook(bookId, "book2", 2, 0.7)));
+        when(bookRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(secondBook, inactiveBook, thirdBook));
+
+        List<Book> result = recommendationService.findSimilarBooks(bookId, 10);
+        List<Book> limitedResult = recommendationService.findSimilarBooks(bookId, 1);
+
+        assertEquals(Arrays.asList(thirdBook, secondBook), result);
+        assertEquals(Collections.singletonList(thirdBook), limitedResult);
+
+        verify(similarBookRepository, times(1)).findByBookIdOrderBySimilarityRankAsc(bookId);
+        verify(bookRepository, times(1)).findAllById(anyCollection());
+    }
+
+    private List<SimilarBook> neighboursOf(List<SimilarBook> similarities, String bookId) {
+        return similarities.stream()
+                .filter(similarBook -> similarBook.getBookId().equals(bookId))
+                .sorted(Comparator.comparing(SimilarBook::getSimilarityRank))
+                .collect(Collectors.toList());
+    }
+
+    private List<RatingVote> generateTestVotes() {
+        return Arrays.asList(
+                new RatingVote("user1", "book1", 5),
+                new RatingVote("user1", "book2", 5),
+                new RatingVote("user2", "book1", 4),
+                new RatingVote("user2", "book2", 4),
+                new RatingVote("user2", "book3", 1),
+                new RatingVote("user3", "book3", 5),
+                new RatingVote("user4", "book4", 2),
+                new RatingVote("user4", "book5", 3));
+    }
+}
@@ -0,0 +1,132 @@
+package com.radek.bookstore.service;
+
+import com.google.common.hash.Hashing;
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.Role;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.model.exception.InvalidRefreshTokenException;
+import com.radek.bookstore.model.response.TokenPair;
+import com.radek.bookstore.repository.RefreshTokenRepository;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs refreshes in their own committed transactions, as the service proxy would, to race them on a real database.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenRotationTest {
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    RefreshTokenService refreshTokenService;
+    TransactionTemplate transactionTemplate;
+    ExecutorService executor;
+    User user;
+
+    @BeforeEach
+    void setup() {
+        JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+        when(jwtTokenProvider.generateJwtToken(any(UserPrincipal.class))).thenReturn("accessToken");
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, jwtTokenProvider,
+                mock(TokenRevocationList.class), 14);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newFixedThreadPool(2);
+        user = UserGenerator.generateUser(null, "rotation@example.com");
+        user.setUserId("987654321098765");
+        user.setUsername("rotation");
+        user.setActive(true);
+        user.setNotLocked(true);
+        user.setRole(Role.ROLE_USER.name());
+        user.setAuthorities(Role.ROLE_USER.getAuthorities());
+        user.setAddress(null);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void shouldRotateTokenForExactlyOneOfTwoConcurrentRefreshes() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String refreshToken = refreshTokenService.createRefreshToken(user);
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            List<Future<TokenPair>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> {
+                    barrier.await(5, TimeUnit.SECONDS);
+                    return refresh(refreshToken);
+                }));
+            }
+
+            int rotated = 0;
+            int rejected = 0;
+            for (Future<TokenPair> result : results) {
+                try {
+                    assertNotNull(result.get(10, TimeUnit.SECONDS).getRefreshToken());
+                    rotated++;
+                } catch (ExecutionException exc) {
+                    assertTrue(exc.getCause() instanceof InvalidRefreshTokenException);
+                    rejected++;
+                }
+            }
+            assertEquals(1, rotated, "round " + round);
+            assertEquals(1, rejected, "round " + round);
+            assertTrue(refreshTokenRepository.findByTokenHash(hash(refreshToken)).get().isRevoked(), "round " + round);
+        }
+    }
+
+    private static String hash(String refreshToken) {
+        return Hashing.sha256().hashString(refreshToken, StandardCharsets.UTF_8).toString();
+    }
+
+    private TokenPair refresh(String refreshToken) throws InvalidRefreshTokenException {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return refreshTokenService.refresh(refreshToken);
+                } catch (InvalidRefreshTokenException exc) {
+                    throw new CompletionException(exc);
+                }
+            });
+        } catch (CompletionException exc) {
+            throw (InvalidRefreshTokenException) exc.getCause();
+        }
+    }
+}
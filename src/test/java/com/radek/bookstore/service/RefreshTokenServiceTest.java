@@ -0,0 +1,142 @@
+package com.radek.bookstore.service;
+
+import com.google.common.hash.Hashing;
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.RefreshToken;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.UserPrincipal;
+import com.radek.bookstore.model.exception.InvalidRefreshTokenException;
+import com.radek.bookstore.model.response.TokenPair;
+import com.radek.bookstore.repository.RefreshTokenRepository;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.security.utility.JwtTokenProvider;
+import com.radek.bookstore.security.utility.TokenRevocationList;
+import com.radek.bookstore.security.utility.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final String REFRESH_TOKEN = "refreshToken";
+
+    @Mock
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    TokenRevocationList tokenRevocationList;
+
+    RefreshTokenService refreshTokenService;
+
+    User user;
+    RefreshToken storedToken;
+
+    @BeforeEach
+    void setup() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, jwtTokenProvider, tokenRevocationList, 14);
+        user = UserGenerator.generateUser("userId");
+        user.setUsername("john");
+        user.setActive(true);
+        user.setNotLocked(true);
+        storedToken = new RefreshToken(hash(REFRESH_TOKEN), "userId", LocalDateTime.now().plusDays(1));
+        storedToken.setId("storedTokenId");
+    }
+
+    @Test
+    void shouldCreateRefreshTokenMethodStoreOnlyHashOfToken() {
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertEquals(hash(refreshToken), captor.getValue().getTokenHash());
+        assertEquals("userId", captor.getValue().getUserId());
+        assertTrue(captor.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusDays(13)));
+    }
+
+    @Test
+    void shouldRefreshMethodRotateRefreshTokenAndIssueNewAccessToken() throws InvalidRefreshTokenException {
+        when(refreshTokenRepository.findByTokenHash(hash(REFRESH_TOKEN))).thenReturn(Optional.of(storedToken));
+        when(refreshTokenRepository.revokeByTokenHash(hash(REFRESH_TOKEN))).thenReturn(1);
+        when(userRepository.findById("userId")).thenReturn(Optional.of(user));
+        when(jwtTokenProvider.generateJwtToken(any(UserPrincipal.class))).thenReturn("accessToken");
+
+        TokenPair tokens = refreshTokenService.refresh(REFRESH_TOKEN);
+
+        assertEquals("accessToken", tokens.getAccessToken());
+        assertNotEquals(REFRESH_TOKEN, tokens.getRefreshToken());
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void shouldRefreshMethodRevokeAllTokensOfUserWhenUsedTokenIsPresentedAgain() {
+        storedToken.setRevoked(true);
+        when(refreshTokenRepository.findByTokenHash(hash(REFRESH_TOKEN))).thenReturn(Optional.of(storedToken));
+        when(userRepository.findById("userId")).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(REFRESH_TOKEN));
+
+        verify(refreshTokenRepository).revokeAllByUserId("userId");
+        verify(tokenRevocationList).revokeSubject("john");
+        verify(jwtTokenProvider, never()).generateJwtToken(any());
+    }
+
+    @Test
+    void shouldRefreshMethodThrowInvalidRefreshTokenExceptionForUnknownOrExpiredToken() {
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("unknownToken"));
+
+        storedToken.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.findByTokenHash(hash(REFRESH_TOKEN))).thenReturn(Optional.of(storedToken));
+        when(refreshTokenRepository.revokeByTokenHash(hash(REFRESH_TOKEN))).thenReturn(1);
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(REFRESH_TOKEN));
+        verify(jwtTokenProvider, never()).generateJwtToken(any());
+    }
+
+    @Test
+    void shouldRefreshMethodThrowInvalidRefreshTokenExceptionWhenUserIsLocked() {
+        user.setNotLocked(false);
+        when(refreshTokenRepository.findByTokenHash(hash(REFRESH_TOKEN))).thenReturn(Optional.of(storedToken));
+        when(refreshTokenRepository.revokeByTokenHash(hash(REFRESH_TOKEN))).thenReturn(1);
+        when(userRepository.findById("userId")).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(REFRESH_TOKEN));
+        verify(jwtTokenProvider, never()).generateJwtToken(any());
+    }
+
+    @Test
+    void shouldSignOutMethodRevokeAccessTokenAndRefreshToken() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        when(jwtTokenProvider.verifyToken("accessToken"))
+                .thenReturn(Optional.of(new VerifiedToken("john", Collections.emptyList(), "tokenId", Instant.now(), expiresAt)));
+        when(refreshTokenRepository.findByTokenHash(hash(REFRESH_TOKEN))).thenReturn(Optional.of(storedToken));
+
+        refreshTokenService.signOut("accessToken", REFRESH_TOKEN);
+
+        verify(tokenRevocationList).revokeToken("tokenId", expiresAt);
+        verify(refreshTokenRepository).revokeById("storedTokenId");
+    }
+
+    private String hash(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.BookGenerator;
+import com.radek.bookstore.model.Book;
+import com.radek.bookstore.model.BookActivity;
+import com.radek.bookstore.model.event.OrderPlacedEvent;
+import com.radek.bookstore.repository.BookActivityRepository;
+import com.radek.bookstore.repository.BookRepository;
+import com.radek.bookstore.service.impl.TrendingServiceImpl;
+import com.radek.bookstore.service.ranking.DecayedScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingServiceTest {
+
+    @Mock
+    BookActivityRepository bookActivityRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    TrendingServiceImpl trendingService;
+
+    @BeforeEach
+    void setup() {
+        trendingService = new TrendingServiceImpl(bookActivityRepository, bookRepository, 24, 5, 50);
+    }
+
+    @Test
+    void shouldDecayedScoreRankRecentActivityAboveEqualOlderActivity() {
+        DecayedScore decayedScore = new DecayedScore(Duration.ofHours(24));
+        Instant now = Instant.parse("2026-01-10T00:00:00Z");
+
+        double olderScore = decayedScore.add(null, 10, now.minus(Duration.ofHours(24)));
+        double recentScore = decayedScore.add(null, 10, now);
+        double halvedRecentScore = decayedScore.add(null, 5, now);
+
+        assertTrue(recentScore > olderScore);
+        assertEquals(olderScore, halvedRecentScore, 1e-9);
+        assertEquals(Math.log(2) + recentScore, decayedScore.add(recentScore, 10, now), 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFlushActivityMethodPersistOnlyCountsRecordedSinceLastFlush() {
+        trendingService.recordView("book1");
+        trendingService.recordView("book1");
+        trendingService.onOrderPlaced(new OrderPlacedEvent("trackingNumber", Map.of("book2", 3)));
+        when(bookActivityRepository.findAllById(anyCollection())).thenReturn(Collections.emptyList());
+
+        trendingService.flushActivity();
+
+        ArgumentCaptor<List<BookActivity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bookActivityRepository).saveAll(captor.capture());
+        Map<String, BookActivity> saved = captor.getValue().stream()
+                .collect(Collectors.toMap(BookActivity::getBookId, Function.identity()));
+        assertEquals(2L, saved.get("book1").getViewsCount());
+        assertEquals(3L, saved.get("book2").getPurchasesCount());
+        assertTrue(saved.get("book2").getTrendingScore() > saved.get("book1").getTrendingScore());
+
+        BookActivity existingActivity = saved.get("book1");
+        when(bookActivityRepository.findAllById(Set.of("book1"))).thenReturn(List.of(existingActivity));
+        trendingService.recordView("book1");
+
+        trendingService.flushActivity();
+
+        assertEquals(3L, existingActivity.getViewsCount());
+        verify(bookActivityRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void shouldFlushActivityMethodRetryCountsWhenSavingFailed() {
+        trendingService.recordView("book1");
+        doThrow(new NonTransientDataAccessException(""){}).when(bookActivityRepository).findAllById(anyCollection());
+
+        assertDoesNotThrow(() -> trendingService.flushActivity());
+
+        verify(bookActivityRepository, never()).saveAll(any());
+        reset(bookActivityRepository);
+        when(bookActivityRepository.findAllById(anyCollection())).thenReturn(Collections.emptyList());
+
+        trendingService.flushActivity();
+
+        verify(bookActivityRepository).saveAll(any());
+    }
+
+    @Test
+    void shouldGetTrendingBooksMethodServeActiveBooksFromSnapshot() {
+        BookActivity firstActivity = new BookActivity("book1");
+        BookActivity secondActivity = new BookActivity("book2");
+        BookActivity thirdActivity = new BookActivity("book3");
+        Book firstBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book1");
+        Book inactiveBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book2");
+        inactiveBook.setActive(false);
+        Book thirdBook = BookGenerator.generateBookWithId(LocalDateTime.now(), "book3");
+        when(bookActivityRepository.findAllByOrderByTrendingScoreDesc(any(Pageable.class)))
+                .thenReturn(Arrays.asList(thirdActivity, secondActivity, firstActivity));
+        when(bookRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(firstBook, inactiveBook, thirdBook));
+
+        assertTrue(trendingService.getTrendingBooks(10).isEmpty());
+        trendingService.flushActivity();
+
+        assertEquals(Arrays.asList(thirdBook, firstBook), trendingService.getTrendingBooks(10));
+        assertEquals(Collections.singletonList(thirdBook), trendingService.getTrendingBooks(1));
+        verify(bookActivityRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,73 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.event.UserChangedEvent;
+import com.radek.bookstore.model.response.IdentityAvailability;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.search.UserSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    UserAvailabilityService userAvailabilityService;
+
+    @BeforeEach
+    void setup() {
+        userAvailabilityService = new UserAvailabilityService(userRepository, 1000, 0.001, 100);
+    }
+
+    @Test
+    void shouldCheckAvailabilityInDatabaseUntilFilterIsBuilt() {
+        when(userRepository.existsByIdentityKey("john")).thenReturn(true);
+
+        IdentityAvailability availability = userAvailabilityService.checkAvailability("John", null);
+
+        assertFalse(availability.getUsernameAvailable());
+        assertNull(availability.getEmailAvailable());
+    }
+
+    @Test
+    void shouldAnswerAvailableFromFilterAndConfirmPossibleCollisionWithSingleQuery() {
+        when(userRepository.findSearchDocumentsAfter("", PageRequest.of(0, 100))).thenReturn(Collections.singletonList(
+                new UserSearchDocument("id1", "John", "Smith", "John.Smith@example.com", "JSmith")));
+        when(userRepository.existsByIdentityKey("jsmith")).thenReturn(true);
+        userAvailabilityService.rebuild();
+
+        IdentityAvailability free = userAvailabilityService.checkAvailability("newcomer", "newcomer@example.com");
+        IdentityAvailability taken = userAvailabilityService.checkAvailability(" JSMITH ", null);
+
+        assertTrue(free.getUsernameAvailable());
+        assertTrue(free.getEmailAvailable());
+        assertFalse(taken.getUsernameAvailable());
+        verify(userRepository, times(1)).existsByIdentityKey(anyString());
+    }
+
+    @Test
+    void shouldRecordKeysOfChangedUserWithoutWaitingForRebuild() {
+        userAvailabilityService.rebuild();
+        when(userRepository.findSearchDocument("id2"))
+                .thenReturn(Optional.of(new UserSearchDocument("id2", "Anna", "Nowak", "anna@example.com", null)));
+        when(userRepository.existsByIdentityKey("anna@example.com")).thenReturn(true);
+
+        userAvailabilityService.onUserChanged(new UserChangedEvent("id2"));
+        IdentityAvailability availability = userAvailabilityService.checkAvailability("Anna@Example.com", "anna@example.com");
+
+        assertFalse(availability.getUsernameAvailable());
+        assertFalse(availability.getEmailAvailable());
+    }
+}
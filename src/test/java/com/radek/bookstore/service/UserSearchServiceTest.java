@@ -0,0 +1,96 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.model.event.UserChangedEvent;
+import com.radek.bookstore.model.exception.InvalidCursorException;
+import com.radek.bookstore.model.response.CursorPage;
+import com.radek.bookstore.model.response.UserJson;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.search.UserSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    UserSearchService userSearchService;
+
+    @BeforeEach
+    void setup() {
+        userSearchService = new UserSearchService(userRepository, 0.5, 2);
+    }
+
+    @Test
+    void shouldRebuildIndexInBatchesAndReturnRankedPagesWithCursor() {
+        when(userRepository.findSearchDocumentsAfter("", PageRequest.of(0, 2))).thenReturn(Arrays.asList(
+                new UserSearchDocument("id1", "Annabel", "Nowak", "anna@example.com", "anowak"),
+                new UserSearchDocument("id2", "Joanna", "Kowal", "joanna@example.com", "anna")));
+        when(userRepository.findSearchDocumentsAfter("id2", PageRequest.of(0, 2))).thenReturn(Collections.singletonList(
+                new UserSearchDocument("id3", "Hanna", "Lis", "hanna@example.com", "hlis")));
+        UserJson exactMatch = generateUser("id2");
+        UserJson prefixMatch = generateUser("id1");
+        UserJson substringMatch = generateUser("id3");
+        when(userRepository.findUserJsonsByIds(Arrays.asList("id2", "id1"))).thenReturn(Arrays.asList(prefixMatch, exactMatch));
+        when(userRepository.findUserJsonsByIds(Collections.singletonList("id3"))).thenReturn(Collections.singletonList(substringMatch));
+        userSearchService.rebuild();
+
+        CursorPage<UserJson> firstPage = userSearchService.searchUsers("ANNA", null, 2);
+        CursorPage<UserJson> secondPage = userSearchService.searchUsers("anna", firstPage.getNextCursor(), 2);
+
+        assertEquals(Arrays.asList(exactMatch, prefixMatch), firstPage.getContent());
+        assertNotNull(firstPage.getNextCursor());
+        assertEquals(Collections.singletonList(substringMatch), secondPage.getContent());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldIndexChangedUserAndDropDeletedUser() {
+        UserJson user = generateUser("id1");
+        when(userRepository.findSearchDocument("id1"))
+                .thenReturn(Optional.of(new UserSearchDocument("id1", "Piotr", "Zieliński", "pz@example.com", "pzielinski")))
+                .thenReturn(Optional.empty());
+        when(userRepository.findUserJsonsByIds(Collections.singletonList("id1"))).thenReturn(Collections.singletonList(user));
+
+        userSearchService.onUserChanged(new UserChangedEvent("id1"));
+        CursorPage<UserJson> beforeDelete = userSearchService.searchUsers("zielinski", null, 10);
+        userSearchService.onUserChanged(new UserChangedEvent("id1"));
+        CursorPage<UserJson> afterDelete = userSearchService.searchUsers("zielinski", null, 10);
+
+        assertEquals(Collections.singletonList(user), beforeDelete.getContent());
+        assertTrue(afterDelete.getContent().isEmpty());
+    }
+
+    @Test
+    void shouldReturnEmptyPageForBlankKeywordWithoutQueryingUsers() {
+        CursorPage<UserJson> result = userSearchService.searchUsers("  ", null, 10);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(userRepository, never()).findUserJsonsByIds(anyCollection());
+    }
+
+    @Test
+    void shouldThrowInvalidCursorExceptionForMalformedCursor() {
+        assertThrows(InvalidCursorException.class, () -> userSearchService.searchUsers("anna", "not-a-cursor", 10));
+    }
+
+    private UserJson generateUser(String id) {
+        UserJson user = new UserJson();
+        user.setId(id);
+        return user;
+    }
+}
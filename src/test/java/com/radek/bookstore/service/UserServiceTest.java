@@ -0,0 +1,193 @@
+package com.radek.bookstore.service;
+
+import com.radek.bookstore.generators.UserGenerator;
+import com.radek.bookstore.model.User;
+import com.radek.bookstore.model.dto.UserDto;
+import com.radek.bookstore.model.exception.BookStoreServiceException;
+import com.radek.bookstore.model.exception.EmailExistsException;
+import com.radek.bookstore.model.exception.UsernameExistsException;
+import com.radek.bookstore.repository.AddressRepository;
+import com.radek.bookstore.repository.UserRepository;
+import com.radek.bookstore.service.impl.UserServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    AddressRepository addressRepository;
+
+    @Mock
+    PasswordEncoder encoder;
+
+    @Mock
+    LoginAttemptService loginAttemptService;
+
+    @Mock
+    EmailOutbox emailOutbox;
+
+    @Mock
+    CurrentUserService currentUserService;
+
+    @Mock
+    LastLoginRecorder lastLoginRecorder;
+
+    @Mock
+    RefreshTokenService refreshTokenService;
+
+    @Mock
+    CommentService commentService;
+
+    @Mock
+    RatingService ratingService;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    UserServiceImpl userService;
+
+    UserDto userDto = UserDto.builder()
+            .firstName("John")
+            .lastName("Smith")
+            .username("JSmith")
+            .email("John.Smith@example.com")
+            .password("Password123!")
+            .build();
+
+    @BeforeEach
+    void setup() {
+        userService = new UserServiceImpl("https://robohash.org/", "http://localhost:4200/", userRepository, addressRepository,
+                encoder, loginAttemptService, emailOutbox, currentUserService, lastLoginRecorder, refreshTokenService, commentService, ratingService, eventPublisher);
+    }
+
+    @Test
+    void shouldRegisterUserThrowUsernameExistsExceptionWhenLoginKeyTakenIgnoringCase() {
+        User existingUser = generateUserWithKeys("existingId", "jsmith", "other@example.com");
+        when(userRepository.findIdentityConflicts("jsmith", "john.smith@example.com")).thenReturn(Collections.singletonList(existingUser));
+
+        assertThrows(UsernameExistsException.class, () -> userService.registerUser(userDto));
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void shouldRegisterUserThrowEmailExistsExceptionWhenEmailKeyTaken() {
+        User existingUser = generateUserWithKeys("existingId", "someone", "john.smith@example.com");
+        when(userRepository.findIdentityConflicts("jsmith", "john.smith@example.com")).thenReturn(Collections.singletonList(existingUser));
+
+        assertThrows(EmailExistsException.class, () -> userService.registerUser(userDto));
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void shouldRegisterUserThrowUsernameExistsExceptionWhenConcurrentSignupViolatesLoginKeyConstraint() {
+        when(userRepository.findIdentityConflicts(anyString(), anyString())).thenReturn(Collections.emptyList());
+        when(encoder.encode(anyString())).thenReturn("encodedPassword");
+        ConstraintViolationException violation = new ConstraintViolationException("Unique index violation", new SQLException(),
+                "UK_APP_USERS_LOGIN_KEY_INDEX_4 ON PUBLIC.APP_USERS(LOGIN_KEY)");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+        assertThrows(UsernameExistsException.class, () -> userService.registerUser(userDto));
+
+        verifyNoInteractions(emailOutbox, eventPublisher);
+    }
+
+    @Test
+    void shouldRegisterUserThrowEmailExistsExceptionWhenConcurrentSignupViolatesLegacyEmailConstraintOnPostgres() {
+        when(userRepository.findIdentityConflicts(anyString(), anyString())).thenReturn(Collections.emptyList());
+        when(encoder.encode(anyString())).thenReturn("encodedPassword");
+        SQLException sqlException = new SQLException("ERROR: duplicate key value violates unique constraint \"uk_6dotkott2kjsp8vw4d0m25fb7\"\n" +
+                "  Detail: Key (email)=(John.Smith@example.com) already exists.", "23505");
+        ConstraintViolationException violation = new ConstraintViolationException("could not execute statement", sqlException,
+                "uk_6dotkott2kjsp8vw4d0m25fb7");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+        assertThrows(EmailExistsException.class, () -> userService.registerUser(userDto));
+
+        verifyNoInteractions(emailOutbox, eventPublisher);
+    }
+
+    @Test
+    void shouldRegisterUserThrowEmailExistsExceptionWhenConcurrentSignupViolatesLegacyEmailConstraintOnH2() {
+        when(userRepository.findIdentityConflicts(anyString(), anyString())).thenReturn(Collections.emptyList());
+        when(encoder.encode(anyString())).thenReturn("encodedPassword");
+        SQLException sqlException = new SQLException("Unique index or primary key violation: " +
+                "\"PUBLIC.UK_6DOTKOTT2KJSP8VW4D0M25FB7_INDEX_4 ON PUBLIC.APP_USERS(EMAIL) VALUES 1\"", "23505");
+        ConstraintViolationException violation = new ConstraintViolationException("could not execute statement", sqlException,
+                "UK_6DOTKOTT2KJSP8VW4D0M25FB7_INDEX_4 ON PUBLIC.APP_USERS(EMAIL)");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+        assertThrows(EmailExistsException.class, () -> userService.registerUser(userDto));
+    }
+
+    @Test
+    void shouldRegisterUserThrowBookStoreServiceExceptionWhenUnrelatedConstraintIsViolated() {
+        when(userRepository.findIdentityConflicts(anyString(), anyString())).thenReturn(Collections.emptyList());
+        when(encoder.encode(anyString())).thenReturn("encodedPassword");
+        SQLException sqlException = new SQLException("ERROR: null value in column \"password\" violates not-null constraint", "23502");
+        ConstraintViolationException violation = new ConstraintViolationException("could not execute statement", sqlException, null);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement", violation));
+
+        assertThrows(BookStoreServiceException.class, () -> userService.registerUser(userDto));
+    }
+
+    @Test
+    void shouldUpdateUserResolveIdentityInSingleQueryIgnoringOwnKeys() throws Exception {
+        User currentUser = generateUserWithKeys("userId", "jsmith", "john.smith@example.com");
+        currentUser.setRole("ROLE_USER");
+        when(userRepository.findUserById("userId")).thenReturn(currentUser);
+        when(userRepository.findIdentityConflicts("jsmith", "john.smith@example.com")).thenReturn(Collections.singletonList(currentUser));
+        when(userRepository.saveAndFlush(currentUser)).thenReturn(currentUser);
+
+        User result = userService.updateUser("userId", userDto, "ROLE_USER", true, true);
+
+        assertEquals("JSmith", result.getUsername());
+        verify(userRepository).findIdentityConflicts("jsmith", "john.smith@example.com");
+        verify(userRepository, never()).findUserByCredentials(anyString());
+        verify(userRepository, never()).findUserByUsername(anyString());
+        verify(userRepository, never()).findUserByEmailIgnoreCase(anyString());
+    }
+
+    @Test
+    void shouldDeleteUserRemoveCommentsAndRatingsBeforeUserSoBookAggregatesFollow() throws Exception {
+        User user = generateUserWithKeys("userId", "jsmith", "john.smith@example.com");
+        user.setUsername("JSmith");
+        when(userRepository.findUserByCredentials("JSmith")).thenReturn(user);
+
+        userService.deleteUser("JSmith");
+
+        InOrder inOrder = inOrder(commentService, ratingService, userRepository);
+        inOrder.verify(commentService).deleteCommentsByUserId("userId");
+        inOrder.verify(ratingService).deleteRatingsByUserId("userId");
+        inOrder.verify(userRepository).deleteById("userId");
+    }
+
+    private User generateUserWithKeys(String id, String loginKey, String emailKey) {
+        User user = UserGenerator.generateUser(id);
+        user.setId(id);
+        user.setLoginKey(loginKey);
+        user.setEmailKey(emailKey);
+        return user;
+    }
+}
@@ -0,0 +1,30 @@
+package com.radek.bookstore.service.mail;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Binds the digest against the shipped application.yaml, so a blank key there cannot silently switch the digest off.
+ */
+@SpringJUnitConfig(classes = AdminDigest.class, initializers = ConfigDataApplicationContextInitializer.class)
+class AdminDigestConfigurationTest {
+
+    @MockBean
+    SmtpTransportPool transportPool;
+
+    @MockBean
+    MailTemplateRenderer templateRenderer;
+
+    @Autowired
+    AdminDigest adminDigest;
+
+    @Test
+    void shouldResolveAtLeastOneAdminRecipientByDefault() {
+        assertFalse(adminDigest.getRecipients().isEmpty());
+    }
+}
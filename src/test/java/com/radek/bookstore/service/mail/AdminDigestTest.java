@@ -0,0 +1,107 @@
+package com.radek.bookstore.service.mail;
+
+import com.radek.bookstore.config.ThymeleafTemplateConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminDigestTest {
+
+    @Mock
+    SmtpTransportPool transportPool;
+
+    MailTemplateRenderer templateRenderer;
+
+    @BeforeEach
+    void setup() {
+        ThymeleafTemplateConfig config = new ThymeleafTemplateConfig();
+        templateRenderer = new MailTemplateRenderer(config.springTemplateEngine(config.htmlTemplateResolver(null), 50));
+    }
+
+    @Test
+    void shouldSendOneSummaryPerAdminWithAllRecordedEmails() throws Exception {
+        when(transportPool.getSession()).thenReturn(Session.getInstance(new Properties()));
+        AdminDigest adminDigest = new AdminDigest(transportPool, templateRenderer, "admin@example.com, owner@example.com", 100, Runnable::run);
+        adminDigest.record("Bookstore - potwierdzenie zamówienia", "john@example.com");
+        adminDigest.record("Bookstore - potwierdzenie zamówienia", "anna@example.com");
+        adminDigest.record("Bookstore - aktywuj konto", "mark@example.com");
+        verify(transportPool, never()).sendAll(anyList());
+
+        adminDigest.flush();
+        adminDigest.flush();
+
+        List<Message> digests = captureSentDigests(1);
+        assertEquals(2, digests.size());
+        assertEquals("owner@example.com", digests.get(1).getAllRecipients()[0].toString());
+        String html = content(digests.get(0));
+        assertTrue(html.contains("john@example.com"));
+        assertTrue(html.contains("anna@example.com"));
+        assertTrue(html.contains("mark@example.com"));
+    }
+
+    @Test
+    void shouldFlushAsSoonAsMaxEntriesAreBuffered() throws Exception {
+        when(transportPool.getSession()).thenReturn(Session.getInstance(new Properties()));
+        AdminDigest adminDigest = new AdminDigest(transportPool, templateRenderer, "admin@example.com", 2, Runnable::run);
+
+        adminDigest.record("Bookstore - aktywuj konto", "john@example.com");
+        verify(transportPool, never()).sendAll(anyList());
+        adminDigest.record("Bookstore - aktywuj konto", "anna@example.com");
+
+        verify(transportPool).sendAll(anyList());
+    }
+
+    @Test
+    void shouldCarryOverEntriesWhenSummaryCouldNotBeSent() throws Exception {
+        when(transportPool.getSession()).thenReturn(Session.getInstance(new Properties()));
+        doThrow(new MessagingException("SMTP unavailable")).doNothing().when(transportPool).sendAll(anyList());
+        AdminDigest adminDigest = new AdminDigest(transportPool, templateRenderer, "admin@example.com", 100, Runnable::run);
+        adminDigest.record("Bookstore - aktywuj konto", "john@example.com");
+        adminDigest.flush();
+        adminDigest.record("Bookstore - aktywuj konto", "anna@example.com");
+
+        adminDigest.flush();
+
+        List<Message> digests = captureSentDigests(2);
+        String html = content(digests.get(0));
+        assertTrue(html.contains("john@example.com"));
+        assertTrue(html.contains("anna@example.com"));
+    }
+
+    @Test
+    void shouldNotRecordAnythingWithoutAdminRecipients() throws Exception {
+        AdminDigest adminDigest = new AdminDigest(transportPool, templateRenderer, "", 1, Runnable::run);
+
+        adminDigest.record("Bookstore - aktywuj konto", "john@example.com");
+        adminDigest.flush();
+
+        verifyNoInteractions(transportPool);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message> captureSentDigests(int sends) throws MessagingException {
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transportPool, times(sends)).sendAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static String content(Message message) throws IOException, MessagingException {
+        return (String) ((MimeMessage) message).getContent();
+    }
+}
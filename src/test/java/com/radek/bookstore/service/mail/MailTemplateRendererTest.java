@@ -0,0 +1,61 @@
+package com.radek.bookstore.service.mail;
+
+import com.radek.bookstore.config.ThymeleafTemplateConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTemplateRendererTest {
+
+    MailTemplateRenderer templateRenderer;
+
+    @BeforeEach
+    void setup() {
+        ThymeleafTemplateConfig config = new ThymeleafTemplateConfig();
+        templateRenderer = new MailTemplateRenderer(config.springTemplateEngine(config.htmlTemplateResolver(null), 50));
+    }
+
+    @Test
+    void shouldRenderAccountMailsFromTemplates() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("firstName", "John");
+        properties.put("activationLink", "http://localhost:4200/activate/123");
+        properties.put("password", "TempPassword1!");
+
+        String activation = templateRenderer.render(MailTemplateRenderer.ACCOUNT_ACTIVATION, properties);
+        String newUser = templateRenderer.render(MailTemplateRenderer.NEW_USER, properties);
+        String resetPassword = templateRenderer.render(MailTemplateRenderer.RESET_PASSWORD, properties);
+
+        assertTrue(activation.contains("Witaj John,"));
+        assertTrue(activation.contains("href=\"http://localhost:4200/activate/123\""));
+        assertTrue(newUser.contains("TempPassword1!"));
+        assertTrue(resetPassword.contains("Twoje hasło zostało zmienione."));
+    }
+
+    @Test
+    void shouldEscapeVariables() {
+        String html = templateRenderer.render(MailTemplateRenderer.ACCOUNT_ACTIVATION,
+                Collections.singletonMap("firstName", "<script>alert(1)</script>"));
+
+        assertFalse(html.contains("<script>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+    }
+
+    @Test
+    void shouldRenderEveryRecipientWithReusedContext() {
+        List<String> names = Arrays.asList("John", "Anna", "Mark");
+        Map<String, String> rendered = new LinkedHashMap<>();
+
+        templateRenderer.renderAll(MailTemplateRenderer.RESET_PASSWORD, names,
+                (name, context) -> context.setVariable("firstName", name),
+                (name, html) -> rendered.put(name, html.toString()));
+
+        assertEquals(names, new ArrayList<>(rendered.keySet()));
+        assertTrue(rendered.get("Anna").contains("Witaj Anna,"));
+        assertFalse(rendered.get("Anna").contains("John"));
+        assertFalse(rendered.get("Mark").contains("activate"));
+    }
+}
@@ -0,0 +1,261 @@
+package com.radek.bookstore.service.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpTransportPoolTest {
+
+    SmtpStandIn smtpServer;
+    SimpleMeterRegistry meterRegistry;
+    Session session;
+
+    @BeforeEach
+    void setup() throws IOException {
+        smtpServer = new SmtpStandIn();
+        meterRegistry = new SimpleMeterRegistry();
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", "127.0.0.1");
+        properties.put("mail.smtp.port", smtpServer.getPort());
+        properties.put("mail.smtp.timeout", 5000);
+        session = Session.getInstance(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void shouldSendMessagesOverOneReusedConnection() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 2, 60000, 60000, 1000, meterRegistry)) {
+            for (int i = 0; i < 3; i++) {
+                pool.send(generateMessage("john" + i + "@example.com"));
+            }
+        }
+
+        assertEquals(1, smtpServer.connections.get());
+        assertEquals(3, smtpServer.messages.get());
+        assertEquals(1, meterRegistry.counter("bookstore.mail.smtp.connections.opened").count());
+        assertEquals(2, meterRegistry.counter("bookstore.mail.smtp.connections.reused").count());
+        assertEquals(3, meterRegistry.timer("bookstore.mail.smtp.send", "outcome", "success").count());
+    }
+
+    @Test
+    void shouldSendBatchOverSingleConnection() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 2, 60000, 60000, 1000, meterRegistry)) {
+            pool.sendAll(Arrays.asList(generateMessage("john@example.com"), generateMessage("anna@example.com")));
+        }
+
+        assertEquals(1, smtpServer.connections.get());
+        assertEquals(2, smtpServer.messages.get());
+    }
+
+    @Test
+    void shouldReconnectWhenHealthCheckFindsDroppedConnection() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 1, 0, 60000, 1000, meterRegistry)) {
+            pool.send(generateMessage("john@example.com"));
+            smtpServer.dropConnections();
+            pool.send(generateMessage("anna@example.com"));
+        }
+
+        assertEquals(2, smtpServer.connections.get());
+        assertEquals(2, smtpServer.messages.get());
+        assertEquals(1, meterRegistry.counter("bookstore.mail.smtp.health-checks.failed").count());
+    }
+
+    @Test
+    void shouldReconnectAfterServerHungUpWhileRejectingRecipient() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 1, 60000, 60000, 1000, meterRegistry)) {
+            assertThrows(SendFailedException.class, () -> pool.send(generateMessage("hangup@example.com")));
+            pool.send(generateMessage("john@example.com"));
+        }
+
+        assertEquals(2, smtpServer.connections.get());
+        assertEquals(1, smtpServer.messages.get());
+        assertEquals(1, meterRegistry.timer("bookstore.mail.smtp.send", "outcome", "rejected").count());
+    }
+
+    @Test
+    void shouldKeepConnectionAfterRejectedRecipient() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 1, 60000, 60000, 1000, meterRegistry)) {
+            assertThrows(SendFailedException.class, () -> pool.send(generateMessage("rejected@example.com")));
+            pool.send(generateMessage("john@example.com"));
+        }
+
+        assertEquals(1, smtpServer.connections.get());
+        assertEquals(1, smtpServer.messages.get());
+    }
+
+    @Test
+    void shouldNotOpenMoreConnectionsThanPoolSize() throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(6);
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 2, 60000, 60000, 5000, meterRegistry)) {
+            List<Future<?>> results = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                String recipient = "user" + i + "@example.com";
+                results.add(senders.submit(() -> {
+                    pool.send(generateMessage(recipient));
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            senders.shutdownNow();
+        }
+
+        assertTrue(smtpServer.connections.get() <= 2);
+        assertEquals(30, smtpServer.messages.get());
+    }
+
+    @Test
+    void shouldFailWhenNoConnectionCanBeOpened() throws IOException {
+        smtpServer.refuseService();
+
+        try (SmtpTransportPool pool = new SmtpTransportPool(session, 1, 60000, 60000, 1000, meterRegistry)) {
+            assertThrows(MessagingException.class, () -> pool.send(generateMessage("john@example.com")));
+        }
+        assertEquals(1, smtpServer.connections.get());
+        assertEquals(0, smtpServer.messages.get());
+        assertEquals(0, meterRegistry.counter("bookstore.mail.smtp.connections.opened").count());
+    }
+
+    private MimeMessage generateMessage(String recipient) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("registration@bookstore-dev.pl"));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(recipient, false));
+        message.setSubject("Bookstore");
+        message.setText("Hello");
+        return message;
+    }
+
+    /**
+     * Minimal SMTP server on the loopback interface which accepts every message and counts connections.
+     * It rejects recipients containing "rejected", and also hangs up on those containing "hangup". After
+     * refuseService() it greets every new connection with 554 and closes it, as a server without SMTP service.
+     */
+    static class SmtpStandIn implements Closeable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        private final ServerSocket serverSocket;
+        private final List<Socket> clients = new CopyOnWriteArrayList<>();
+        private volatile boolean refusingService;
+
+        SmtpStandIn() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void refuseService() {
+            refusingService = true;
+        }
+
+        void dropConnections() throws IOException {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            dropConnections();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket client = serverSocket.accept();
+                    connections.incrementAndGet();
+                    clients.add(client);
+                    Thread handler = new Thread(() -> handle(client), "smtp-stand-in-client");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException exc) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket client) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII)) {
+                if (refusingService) {
+                    reply(out, "554 No SMTP service here");
+                    return;
+                }
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                    switch (command) {
+                        case "EHLO":
+                        case "HELO":
+                            reply(out, "250 localhost");
+                            break;
+                        case "DATA":
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // message content is not inspected
+                            }
+                            messages.incrementAndGet();
+                            reply(out, "250 OK");
+                            break;
+                        case "RCPT":
+                            if (line.contains("rejected") || line.contains("hangup")) {
+                                reply(out, "550 No such user");
+                                if (line.contains("hangup")) {
+                                    client.close();
+                                    return;
+                                }
+                            } else {
+                                reply(out, "250 OK");
+                            }
+                            break;
+                        case "QUIT":
+                            reply(out, "221 Bye");
+                            return;
+                        default:
+                            reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException exc) {
+                // the client or the test dropped the connection
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
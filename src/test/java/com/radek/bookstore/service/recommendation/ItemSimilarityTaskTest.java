@@ -0,0 +1,48 @@
+package com.radek.bookstore.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSimilarityTaskTest {
+
+    @Test
+    void shouldListNeighbourOnceWhenDotProductCancelsOutOnTheWay() {
+        RatingMatrix matrix = RatingMatrix.from(Arrays.asList(
+                new RatingVote("u1", "A", 1), new RatingVote("u2", "A", 1), new RatingVote("u3", "A", 1),
+                new RatingVote("u1", "B", 1), new RatingVote("u2", "B", -1), new RatingVote("u3", "B", 1)));
+        int bookA = matrix.bookIndex("A");
+        int[][] neighbours = new int[matrix.bookCount()][];
+        float[][] scores = new float[matrix.bookCount()][];
+
+        new ItemSimilarityTask(matrix, new int[]{bookA}, 5, neighbours, scores).invoke();
+
+        assertArrayEquals(new int[]{matrix.bookIndex("B")}, neighbours[bookA]);
+        assertEquals(1f / 3f, scores[bookA][0], 1e-6f);
+    }
+
+    @Test
+    void shouldKeepCoRatedBookWithZeroSimilarityAsNeighbour() {
+        RatingMatrix matrix = RatingMatrix.from(Arrays.asList(
+                new RatingVote("u1", "A", 1), new RatingVote("u2", "A", 1),
+                new RatingVote("u1", "B", 1), new RatingVote("u2", "B", -1)));
+        int bookA = matrix.bookIndex("A");
+        int[][] neighbours = new int[matrix.bookCount()][];
+        float[][] scores = new float[matrix.bookCount()][];
+
+        new ItemSimilarityTask(matrix, new int[]{bookA}, 5, neighbours, scores).invoke();
+
+        assertArrayEquals(new int[]{matrix.bookIndex("B")}, neighbours[bookA]);
+        assertArrayEquals(new float[]{0f}, scores[bookA]);
+    }
+
+    @Test
+    void shouldRejectNeighbourCountBelowOne() {
+        RatingMatrix matrix = RatingMatrix.from(Arrays.asList(new RatingVote("u1", "A", 1)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ItemSimilarityTask(matrix, new int[]{0}, 0, new int[1][], new float[1][]));
+    }
+}
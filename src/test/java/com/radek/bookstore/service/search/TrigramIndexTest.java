@@ -0,0 +1,70 @@
+package com.radek.bookstore.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    TrigramIndex index = new TrigramIndex(0.5);
+
+    @Test
+    void shouldMatchCaseAndAccentInsensitively() {
+        index.put("1", "Zoë", "Kowalska", "ZOE.K@example.com", "zkowalska");
+        index.put("2", "John", "Smith", "john@example.com", "jsmith");
+
+        assertEquals(Arrays.asList("1"), ids(index.search("KOWAL", 0, null, 10)));
+        assertEquals(Arrays.asList("1"), ids(index.search("zoe", 0, null, 10)));
+        assertEquals(Arrays.asList("2"), ids(index.search("Sm", 0, null, 10)));
+    }
+
+    @Test
+    void shouldRankExactMatchesAbovePrefixAboveSubstringAboveFuzzy() {
+        index.put("substring", "Ann", "Littlejohn", "ann@example.com", "alittlejohn");
+        index.put("fuzzy", "Jon", "Doe", "jon@example.com", "johanson");
+        index.put("prefix", "Johnny", "Bravo", "bravo@example.com", "bravo");
+        index.put("exact", "John", "Doe", "jdoe@example.com", "jdoe");
+
+        List<TrigramIndex.Match> matches = index.search("john", 0, null, 10);
+
+        assertEquals(Arrays.asList("exact", "prefix", "substring", "fuzzy"), ids(matches));
+        assertEquals(0.5, matches.get(3).getScore());
+    }
+
+    @Test
+    void shouldPageThroughMatchesWithoutGapsOrDuplicates() {
+        IntStream.range(0, 25).forEach(number -> index.put(String.format("user%02d", number), "Anna", "Nowak" + number, "anna" + number + "@example.com", "anna" + number));
+
+        List<String> pagedIds = new ArrayList<>();
+        List<TrigramIndex.Match> page = index.search("anna", 0, null, 10);
+        while (!page.isEmpty()) {
+            pagedIds.addAll(ids(page));
+            TrigramIndex.Match last = page.get(page.size() - 1);
+            page = index.search("anna", last.getScore(), last.getId(), 10);
+        }
+
+        assertEquals(ids(index.search("anna", 0, null, 100)), pagedIds);
+        assertEquals(25, pagedIds.stream().distinct().count());
+    }
+
+    @Test
+    void shouldReplaceUpdatedDocumentsAndForgetRemovedOnes() {
+        IntStream.range(0, 3000).forEach(number -> index.put("user" + number, "Mark", "Taylor", "mark" + number + "@example.com", "mark" + number));
+        IntStream.range(0, 2500).forEach(number -> index.remove("user" + number));
+        index.put("user2999", "Mary", "Jones", "mary@example.com", "mjones");
+
+        assertEquals(500, index.size());
+        assertEquals(499, index.search("taylor", 0, null, 1000).size());
+        assertEquals(Arrays.asList("user2999"), ids(index.search("jones", 0, null, 10)));
+    }
+
+    private List<String> ids(List<TrigramIndex.Match> matches) {
+        return matches.stream().map(TrigramIndex.Match::getId).collect(Collectors.toList());
+    }
+}
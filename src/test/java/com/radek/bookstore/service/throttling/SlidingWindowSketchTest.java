@@ -0,0 +1,54 @@
+package com.radek.bookstore.service.throttling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowSketchTest {
+
+    AtomicLong now = new AtomicLong(Duration.ofDays(1).toMillis());
+    SlidingWindowSketch sketch = new SlidingWindowSketch(Duration.ofMinutes(15), 15, 4, 4096, now::get);
+
+    @Test
+    void shouldKeepExactCountOfHotKeyWhenFloodedWithOtherKeys() {
+        IntStream.range(0, 6).forEach(attempt -> sketch.add("user:victim"));
+        IntStream.range(0, 20_000).forEach(attempt -> sketch.add("user:sprayed" + attempt));
+
+        int estimate = sketch.estimate("user:victim");
+
+        assertTrue(estimate >= 6);
+        assertTrue(estimate <= 8, "estimate: " + estimate);
+    }
+
+    @Test
+    void shouldForgetEventsOlderThanWindow() {
+        sketch.add("client:10.0.0.1");
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+        sketch.add("client:10.0.0.1");
+        assertEquals(2, sketch.estimate("client:10.0.0.1"));
+
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        assertEquals(1, sketch.estimate("client:10.0.0.1"));
+
+        now.addAndGet(Duration.ofMinutes(15).toMillis());
+        assertEquals(0, sketch.estimate("client:10.0.0.1"));
+        assertEquals(1, sketch.add("client:10.0.0.1"));
+    }
+
+    @Test
+    void shouldRemoveEventsOfKeyFromEveryLiveBucket() {
+        sketch.add("user:john");
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        sketch.add("user:john");
+        sketch.add("user:anna");
+
+        sketch.remove("user:john");
+
+        assertEquals(0, sketch.estimate("user:john"));
+        assertEquals(1, sketch.estimate("user:anna"));
+    }
+}